@@ -29,7 +29,7 @@ globalDefinitions
 
 // Function Definitions and Declarations ---
 
-funcDefinition 
+funcDefinition locals [ boolean dead = false, Object tailCalls = null ]
     : proto=funcPrototype body=blockStatement
     ;
 
@@ -52,7 +52,7 @@ returnType
 
 // Name Definitions and Declarations -------
 
-recordDecl
+recordDecl locals [ boolean dead = false ]
     : 'record' name=identifier '{' fields+=typeAssoc* '}'
     ;
 
@@ -81,7 +81,7 @@ nameList
 
 // Statements ------------------------------
 
-statement 
+statement locals [ boolean dead = false, Object temporaries = null ]
     : blockStatement                  
     | nameDeclStatement
     | nameDeclDefStatement             
@@ -134,11 +134,11 @@ ifStatement
     : 'if' '(' condition=expression ')' thenStmt=blockStatement ('else' elseStmt=blockStatement)?
     ;
 
-forStatement
+forStatement locals [ Object invariants = null ]
     : 'for' '(' init=variableDef? ';' condition=expression ';' updateExpr=expression ')' body=blockStatement
     ;
 
-whileStatement
+whileStatement locals [ Object invariants = null ]
     : 'while' '(' condition=expression ')' body=blockStatement
     ;
 
@@ -146,7 +146,7 @@ expressionStatement
     : expr=expression
     ;
 
-returnStatement
+returnStatement locals [ Object tailCall = null ]
     : 'return' expr=expression?
     ;
 
@@ -172,7 +172,7 @@ printArgument
     | '(' exprList ')'  # FormattedPrint
     ;
 
-printfCall
+printfCall locals [ Object recipe = null ]
     : 'printf' '(' formatString=expression argsList ')'
     ;
 
@@ -183,7 +183,7 @@ argsList
 
 // Expressions -----------------------------
 
-expression
+expression locals [ Object folded = null, Object invariant = null, Object common = null, Object simplified = null ]
     :  stringCharToValCall #CharToValExpression
     | concatenateStringsCall #ConcatenateStringsExpression
     | substringCall #SubstringExpression
@@ -247,7 +247,7 @@ stringEquals
     : 'stringEquals' '(' first=expression ',' second=expression ')'
     ;
 
-functionCall
+functionCall locals [ Object inlined = null ]
     : name=identifier '(' args=exprList? ')'
     ;
 
@@ -267,7 +267,7 @@ fieldInit
     : field=identifier '=' expr=expression
     ;
 
-literal 
+literal locals [ Object value = null ]
     : INTEGER   # IntegerLiteral
     | BOOL      # BooleanLiteral
     | STRING    # StringLiteral
@@ -4,9 +4,21 @@ import antlr4.JavanaLexer;
 import antlr4.JavanaParser;
 import edu.yu.compilers.backend.compiler.Compiler;
 import edu.yu.compilers.backend.converter.Converter;
-import edu.yu.compilers.backend.interpreter.Executor;
+import edu.yu.compilers.backend.interpreter.ExecutionPool;
+import edu.yu.compilers.backend.interpreter.Program;
 import edu.yu.compilers.frontend.Semantics;
 import edu.yu.compilers.frontend.SyntaxErrorHandler;
+import edu.yu.compilers.intermediate.ssa.AlgebraicSimplifier;
+import edu.yu.compilers.intermediate.ssa.CommonSubexpressionEliminator;
+import edu.yu.compilers.intermediate.ssa.ConstantFolder;
+import edu.yu.compilers.intermediate.ssa.DeadCodeEliminator;
+import edu.yu.compilers.intermediate.ssa.Inliner;
+import edu.yu.compilers.intermediate.ssa.LoopInvariantMotion;
+import edu.yu.compilers.intermediate.ssa.PassManager;
+import edu.yu.compilers.intermediate.ssa.SsaBuilder;
+import edu.yu.compilers.intermediate.ssa.SsaPrinter;
+import edu.yu.compilers.intermediate.ssa.SsaProgram;
+import edu.yu.compilers.intermediate.ssa.TailCallEliminator;
 import edu.yu.compilers.intermediate.symtable.SymTableEntry;
 import edu.yu.compilers.intermediate.util.ParseTreePrinter;
 
@@ -17,6 +29,7 @@ import org.antlr.v4.runtime.Vocabulary;
 import org.antlr.v4.runtime.tree.ParseTree;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 
@@ -25,23 +38,26 @@ public class JavanaCC {
     public static void main(String[] args) throws Exception {
         String usageMessageString = 
         """
-            USAGE: JavanaCC <option> sourceFileName
+            USAGE: JavanaCC <option> sourceFileName [programArgs...]
                 option: -tokens
                         -parse
                         -symbols
                         -ast
+                        -ssa
                         -execute
                         -convert
                         -compile
+                programArgs are passed to @main with -execute
         """;
 
-        if (args.length != 2) {
+        if (args.length < 2) {
             System.out.println(usageMessageString);
             System.exit(-1);
         }
 
         String operation = args[0];
         String sourceFileName = args[1];
+        String[] programArgs = Arrays.copyOfRange(args, 2, args.length);
 
         if (invalidOperation(operation)) {
             System.out.println(usageMessageString);
@@ -98,14 +114,46 @@ public class JavanaCC {
             System.exit(0);
         }
 
+        // Pass 3: Build the SSA intermediate representation and run
+        //         its passes, if the program is semantically correct.
+
+        SsaProgram ssaProgram = null;
+        PassManager passManager = new PassManager()
+                .add(new ConstantFolder())
+                .add(new DeadCodeEliminator())
+                .add(new AlgebraicSimplifier())
+                .add(new CommonSubexpressionEliminator())
+                .add(new LoopInvariantMotion())
+                .add(new Inliner())
+                .add(new TailCallEliminator());
+
+        if (errorCount == 0) {
+            ssaProgram = new SsaBuilder().build((JavanaParser.ProgramContext) tree);
+            passManager.run(ssaProgram);
+        }
+
+        if (operation.equals("-ssa")) {
+            if (ssaProgram != null) {
+                new SsaPrinter(System.out).print(ssaProgram);
+                passManager.printStatistics(System.out);
+            } else {
+                System.err.printf("There were %d semantic errors.\n", errorCount);
+            }
+            System.exit(errorCount);
+        }
+
         // Pass 4: Translation.
 
         switch (operation) {
             case "-execute" -> {
                 // Pass 3: Execute the Pascal program.
                 SymTableEntry programId = pass2.getProgramId();
-                Executor pass3 = new Executor(programId);
-                pass3.visit(tree);
+                Program program = new Program(programId, (JavanaParser.ProgramContext) tree);
+
+                try (ExecutionPool pass3 = new ExecutionPool(program, 1)) {
+                    int runtimeErrors = pass3.submit(programArgs, System.in, System.out).get();
+                    if (runtimeErrors > 0) System.exit(-1);
+                }
             }
             case "-convert" -> {
                 // Convert from Pascal to Java.
@@ -124,7 +172,7 @@ public class JavanaCC {
     }
 
     private static boolean invalidOperation(String operation) {
-        var validOperations = Set.of("-tokens", "-parse", "-symbols", "-ast", "-execute", "-convert", "-compile");
+        var validOperations = Set.of("-tokens", "-parse", "-symbols", "-ast", "-ssa", "-execute", "-convert", "-compile");
         return !validOperations.contains(operation);
     }
 
@@ -20,6 +20,12 @@ import static edu.yu.compilers.intermediate.type.Typespec.Form.*;
 
 public class CodeGenerator {
     private static final String SUFFIX = ".j";
+
+    // The runtime's buffered standard output channel.
+    protected static final String OUTPUT_CLASS = "edu/yu/compilers/runtime/JavanaOutput";
+    protected static final String OUTPUT_FIELD = OUTPUT_CLASS + "/STDOUT";
+    protected static final String OUTPUT_DESCRIPTOR = "L" + OUTPUT_CLASS + ";";
+
     protected static int count = 0;
     protected PrintWriter objectFile;
     protected String programName;
@@ -328,6 +334,15 @@ public class CodeGenerator {
         ++count;
     }
 
+    /**
+     * Emit code to write any buffered standard output.
+     */
+    public void emitFlushOutput() {
+        emit(GETSTATIC, OUTPUT_FIELD, OUTPUT_DESCRIPTOR);
+        emit(INVOKEVIRTUAL, OUTPUT_CLASS + "/flush()V");
+        localStack.decrease(1);
+    }
+
     // =====
     // Loads
     // =====
@@ -367,12 +382,28 @@ public class CodeGenerator {
     }
 
     /**
-     * Emit a load of a string constant value.
+     * Emit a load of a string constant value, escaping the characters
+     * that can't appear between the quotes of a Jasmin string.
      *
      * @param value the constant value.
      */
     public void emitLoadConstant(String value) {
-        emit(LDC, "\"" + value + "\"");
+        StringBuilder buffer = new StringBuilder(value.length() + 2).append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+
+            switch (ch) {
+                case '"' -> buffer.append("\\\"");
+                case '\\' -> buffer.append("\\\\");
+                case '\n' -> buffer.append("\\n");
+                case '\r' -> buffer.append("\\r");
+                case '\t' -> buffer.append("\\t");
+                default -> buffer.append(ch);
+            }
+        }
+
+        emit(LDC, buffer.append('"').toString());
     }
 
     /**
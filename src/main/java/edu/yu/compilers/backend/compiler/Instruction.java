@@ -36,6 +36,7 @@ public enum Instruction {
     IADD(-1), FADD(-1), ISUB(-1), FSUB(-1), IMUL(-1), FMUL(-1),
     IDIV(-1), FDIV(-1), IREM(-1), FREM(-1), INEG(0), FNEG(0),
     IINC(0), IAND(-1), IOR(-1), IXOR(-1),
+    ISHL(-1), ISHR(-1), IUSHR(-1),
 
     // Type conversion and checking
     I2F(0), I2C(0), I2D(0), F2I(0), F2D(0), D2F(0),
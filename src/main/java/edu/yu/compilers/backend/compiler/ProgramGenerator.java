@@ -49,7 +49,6 @@ public class ProgramGenerator extends CodeGenerator {
         emitDirective(SUPER, "java/lang/Object");
 
         emitProgramVariables();
-        emitInputScanner();
         emitConstructor();
         //emitSubroutines(ctx.block().declarations().routinesPart());
 
@@ -101,13 +100,10 @@ public class ProgramGenerator extends CodeGenerator {
      * Emit field directives for the program variables.
      */
     private void emitProgramVariables() {
-        // Runtime timer and standard in.
-
         SymTable SymTable = programId.getRoutineSymTable();
         ArrayList<SymTableEntry> ids = SymTable.sortedEntries();
 
         emitLine();
-        emitDirective(FIELD_PRIVATE_STATIC, "_sysin", "Ljava/util/Scanner;");
 
         // Loop over all the program's identifiers and
         // emit a .field directive for each variable.
@@ -118,30 +114,6 @@ public class ProgramGenerator extends CodeGenerator {
         }
     }
 
-    /**
-     * Emit code for the runtime input scanner.
-     */
-    private void emitInputScanner() {
-        emitLine();
-        emitComment("Runtime input scanner");
-        emitDirective(METHOD_STATIC, "<clinit>()V");
-        emitLine();
-
-        emit(NEW, "java/util/Scanner");
-        emit(DUP);
-        emit(GETSTATIC, "java/lang/System/in Ljava/io/InputStream;");
-        emit(INVOKESPECIAL, "java/util/Scanner/<init>(Ljava/io/InputStream;)V");
-        emit(PUTSTATIC, programName + "/_sysin Ljava/util/Scanner;");
-        emit(RETURN);
-
-        emitLine();
-        emitDirective(LIMIT_LOCALS, 0);
-        emitDirective(LIMIT_STACK, 3);
-        emitDirective(END_METHOD);
-
-        localStack.reset();
-    }
-
     /**
      * Emit code for the main program constructor.
      */
@@ -202,6 +174,7 @@ public class ProgramGenerator extends CodeGenerator {
      */
     private void emitMainEpilogue() {
         emitLine();
+        emitFlushOutput();
         emit(RETURN);
         emitLine();
 
@@ -2,15 +2,28 @@ package edu.yu.compilers.backend.converter;
 
 import antlr4.JavanaBaseVisitor;
 import antlr4.JavanaParser;
+import edu.yu.compilers.intermediate.ssa.CommonSubexpression;
+import edu.yu.compilers.intermediate.ssa.Constant;
+import edu.yu.compilers.intermediate.ssa.ConstantFolder;
+import edu.yu.compilers.intermediate.ssa.LoopInvariant;
+import edu.yu.compilers.intermediate.ssa.Simplification;
+import edu.yu.compilers.intermediate.ssa.TailCall;
 import edu.yu.compilers.intermediate.symtable.SymTable;
 import edu.yu.compilers.intermediate.symtable.SymTableEntry;
 import edu.yu.compilers.intermediate.type.Typespec;
+import edu.yu.compilers.intermediate.util.FormatRecipe;
+import edu.yu.compilers.intermediate.util.StringIntrinsic;
+import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.TerminalNode;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.List;
 
 import static edu.yu.compilers.intermediate.symtable.SymTableEntry.Kind.*;
 import static edu.yu.compilers.intermediate.type.Typespec.Form.*;
@@ -38,6 +51,17 @@ public class Converter extends JavanaBaseVisitor<Object> {
     private boolean recordFields = false;
     private String currentRecordName = "";
 
+    // Map a hoisted loop invariant to the Java variable that holds its value.
+    private final HashMap<LoopInvariant, String> invariantNames = new HashMap<>();
+
+    // Map the source of a common subexpression to the Java variable
+    // declared for its value, and remember the sources assigned to it.
+    private final HashMap<CommonSubexpression, String> temporaryNames = new HashMap<>();
+    private final HashSet<CommonSubexpression> assignedTemporaries = new HashSet<>();
+
+    // The function being converted, if its tail calls of itself loop.
+    private JavanaParser.FuncDefinitionContext loopingFunction = null;
+
     public String getProgramName() {
         return programName;
     }
@@ -47,7 +71,9 @@ public class Converter extends JavanaBaseVisitor<Object> {
         StringWriter sw = new StringWriter();
         code = new CodeGenerator(new PrintWriter(sw));
 
-        code.emitLine("import java.util.Scanner;\n");
+        code.emitLine("import edu.yu.compilers.runtime.JavanaInput;");
+        code.emitLine("import edu.yu.compilers.runtime.JavanaOutput;");
+        code.emitLine("import edu.yu.compilers.runtime.JavanaStrings;\n");
 
         //visit(ctx.programHeader());
 
@@ -67,7 +93,6 @@ public class Converter extends JavanaBaseVisitor<Object> {
             }
         }
 
-        code.emitLine("static Scanner scanner = new Scanner(System.in);");
         //emitUnnamedRecordDefinitions(ctx.);
 
         // Main.
@@ -82,6 +107,7 @@ public class Converter extends JavanaBaseVisitor<Object> {
 
         // Main compound statement.
         visit(ctx.main);
+        code.emitLine("JavanaOutput.STDOUT.flush();");
 
         code.dedent();
         code.emitLine("}");
@@ -102,7 +128,10 @@ public class Converter extends JavanaBaseVisitor<Object> {
 
     @Override
     public Object visitBlockStatement(JavanaParser.BlockStatementContext ctx) {
-        for(ParseTree statement : ctx.statement()){
+        for(JavanaParser.StatementContext statement : ctx.statement()){
+            if (statement.dead) continue;
+
+            emitTemporaries(statement);
             code.emitStart();
             visit(statement);
         }
@@ -171,6 +200,7 @@ public class Converter extends JavanaBaseVisitor<Object> {
 
     @Override
     public Object visitForStatement(JavanaParser.ForStatementContext ctx) {
+        emitHoistedInvariants(ctx);
         code.emitStart();
         code.emit("for(");
         visit(ctx.init);
@@ -193,7 +223,13 @@ public class Converter extends JavanaBaseVisitor<Object> {
 
     @Override
     public Object visitPrintfCall(JavanaParser.PrintfCallContext ctx) {
-        code.emitStart("System.out.printf(");
+        FormatRecipe recipe = FormatRecipe.of(ctx);
+        if (recipe != null) {
+            emitFormattedPrint(recipe, ((JavanaParser.PrintFArgsListContext) ctx.argsList()).expression());
+            return null;
+        }
+
+        code.emitStart("JavanaOutput.STDOUT.printf(");
         code.emit(ctx.formatString.getText().trim());
         for(ParseTree tree : ctx.argsList().children){
             visit(tree);
@@ -225,6 +261,7 @@ public class Converter extends JavanaBaseVisitor<Object> {
 
     @Override
     public Object visitWhileStatement(JavanaParser.WhileStatementContext ctx) {
+        emitHoistedInvariants(ctx);
         code.emitStart();
         code.emit("while(");
         for(ParseTree tree : ctx.condition.children){
@@ -247,6 +284,8 @@ public class Converter extends JavanaBaseVisitor<Object> {
 
     @Override
     public Object visitRecordDecl(JavanaParser.RecordDeclContext ctx) {
+        if (ctx.dead) return null;
+
         code.emitStart("static class ");
         visit(ctx.name);
         code.emitStart("{");
@@ -274,20 +313,20 @@ public class Converter extends JavanaBaseVisitor<Object> {
 
     @Override
     public Object visitReadLineCallExpression(JavanaParser.ReadLineCallExpressionContext ctx) {
-        code.emit("scanner.nextLine()");
+        code.emit("JavanaInput.STDIN.readLine()");
         return null;
     }
 
     @Override
     public Object visitReadCharCallExpression(JavanaParser.ReadCharCallExpressionContext ctx) {
-        code.emit("scanner.next().charAt(0) + \"\"");
+        code.emit("JavanaInput.STDIN.readChar()");
 
         return null;
     }
 
     @Override
     public Object visitStringToIntCall(JavanaParser.StringToIntCallContext ctx) {
-        code.emit("Integer.parseInt(");
+        code.emit("JavanaInput.parseInt(");
         visit(ctx.expression());
         code.emit(")");
 
@@ -304,6 +343,12 @@ public class Converter extends JavanaBaseVisitor<Object> {
 
     @Override
     public Object visitStringEquals(JavanaParser.StringEqualsContext ctx) {
+        StringIntrinsic intrinsic = StringIntrinsic.of(ctx);
+        if (intrinsic != null) {
+            emitRegionEquals(intrinsic);
+            return null;
+        }
+
         visit(ctx.first);
         code.emit(".equals(");
         visit(ctx.second);
@@ -370,6 +415,13 @@ public class Converter extends JavanaBaseVisitor<Object> {
 
     @Override
     public Object visitEqualityExpression(JavanaParser.EqualityExpressionContext ctx) {
+        StringIntrinsic intrinsic = StringIntrinsic.of(ctx);
+        if (intrinsic != null) {
+            if (ctx.EQ_OP().getText().equals("!=")) code.emit("!");
+            emitRegionEquals(intrinsic);
+            return null;
+        }
+
         for(ParseTree tree : ctx.children){
             visit(tree);
         }
@@ -453,6 +505,12 @@ public class Converter extends JavanaBaseVisitor<Object> {
 
     @Override
     public Object visitReturnStatement(JavanaParser.ReturnStatementContext ctx) {
+        TailCall tailCall = TailCall.of(ctx);
+        if ((tailCall != null) && tailCall.isSelf() && (loopingFunction != null)) {
+            emitRestart(tailCall);
+            return null;
+        }
+
         code.emit("return ");
         if(ctx.expression() != null)visit(ctx.expression());
         code.emit(";");
@@ -460,8 +518,56 @@ public class Converter extends JavanaBaseVisitor<Object> {
         return null;
     }
 
+    /**
+     * Emit a tail call of the function itself: evaluate the arguments,
+     * assign them to the parameters, and start the loop over.
+     *
+     * @param tailCall the tail call.
+     */
+    private void emitRestart(TailCall tailCall) {
+        List<JavanaParser.ExpressionContext> argCtxs = tailCall.getArguments();
+        ArrayList<JavanaParser.TypeContext> parmTypes = new ArrayList<>();
+        ArrayList<String> parmNames = new ArrayList<>();
+
+        JavanaParser.FuncArgListContext parmsCtx = loopingFunction.proto.funcArgList();
+        if (parmsCtx != null) {
+            for (JavanaParser.FuncArgumentContext parmCtx : parmsCtx.args) {
+                for (JavanaParser.IdentifierContext nameCtx : parmCtx.typeAssoc().namelst.names) {
+                    parmTypes.add(parmCtx.typeAssoc().t);
+                    parmNames.add(nameCtx.getText());
+                }
+            }
+        }
+
+        code.emit("{ ");
+        for (int i = 0; i < parmNames.size(); i++) {
+            visit(parmTypes.get(i));
+            code.emit(" $arg" + i + " = ");
+            visit(argCtxs.get(i));
+            code.emit("; ");
+        }
+        for (int i = 0; i < parmNames.size(); i++) {
+            code.emit(parmNames.get(i) + " = $arg" + i + "; ");
+        }
+        code.emit("continue $restart; }");
+    }
+
     @Override
     public Object visitStringCharToValCall(JavanaParser.StringCharToValCallContext ctx) {
+        StringIntrinsic intrinsic = StringIntrinsic.of(ctx);
+        if (intrinsic != null) {
+            code.emit(intrinsic.getEnd() == null ? "JavanaStrings.charValue(" : "JavanaStrings.regionCharValue(");
+            visit(intrinsic.getString());
+            code.emit(", ");
+            visit(intrinsic.getBegin());
+            if (intrinsic.getEnd() != null) {
+                code.emit(", ");
+                visit(intrinsic.getEnd());
+            }
+            code.emit(")");
+            return null;
+        }
+
         //code.emit("(char)");
         visit(ctx.expression());
         code.emit(".charAt(0)");
@@ -494,9 +600,11 @@ public class Converter extends JavanaBaseVisitor<Object> {
 
     @Override
     public Object visitConcatenateStringsCall(JavanaParser.ConcatenateStringsCallContext ctx) {
+        code.emit("(");
         visit(ctx.first);
         code.emit(" + ");
         visit(ctx.second);
+        code.emit(")");
 
         return null;
     }
@@ -523,16 +631,43 @@ public class Converter extends JavanaBaseVisitor<Object> {
 
     @Override
     public Object visitFuncDefinition(JavanaParser.FuncDefinitionContext ctx) {
+        if (ctx.dead) return null;
+
         visit(ctx.proto);
         code.emitLine("{");
         code.indent();
-        visit(ctx.body);
+
+        // A function that tail calls itself repeats its body in a loop,
+        // if the body can't run off its end and leave the loop.
+        loopingFunction = TailCall.loopsIn(ctx) && endsWithReturn(ctx.body) ? ctx : null;
+
+        if (loopingFunction != null) {
+            code.emitLine("$restart:");
+            code.emitLine("while (true) {");
+            code.indent();
+            visit(ctx.body);
+            code.dedent();
+            code.emitLine("}");
+        } else {
+            visit(ctx.body);
+        }
+
+        loopingFunction = null;
         code.dedent();
         code.emitLine("}");
 
         return null;
     }
 
+    private static boolean endsWithReturn(JavanaParser.BlockStatementContext ctx) {
+        for (int i = ctx.stmts.size() - 1; i >= 0; i--) {
+            JavanaParser.StatementContext stmtCtx = ctx.stmts.get(i);
+            if (!stmtCtx.dead) return stmtCtx.getChild(0) instanceof JavanaParser.ReturnStatementContext;
+        }
+
+        return false;
+    }
+
     @Override
     public Object visitFunctionCallExpression(JavanaParser.FunctionCallExpressionContext ctx) {
         visit(ctx.functionCall());
@@ -580,6 +715,8 @@ public class Converter extends JavanaBaseVisitor<Object> {
 
     @Override
     public Object visitArithmeticExpression(JavanaParser.ArithmeticExpressionContext ctx) {
+        if (emitSimplified(ctx)) return null;
+
         for(ParseTree tree : ctx.children){
             visit(tree);
             code.emit(" ");
@@ -590,6 +727,8 @@ public class Converter extends JavanaBaseVisitor<Object> {
 
     @Override
     public Object visitHigherArithmeticExpression(JavanaParser.HigherArithmeticExpressionContext ctx) {
+        if (emitSimplified(ctx)) return null;
+
         for(ParseTree tree : ctx.children){
             visit(tree);
             code.emit(" ");
@@ -598,12 +737,173 @@ public class Converter extends JavanaBaseVisitor<Object> {
         return null;
     }
 
+    @Override
+    public Object visitNotExpression(JavanaParser.NotExpressionContext ctx) {
+        if (emitSimplified(ctx)) return null;
+        return visitChildren(ctx);
+    }
+
+    /**
+     * Emit an expression as its simplification, if it has one: only its
+     * operand, a shift or mask of its operand, or the opposite comparison
+     * of the relational expression that it negates. A division or a
+     * remainder of an operand that may be negative is emitted as written,
+     * since its shifts would evaluate the operand more than once, and the
+     * JIT compiler already does the same for a constant divisor.
+     *
+     * @param ctx the expression.
+     * @return true if it was emitted.
+     */
+    private boolean emitSimplified(JavanaParser.ExpressionContext ctx) {
+        Simplification simplification = Simplification.of(ctx);
+        if (simplification == null) return false;
+
+        int k = simplification.getShift();
+
+        switch (simplification.getKind()) {
+            case OPERAND -> visit(simplification.getOperand());
+            case SHIFT_LEFT, SHIFT_RIGHT, MASK -> {
+                code.emit("(");
+                visit(simplification.getOperand());
+                code.emit(switch (simplification.getKind()) {
+                    case SHIFT_LEFT -> " << " + k;
+                    case SHIFT_RIGHT -> " >> " + k;
+                    default -> " & " + ((1 << k) - 1);
+                });
+                code.emit(")");
+            }
+            case NEGATED_COMPARISON -> {
+                JavanaParser.RelationalExpressionContext relCtx =
+                        (JavanaParser.RelationalExpressionContext) simplification.getOperand();
+
+                code.emit("(");
+                visit(relCtx.expression(0));
+                code.emit(" " + simplification.getOperator() + " ");
+                visit(relCtx.expression(1));
+                code.emit(")");
+            }
+            default -> {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public Object visitParenthesizedExpression(JavanaParser.ParenthesizedExpressionContext ctx) {
+        code.emit("(");
+        visit(ctx.expression());
+        code.emit(")");
+
+        return null;
+    }
+
     @Override
     public Object visitIdentifierExpression(JavanaParser.IdentifierExpressionContext ctx) {
         code.emit(ctx.getText());
         return null;
     }
 
+    /**
+     * Emit a variable before a loop for each of its invariants that
+     * can't flag a runtime error, initialized to the invariant's value.
+     *
+     * @param ctx the while or for statement.
+     */
+    private void emitHoistedInvariants(ParserRuleContext ctx) {
+        for (LoopInvariant invariant : LoopInvariant.in(ctx)) {
+            if (!invariant.isHoisted()) continue;
+
+            String name = "$inv" + invariantNames.size();
+
+            code.emitStart("var " + name + " = ");
+            visit(invariant.getContext());
+            code.emit(";");
+
+            invariantNames.put(invariant, name);
+        }
+    }
+
+    /**
+     * Emit a variable before a statement for each common subexpression
+     * whose source is in the statement, if its value has a Java type.
+     *
+     * @param ctx the StatementContext.
+     */
+    private void emitTemporaries(JavanaParser.StatementContext ctx) {
+        for (CommonSubexpression source : CommonSubexpression.declaredBefore(ctx)) {
+            String declaration = switch (source.getType()) {
+                case INT -> "int %s = 0;";
+                case BOOL -> "boolean %s = false;";
+                case STRING -> "String %s = null;";
+                default -> null;
+            };
+
+            if (declaration != null) {
+                String name = "$cse" + temporaryNames.size();
+
+                code.emitStart(String.format(declaration, name));
+                temporaryNames.put(source, name);
+            }
+        }
+    }
+
+    /**
+     * Emit a node, the Java literal of an expression that was folded
+     * to a constant, the variable of a hoisted loop invariant, or the
+     * variable of a common subexpression. The source of a common
+     * subexpression assigns the variable, and a repetition after it
+     * uses the variable. None has no literal of its own type, so an
+     * expression that folded to it is emitted as written.
+     */
+    @Override
+    public Object visit(ParseTree tree) {
+        Constant constant = tree instanceof JavanaParser.ExpressionContext exprCtx
+                ? ConstantFolder.constantOf(exprCtx)
+                : null;
+
+        if ((constant != null) && (constant.getValue() != null)) {
+            Object value = constant.getValue();
+
+            if (value instanceof String s) code.emit(javaString(s));
+            else if ((value instanceof Integer i) && (i < 0)) code.emit("(" + i + ")");
+            else code.emit(value.toString());
+
+            return null;
+        }
+
+        String name = tree instanceof JavanaParser.ExpressionContext exprCtx
+                ? invariantNames.get(LoopInvariant.of(exprCtx))
+                : null;
+
+        if (name != null) {
+            code.emit(name);
+            return null;
+        }
+
+        CommonSubexpression common = tree instanceof JavanaParser.ExpressionContext exprCtx
+                ? CommonSubexpression.of(exprCtx)
+                : null;
+        String temporary = common != null ? temporaryNames.get(common.getSource()) : null;
+
+        if ((temporary != null) && common.isSource()) {
+            code.emit("(" + temporary + " = ");
+            super.visit(tree);
+            code.emit(")");
+
+            assignedTemporaries.add(common);
+            return null;
+        }
+
+        if ((temporary != null) && assignedTemporaries.contains(common.getSource())) {
+            code.emit(temporary);
+            return null;
+        }
+
+        return super.visit(tree);
+    }
+
     @Override
     public Object visitLiteralExpression(JavanaParser.LiteralExpressionContext ctx) {
         return visit(ctx.literal());
@@ -635,17 +935,109 @@ public class Converter extends JavanaBaseVisitor<Object> {
 
     @Override
     public Object visitPrintStatement(JavanaParser.PrintStatementContext ctx) {
-        code.emitStart(String.format("System.out.print%s;", ctx.printArgument().getText()));
+        code.emitStart(String.format("JavanaOutput.STDOUT.print%s;", ctx.printArgument().getText()));
         code.emitLine();
         return null;
     }
 
     @Override
     public Object visitPrintLineStatement(JavanaParser.PrintLineStatementContext ctx) {
-        code.emitStart(String.format("System.out.println%s;", ctx.printArgument().getText()));
+        if (ctx.printArgument() == null) {
+            code.emitStart("JavanaOutput.STDOUT.println();");
+        } else {
+            code.emitStart(String.format("JavanaOutput.STDOUT.println%s;", ctx.printArgument().getText()));
+        }
         code.emitLine();
         return null;    }
 
+    /**
+     * Emit a compare of a substring or a char with another string as a
+     * runtime call that doesn't create the substring. The operands stay
+     * in their source order.
+     *
+     * @param intrinsic the match.
+     */
+    private void emitRegionEquals(StringIntrinsic intrinsic) {
+        boolean oneChar = intrinsic.getEnd() == null;
+
+        if (intrinsic.isOtherFirst()) {
+            code.emit(oneChar ? "JavanaStrings.equalsChar(" : "JavanaStrings.equalsRegion(");
+            visit(intrinsic.getOther());
+            code.emit(", ");
+        } else {
+            code.emit(oneChar ? "JavanaStrings.charEquals(" : "JavanaStrings.regionEquals(");
+        }
+
+        visit(intrinsic.getString());
+        code.emit(", ");
+        visit(intrinsic.getBegin());
+        if (!oneChar) {
+            code.emit(", ");
+            visit(intrinsic.getEnd());
+        }
+
+        if (!intrinsic.isOtherFirst()) {
+            code.emit(", ");
+            visit(intrinsic.getOther());
+        }
+        code.emit(")");
+    }
+
+    /**
+     * Emit a printf call whose format was split at compile time as a
+     * print of one string concatenation, which javac compiles to an
+     * invokedynamic whose recipe holds the literal segments. The
+     * leading segment is emitted even if it's empty so that the
+     * expression is a concatenation even if the first argument is an int.
+     *
+     * @param recipe  the split format.
+     * @param argCtxs the arguments, one per conversion.
+     */
+    private void emitFormattedPrint(FormatRecipe recipe, List<JavanaParser.ExpressionContext> argCtxs) {
+        List<String> segments = recipe.getSegments();
+
+        code.emitStart("JavanaOutput.STDOUT.print(");
+        code.emit(javaString(segments.get(0)));
+
+        for (int i = 0; i < argCtxs.size(); i++) {
+            code.emit(" + (");
+            visit(argCtxs.get(i));
+            code.emit(")");
+
+            String segment = segments.get(i + 1);
+            if (!segment.isEmpty()) code.emit(" + " + javaString(segment));
+        }
+
+        code.emit(");");
+    }
+
+    /**
+     * Write a string as a Java string literal.
+     *
+     * @param text the string.
+     * @return the literal, with its quotes.
+     */
+    private static String javaString(String text) {
+        StringBuilder buffer = new StringBuilder(text.length() + 2).append('"');
+
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+
+            switch (ch) {
+                case '"' -> buffer.append("\\\"");
+                case '\\' -> buffer.append("\\\\");
+                case '\n' -> buffer.append("\\n");
+                case '\r' -> buffer.append("\\r");
+                case '\t' -> buffer.append("\\t");
+                case '\b' -> buffer.append("\\b");
+                case '\f' -> buffer.append("\\f");
+                default -> buffer.append(ch);
+            }
+        }
+
+        return buffer.append('"').toString();
+    }
+
     /**
      * Emit a record type definition for an unnamed record.
      *
@@ -0,0 +1,119 @@
+package edu.yu.compilers.backend.interpreter;
+
+import antlr4.JavanaParser;
+import edu.yu.compilers.intermediate.symtable.SymTableEntry;
+
+/**
+ * <h1>CallTarget</h1>
+ * <p>What a call to a Javana function dispatches to. A call target starts
+ * out interpreted from the parse tree and counts its invocations and loop
+ * back-edges. Once it is hot, it is lowered to executable nodes and later
+ * calls run the compiled routine instead.</p>
+ * <p>A call target belongs to a Program and is shared by all of the
+ * program's executions. The counts are updated without synchronization,
+ * so concurrent executions may lose a few counts, which only delays
+ * compiling. Compiling is synchronized and happens at most once.</p>
+ */
+public class CallTarget {
+    static final int HOT_INVOCATIONS = 100;   // calls before a routine is hot
+    static final int HOT_BACK_EDGES = 2000;   // loop iterations before it is hot
+
+    private final SymTableEntry routineId;  // symbol table entry of the routine
+    private int invocations;                // count of interpreted calls
+    private int backEdges;                  // count of interpreted loop iterations
+    private volatile CompiledRoutine compiled;  // the lowered routine, or null
+    private volatile boolean uncompilable;      // true if lowering was given up
+
+    /**
+     * Constructor.
+     *
+     * @param routineId the symbol table entry of the routine's name.
+     */
+    public CallTarget(SymTableEntry routineId) {
+        this.routineId = routineId;
+    }
+
+    /**
+     * Get the symbol table entry of the routine's name.
+     *
+     * @return the symbol table entry.
+     */
+    public SymTableEntry getRoutineId() {
+        return routineId;
+    }
+
+    /**
+     * Get the routine's body.
+     *
+     * @return the body's BlockStatementContext.
+     */
+    public JavanaParser.BlockStatementContext getBody() {
+        return (JavanaParser.BlockStatementContext) routineId.getExecutable();
+    }
+
+    /**
+     * Get the count of interpreted calls.
+     *
+     * @return the count.
+     */
+    public int getInvocations() {
+        return invocations;
+    }
+
+    /**
+     * Get the count of interpreted loop iterations.
+     *
+     * @return the count.
+     */
+    public int getBackEdges() {
+        return backEdges;
+    }
+
+    /**
+     * Count an interpreted call.
+     */
+    void countInvocation() {
+        ++invocations;
+    }
+
+    /**
+     * Count an interpreted loop iteration.
+     */
+    void countBackEdge() {
+        ++backEdges;
+    }
+
+    /**
+     * Determine whether the routine is hot and still needs to be compiled.
+     *
+     * @return true if it should be compiled, else false.
+     */
+    boolean shouldCompile() {
+        return (compiled == null) && !uncompilable
+                && ((invocations >= HOT_INVOCATIONS) || (backEdges >= HOT_BACK_EDGES));
+    }
+
+    /**
+     * Get the compiled routine.
+     *
+     * @return the compiled routine, or null if the routine is interpreted.
+     */
+    public CompiledRoutine getCompiledRoutine() {
+        return compiled;
+    }
+
+    /**
+     * Compile the routine unless another execution already has.
+     *
+     * @param program the program that contains the routine.
+     * @return the compiled routine, or null if it can't be compiled.
+     */
+    synchronized CompiledRoutine compile(Program program) {
+        if ((compiled == null) && !uncompilable) {
+            compiled = new RoutineCompiler(program).compile(this);
+            uncompilable = compiled == null;
+        }
+
+        return compiled;
+    }
+}
@@ -0,0 +1,58 @@
+package edu.yu.compilers.backend.interpreter;
+
+/**
+ * <h1>CompiledRoutine</h1>
+ * <p>A Javana function lowered to executable nodes. Its locals are kept
+ * in an array of slots instead of a memory map: slot 0 holds the return
+ * value and slots 1 through n hold the n parameters. A tail call of the
+ * routine itself assigns the new arguments to those slots, and the body
+ * starts over in the same array.</p>
+ */
+public class CompiledRoutine {
+    private final String name;          // routine name
+    private final int parameterCount;   // count of parameters
+    private final int localsCount;      // count of slots, including slot 0
+    private final StatementNode body;   // the routine's body
+
+    /**
+     * Constructor.
+     *
+     * @param name           the routine name.
+     * @param parameterCount the count of parameters.
+     * @param localsCount    the count of slots.
+     * @param body           the routine's body.
+     */
+    public CompiledRoutine(String name, int parameterCount, int localsCount, StatementNode body) {
+        this.name = name;
+        this.parameterCount = parameterCount;
+        this.localsCount = localsCount;
+        this.body = body;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLocalsCount() {
+        return localsCount;
+    }
+
+    /**
+     * Invoke the routine.
+     *
+     * @param executor the execution.
+     * @param args     the argument values.
+     * @return the return value.
+     */
+    public Object invoke(Executor executor, Object[] args) {
+        Object[] locals = new Object[localsCount];
+        System.arraycopy(args, 0, locals, 1, parameterCount);
+
+        int flow;
+        do {
+            flow = body.execute(executor, locals);
+        } while (flow == StatementNode.RESTART);
+
+        return locals[0];
+    }
+}
@@ -0,0 +1,66 @@
+package edu.yu.compilers.backend.interpreter;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+
+/**
+ * <h1>CountedLoopNode</h1>
+ * <p>A for statement that counts an int local by a constant step toward
+ * a loop-invariant bound. The bound is evaluated once and the induction
+ * variable is kept as an int, so an iteration neither evaluates the
+ * condition and update nodes nor unboxes the variable. The body still
+ * reads the variable from its slot. If the start or the bound isn't an
+ * integer, the loop runs as an ordinary for statement so that the
+ * error is reported as before.</p>
+ */
+class CountedLoopNode implements StatementNode {
+    private final int slot;                // slot of the induction variable
+    private final StatementNode init;      // stores the start value into the slot
+    private final ExpressionNode bound;    // the loop-invariant bound
+    private final boolean ascending;       // true for < and <=
+    private final boolean inclusive;       // true for <= and >=
+    private final int step;                // added after each iteration
+    private final StatementNode body;
+    private final StatementNode uncounted; // the ordinary loop, after init
+    private final ParserRuleContext ctx;   // the for statement, for fuel
+
+    CountedLoopNode(int slot, StatementNode init, ExpressionNode bound, String relation, int step,
+                    StatementNode body, StatementNode uncounted, ParserRuleContext ctx) {
+        this.slot = slot;
+        this.init = init;
+        this.bound = bound;
+        this.ascending = relation.startsWith("<");
+        this.inclusive = relation.endsWith("=");
+        this.step = step;
+        this.body = body;
+        this.uncounted = uncounted;
+        this.ctx = ctx;
+    }
+
+    @Override
+    public int execute(Executor executor, Object[] locals) {
+        init.execute(executor, locals);
+
+        if (!(locals[slot] instanceof Integer start) || !(bound.evaluate(executor, locals) instanceof Integer limit)) {
+            return uncounted.execute(executor, locals);
+        }
+
+        for (int i = start; test(i, limit); ) {
+            int flow = body.execute(executor, locals);
+
+            if (flow == BREAK) break;
+            if ((flow == RETURN) || (flow == RESTART)) return flow;
+
+            i += step;
+            locals[slot] = i;
+
+            executor.tick(ctx);
+        }
+
+        return NORMAL;
+    }
+
+    private boolean test(int i, int limit) {
+        if (ascending) return inclusive ? i <= limit : i < limit;
+        else           return inclusive ? i >= limit : i > limit;
+    }
+}
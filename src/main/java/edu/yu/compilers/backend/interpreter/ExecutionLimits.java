@@ -0,0 +1,78 @@
+package edu.yu.compilers.backend.interpreter;
+
+/**
+ * <h1>ExecutionLimits</h1>
+ * <p>The limits on one execution of a Javana program.</p>
+ * <p>Fuel is spent one unit at each loop back-edge and each function
+ * entry, the only places where a program can run for an unbounded time.
+ * The heap budget is charged for each array and record the program
+ * allocates with @. Javana never frees them, so the charge is cumulative.</p>
+ */
+public class ExecutionLimits {
+    public static final ExecutionLimits NONE = new ExecutionLimits(Long.MAX_VALUE, 0, Long.MAX_VALUE);
+
+    // Estimated sizes of the objects that represent Javana data.
+    private static final long OBJECT_HEADER_BYTES = 16;
+    private static final long REFERENCE_BYTES = 8;
+    private static final long CELL_BYTES = OBJECT_HEADER_BYTES + REFERENCE_BYTES;
+    private static final long MAP_ENTRY_BYTES = 32;
+
+    private final long fuel;             // back-edges and function entries allowed
+    private final long timeLimitMillis;  // wall-clock limit, or 0 for none
+    private final long heapBudget;       // bytes of arrays and records allowed
+
+    /**
+     * Constructor.
+     *
+     * @param fuel            the back-edges and function entries allowed.
+     * @param timeLimitMillis the wall-clock limit in milliseconds, or 0 for none.
+     * @param heapBudget      the estimated bytes of arrays and records allowed.
+     */
+    public ExecutionLimits(long fuel, long timeLimitMillis, long heapBudget) {
+        this.fuel = fuel;
+        this.timeLimitMillis = timeLimitMillis;
+        this.heapBudget = heapBudget;
+    }
+
+    public long getFuel() {
+        return fuel;
+    }
+
+    public long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+
+    public long getHeapBudget() {
+        return heapBudget;
+    }
+
+    /**
+     * Determine whether any limit is set. An execution without limits
+     * doesn't meter fuel or charge allocations at all.
+     *
+     * @return true if the fuel, time, or heap is bounded, false if not.
+     */
+    public boolean isBounded() {
+        return (fuel != Long.MAX_VALUE) || (timeLimitMillis > 0) || (heapBudget != Long.MAX_VALUE);
+    }
+
+    /**
+     * Estimate the size of an array.
+     *
+     * @param elementCount the count of elements.
+     * @return the size in bytes.
+     */
+    static long arrayBytes(int elementCount) {
+        return OBJECT_HEADER_BYTES + elementCount * (REFERENCE_BYTES + CELL_BYTES);
+    }
+
+    /**
+     * Estimate the size of a record.
+     *
+     * @param fieldCount the count of fields.
+     * @return the size in bytes.
+     */
+    static long recordBytes(int fieldCount) {
+        return OBJECT_HEADER_BYTES + fieldCount * (MAP_ENTRY_BYTES + CELL_BYTES);
+    }
+}
@@ -0,0 +1,91 @@
+package edu.yu.compilers.backend.interpreter;
+
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <h1>ExecutionPool</h1>
+ * <p>Run many independent executions of a shared Program concurrently,
+ * one thread per core. Each execution has its own Executor, and so its
+ * own runtime stack and I/O streams. Code that one execution compiles
+ * is used by all of them.</p>
+ */
+public class ExecutionPool implements AutoCloseable {
+    static final long THREAD_STACK_SIZE = 512L * 1024 * 1024;  // interpreted calls nest deeply
+
+    private final Program program;          // the shared program
+    private final ExecutionLimits limits;   // limits on each execution
+    private final ExecutorService threads;  // runs the executions
+
+    /**
+     * Constructor for a pool with a thread per available core.
+     *
+     * @param program the program to execute.
+     */
+    public ExecutionPool(Program program) {
+        this(program, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param program     the program to execute.
+     * @param threadCount the number of executions that run at once.
+     */
+    public ExecutionPool(Program program, int threadCount) {
+        this(program, threadCount, ExecutionLimits.NONE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param program     the program to execute.
+     * @param threadCount the number of executions that run at once.
+     * @param limits      the limits on each execution.
+     */
+    public ExecutionPool(Program program, int threadCount, ExecutionLimits limits) {
+        this.program = program;
+        this.limits = limits;
+        this.threads = Executors.newFixedThreadPool(threadCount, threadFactory());
+    }
+
+    /**
+     * Create daemon threads with Java stacks large enough for the interpreter.
+     *
+     * @return the thread factory.
+     */
+    private static ThreadFactory threadFactory() {
+        AtomicInteger count = new AtomicInteger();
+
+        return runnable -> {
+            Thread thread = new Thread(null, runnable, "javana-" + count.incrementAndGet(), THREAD_STACK_SIZE);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Start an execution of the program.
+     *
+     * @param programArgs the command-line arguments passed to @main.
+     * @param in          the execution's standard input.
+     * @param out         the execution's standard output.
+     * @return the execution's count of runtime errors, when it's done.
+     */
+    public Future<Integer> submit(String[] programArgs, InputStream in, PrintStream out) {
+        return threads.submit(() -> new Executor(program, programArgs, in, out, limits).execute());
+    }
+
+    /**
+     * Let the started executions finish, but don't accept new ones.
+     */
+    @Override
+    public void close() {
+        threads.shutdown();
+    }
+}
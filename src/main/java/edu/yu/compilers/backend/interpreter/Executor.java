@@ -1,14 +1,1342 @@
 package edu.yu.compilers.backend.interpreter;
 
 import antlr4.JavanaBaseVisitor;
+import antlr4.JavanaParser;
+import edu.yu.compilers.intermediate.ssa.Constant;
+import edu.yu.compilers.intermediate.ssa.ConstantFolder;
+import edu.yu.compilers.intermediate.ssa.Simplification;
+import edu.yu.compilers.intermediate.ssa.TailCall;
+import edu.yu.compilers.intermediate.symtable.SymTable;
 import edu.yu.compilers.intermediate.symtable.SymTableEntry;
+import edu.yu.compilers.intermediate.type.TypeChecker;
+import edu.yu.compilers.intermediate.type.Typespec;
+import edu.yu.compilers.intermediate.util.FormatRecipe;
+import edu.yu.compilers.intermediate.util.StringIntrinsic;
+import edu.yu.compilers.runtime.JavanaInput;
+import edu.yu.compilers.runtime.JavanaOutput;
+import edu.yu.compilers.runtime.JavanaStrings;
+import edu.yu.compilers.runtime.StringRope;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import static edu.yu.compilers.backend.interpreter.RuntimeErrorHandler.Code.*;
+import static edu.yu.compilers.intermediate.symtable.SymTableEntry.Kind.*;
 
 /**
  * Execute Javana programs.
+ * <p>Execution starts by interpreting the parse tree directly. Calls
+ * go through each function's CallTarget, which counts invocations and
+ * loop back-edges. Once a function is hot, the RoutineCompiler lowers
+ * it to executable nodes and later calls run the compiled routine.</p>
+ * <p>A return statement that tail calls a function in its own cycle of
+ * the call graph doesn't call. It leaves the callee and the arguments
+ * for the call that is returning, which makes the tail call in its
+ * place, so that tail recursion runs in constant stack.</p>
+ * <p>An Executor is one execution of a shared Program. It owns the
+ * execution's runtime stack, program variables, and I/O streams, so any
+ * number of executors can run the same program on different threads.</p>
  */
 public class Executor extends JavanaBaseVisitor<Object> {
 
-    public Executor(SymTableEntry programId) {
+    /**
+     * How a statement transfers control, if not to the next statement.
+     */
+    enum ControlFlow {
+        BREAK, CONTINUE, RETURN
+    }
+
+    private static final int FUEL_SLICE = 4096;    // fuel granted at a time
+
+    private final Program program;                 // the shared program
+    private final ExecutionLimits limits;          // fuel, time, and heap limits
+    private final boolean metered;                 // whether any limit is enforced
+    private final SymTableEntry programId;         // program's symbol table entry
+    private final String[] programArgs;            // arguments passed to @main
+    private final RuntimeStack runtimeStack;       // runtime stack of frames
+    private final RuntimeErrorHandler error;       // runtime error handler
+    private final Cell[] globals;                  // program variables by slot
+    private final JavanaOutput out;                // buffered standard output
+    private final JavanaInput in;                  // buffered standard input
+    private CallTarget currentTarget;              // function being interpreted
+    private Object returnValue;                    // value of the last return
+    private CallTarget tailTarget;                 // callee of a pending tail call, or null
+    private Object[] tailArgs;                     // arguments of the pending tail call
+    private long fuel;                             // fuel not yet granted
+    private int slice;                             // fuel left in the granted slice
+    private long heapUsed;                         // estimated bytes allocated with @
+    private volatile boolean timedOut;             // set by the watchdog
+
+    /**
+     * Constructor for an execution that uses the standard streams.
+     *
+     * @param program     the program to execute.
+     * @param programArgs the command-line arguments passed to @main.
+     */
+    public Executor(Program program, String[] programArgs) {
+        this(program, programArgs, System.in, System.out);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param program     the program to execute.
+     * @param programArgs the command-line arguments passed to @main.
+     * @param in          the execution's standard input.
+     * @param out         the execution's standard output.
+     */
+    public Executor(Program program, String[] programArgs, InputStream in, PrintStream out) {
+        this(program, programArgs, in, out, ExecutionLimits.NONE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param program     the program to execute.
+     * @param programArgs the command-line arguments passed to @main.
+     * @param in          the execution's standard input.
+     * @param out         the execution's standard output.
+     * @param limits      the limits on the execution.
+     */
+    public Executor(Program program, String[] programArgs, InputStream in, PrintStream out,
+                    ExecutionLimits limits) {
+        this.program = program;
+        this.limits = limits;
+        this.metered = limits.isBounded();
+        this.fuel = limits.getFuel();
+        this.programId = program.getProgramId();
+        this.programArgs = programArgs;
+        this.runtimeStack = new RuntimeStack(program.getMaxNestingLevel());
+        this.globals = new Cell[program.getGlobalNames().length];
+        this.out = JavanaOutput.forStream(out);
+
+        // Error messages go through the same buffer as the program's
+        // output, so the two stay in order.
+        this.error = new RuntimeErrorHandler(new PrintStream(this.out));
+        this.in = new JavanaInput(in, this.out);  // prompts are flushed before reads
+    }
+
+    /**
+     * Get the runtime error handler.
+     *
+     * @return the handler.
+     */
+    public RuntimeErrorHandler getErrorHandler() {
+        return error;
+    }
+
+    /**
+     * Execute the program.
+     *
+     * @return the count of runtime errors.
+     */
+    public int execute() {
+        ScheduledFuture<?> alarm = limits.getTimeLimitMillis() > 0
+                ? Watchdog.arm(limits.getTimeLimitMillis(), () -> timedOut = true)
+                : null;
+
+        try {
+            visit(program.getTree());
+        } catch (RuntimeErrorHandler.Abort ex) {
+            // The error handler has reported the abort.
+        } finally {
+            if (alarm != null) alarm.cancel(false);
+            out.flush();
+        }
+
+        return error.getCount();
+    }
+
+    // ========
+    // Routines
+    // ========
+
+    @Override
+    public Object visitProgram(JavanaParser.ProgramContext ctx) {
+        StackFrame programFrame = new StackFrame(programId);
+        runtimeStack.push(programFrame);
+
+        // Give each program variable a cell that compiled code
+        // can reach by slot.
+        String[] globalNames = program.getGlobalNames();
+        for (int slot = 0; slot < globals.length; slot++) {
+            Cell cell = programFrame.getCell(globalNames[slot]);
+            if (cell == null) {
+                cell = new Cell(null);
+                programFrame.replaceCell(globalNames[slot], cell);
+            }
+
+            globals[slot] = cell;
+        }
+
+        // Program variables and constants are initialized before @main,
+        // wherever they appear in the source.
+        for (JavanaParser.GlobalDefinitionsContext defCtx : ctx.defs) {
+            visit(defCtx);
+        }
+
+        visit(ctx.main);
+
+        runtimeStack.pop();
+        return null;
+    }
+
+    @Override
+    public Object visitMainMethod(JavanaParser.MainMethodContext ctx) {
+        SymTable programSymTable = programId.getRoutineSymTable();
+        SymTable mainSymTable = new SymTable(programSymTable.getNestingLevel() + 1);
+        StackFrame mainFrame = new StackFrame(programId, mainSymTable);
+
+        if (ctx.args != null) {
+            Cell[] args = new Cell[programArgs.length];
+            for (int i = 0; i < args.length; i++) args[i] = new Cell(programArgs[i]);
+
+            mainFrame.replaceCell(ctx.args.name.getText(), new Cell(args));
+        }
+
+        runtimeStack.push(mainFrame);
+        currentTarget = new CallTarget(programId);
+        visit(ctx.body);
+        runtimeStack.pop();
+
+        return null;
+    }
+
+    @Override
+    public Object visitFuncDefinition(JavanaParser.FuncDefinitionContext ctx) {
+        return null;  // functions only execute when called
+    }
+
+    @Override
+    public Object visitRecordDecl(JavanaParser.RecordDeclContext ctx) {
+        return null;  // record types were created by Semantics
+    }
+
+    @Override
+    public Object visitFunctionCallExpression(JavanaParser.FunctionCallExpressionContext ctx) {
+        return visit(ctx.functionCall());
+    }
+
+    @Override
+    public Object visitFunctionCall(JavanaParser.FunctionCallContext ctx) {
+        CallTarget target = program.getCallTarget(ctx);
+
+        if (target == null) {
+            error.flag(UNIMPLEMENTED_FEATURE, ctx);
+            return null;
+        }
+
+        return call(target, arguments(ctx.args != null ? ctx.args.exprs : List.of()), ctx);
+    }
+
+    private Object[] arguments(List<JavanaParser.ExpressionContext> argCtxs) {
+        Object[] args = new Object[argCtxs.size()];
+        for (int i = 0; i < args.length; i++) args[i] = visit(argCtxs.get(i));
+
+        return args;
+    }
+
+    /**
+     * Call a function through its call target, compiling it first
+     * if it has become hot. Then make the tail calls that the function
+     * and its tail callees leave, one after another at the same depth.
+     * Calls nest as deeply as the executing thread's Java stack allows,
+     * and exhausting it aborts the execution.
+     *
+     * @param target the call target.
+     * @param args   the argument values.
+     * @param ctx    the context of the call, for error reporting.
+     * @return the function's return value.
+     */
+    Object call(CallTarget target, Object[] args, ParserRuleContext ctx) {
+        tick(ctx);
+
+        try {
+            Object value = dispatch(target, args);
+
+            while (tailTarget != null) {
+                target = tailTarget;
+                args = tailArgs;
+                tailTarget = null;
+                tailArgs = null;
+
+                tick(ctx);
+                value = dispatch(target, args);
+            }
+
+            return value;
+        } catch (StackOverflowError ex) {
+            error.abort(STACK_OVERFLOW, ctx);
+            return null;
+        }
+    }
+
+    /**
+     * Leave a tail call for the call that is returning to make.
+     *
+     * @param target the callee's call target.
+     * @param args   the argument values.
+     */
+    void tailCall(CallTarget target, Object[] args) {
+        tailTarget = target;
+        tailArgs = args;
+    }
+
+    /**
+     * Run a function's compiled routine, or interpret it.
+     *
+     * @param target the call target.
+     * @param args   the argument values.
+     * @return the function's return value.
+     */
+    private Object dispatch(CallTarget target, Object[] args) {
+        CompiledRoutine compiled = target.getCompiledRoutine();
+        if ((compiled == null) && target.shouldCompile()) compiled = target.compile(program);
+
+        if (compiled != null) return compiled.invoke(this, args);
+
+        return interpret(target, args);
+    }
+
+    /**
+     * Interpret a function's body from the parse tree.
+     *
+     * @param target the call target.
+     * @param args   the argument values.
+     * @return the function's return value.
+     */
+    private Object interpret(CallTarget target, Object[] args) {
+        SymTableEntry routineId = target.getRoutineId();
+        StackFrame frame = new StackFrame(routineId);
+        ArrayList<SymTableEntry> parmIds = routineId.getRoutineParameters();
+
+        for (int i = 0; i < args.length; i++) {
+            frame.replaceCell(parmIds.get(i).getName(), new Cell(args[i]));
+        }
+
+        CallTarget callerTarget = currentTarget;
+        currentTarget = target;
+        target.countInvocation();
+        runtimeStack.push(frame);
+
+        returnValue = null;
+        visit(target.getBody());
+        Object value = returnValue;
+        returnValue = null;
+
+        runtimeStack.pop();
+        currentTarget = callerTarget;
+
+        return value;
+    }
+
+    // ==========
+    // Statements
+    // ==========
+
+    @Override
+    public Object visitBlockStatement(JavanaParser.BlockStatementContext ctx) {
+        for (JavanaParser.StatementContext stmtCtx : ctx.stmts) {
+            if (stmtCtx.dead) continue;
+
+            Object flow = visit(stmtCtx);
+            if (flow instanceof ControlFlow) return flow;
+        }
+
+        return null;
+    }
+
+    @Override
+    public Object visitStatement(JavanaParser.StatementContext ctx) {
+        return visit(ctx.getChild(0));
+    }
+
+    @Override
+    public Object visitVariableDecl(JavanaParser.VariableDeclContext ctx) {
+        JavanaParser.TypeAssocContext assocCtx = ctx.assoc;
+        Typespec type = TypeChecker.returnType(assocCtx.t.getText());
+        Object value = MemoryMap.allocateCellValue(type);
+
+        for (JavanaParser.IdentifierContext nameCtx : assocCtx.namelst.names) {
+            define(nameCtx.getText(), value);
+        }
+
+        return null;
+    }
+
+    @Override
+    public Object visitVariableDefinition(JavanaParser.VariableDefinitionContext ctx) {
+        for (JavanaParser.IdentifierContext nameCtx : ctx.namelst.names) {
+            define(nameCtx.getText(), visit(ctx.expr));
+        }
+
+        return null;
+    }
+
+    @Override
+    public Object visitConstantDefinition(JavanaParser.ConstantDefinitionContext ctx) {
+        for (JavanaParser.IdentifierContext nameCtx : ctx.namelst.names) {
+            define(nameCtx.getText(), visit(ctx.expr));
+        }
+
+        return null;
+    }
+
+    /**
+     * Assign a value. As in Java, the container and the index of an
+     * element are evaluated before the value, and the element is
+     * selected after it.
+     */
+    @Override
+    public Object visitAssignmentStatement(JavanaParser.AssignmentStatementContext ctx) {
+        JavanaParser.VariableContext varCtx = ctx.var;
+
+        if (varCtx.modifiers.isEmpty()) {
+            Object value = visit(ctx.expr);
+            Cell cell = lookup(varCtx.name.getText(), varCtx);
+            if (cell != null) cell.setValue(value);
+            return null;
+        }
+
+        // Evaluate the container through all but the last modifier.
+        Cell cell = lookup(varCtx.name.getText(), varCtx);
+        Object container = cell != null ? cell.getValue() : null;
+        int last = varCtx.modifiers.size() - 1;
+
+        for (int i = 0; i < last; i++) {
+            cell = selectCell(container, varCtx.modifiers.get(i));
+            container = cell != null ? cell.getValue() : null;
+        }
+
+        JavanaParser.VarModifierContext modCtx = varCtx.modifiers.get(last);
+
+        if (modCtx instanceof JavanaParser.VarArrayIndexModfierContext indexCtx) {
+            Object index = visit(indexCtx.arrIdxSpecifier().expr);
+            Object value = visit(ctx.expr);
+            cell = selectElement(container, index, modCtx);
+            if (cell != null) cell.setValue(value);
+        } else {
+            String fieldName = ((JavanaParser.VarRecordFieldModifierContext) modCtx).identifier().getText();
+            Object value = visit(ctx.expr);
+            cell = selectField(container, fieldName, modCtx);
+            if (cell != null) cell.setValue(value);
+        }
+
+        return null;
+    }
+
+    @Override
+    public Object visitIfStatement(JavanaParser.IfStatementContext ctx) {
+        if (isTrue(visit(ctx.condition), ctx.condition)) return visit(ctx.thenStmt);
+        else if (ctx.elseStmt != null) return visit(ctx.elseStmt);
+        else return null;
+    }
+
+    @Override
+    public Object visitWhileStatement(JavanaParser.WhileStatementContext ctx) {
+        while (isTrue(visit(ctx.condition), ctx.condition)) {
+            Object flow = visit(ctx.body);
+
+            if (flow == ControlFlow.BREAK) break;
+            if (flow == ControlFlow.RETURN) return flow;
+
+            currentTarget.countBackEdge();
+            tick(ctx);
+        }
+
+        return null;
+    }
+
+    @Override
+    public Object visitForStatement(JavanaParser.ForStatementContext ctx) {
+        if (ctx.init != null) visit(ctx.init);
+
+        JavanaParser.IdentifierExpressionContext inductionCtx = updateTarget(ctx.updateExpr);
+        if (inductionCtx == null) {
+            error.flag(UNIMPLEMENTED_FEATURE, ctx.updateExpr);
+            return null;
+        }
+
+        while (isTrue(visit(ctx.condition), ctx.condition)) {
+            Object flow = visit(ctx.body);
+
+            if (flow == ControlFlow.BREAK) break;
+            if (flow == ControlFlow.RETURN) return flow;
+
+            // The update expression implicitly assigns
+            // to its leftmost variable.
+            Object value = visit(ctx.updateExpr);
+            Cell cell = lookup(inductionCtx.getText(), inductionCtx);
+            if (cell != null) cell.setValue(value);
+
+            currentTarget.countBackEdge();
+            tick(ctx);
+        }
+
+        return null;
+    }
+
+    /**
+     * Find the variable that a for statement's update expression assigns,
+     * which is the leftmost operand, such as i in i + 1.
+     *
+     * @param ctx the update ExpressionContext.
+     * @return the IdentifierExpressionContext, or null if there is none.
+     */
+    static JavanaParser.IdentifierExpressionContext updateTarget(JavanaParser.ExpressionContext ctx) {
+        while (!(ctx instanceof JavanaParser.IdentifierExpressionContext)) {
+            if (ctx instanceof JavanaParser.ParenthesizedExpressionContext parenCtx) {
+                ctx = parenCtx.expression();
+            } else if ((ctx.getChildCount() == 3)
+                    && (ctx.getChild(0) instanceof JavanaParser.ExpressionContext leftCtx)) {
+                ctx = leftCtx;
+            } else {
+                return null;
+            }
+        }
+
+        return (JavanaParser.IdentifierExpressionContext) ctx;
+    }
+
+    @Override
+    public Object visitExpressionStatement(JavanaParser.ExpressionStatementContext ctx) {
+        visit(ctx.expr);
+        return null;
+    }
+
+    @Override
+    public Object visitReturnStatement(JavanaParser.ReturnStatementContext ctx) {
+        TailCall tailCall = TailCall.of(ctx);
+        CallTarget target = tailCall != null ? program.getCallTarget(tailCall.getCall()) : null;
+
+        if (target != null) {
+            tailCall(target, arguments(tailCall.getArguments()));
+            returnValue = null;
+        } else {
+            returnValue = ctx.expr != null ? visit(ctx.expr) : null;
+        }
+
+        return ControlFlow.RETURN;
+    }
+
+    @Override
+    public Object visitContinueStatement(JavanaParser.ContinueStatementContext ctx) {
+        return ControlFlow.CONTINUE;
+    }
+
+    @Override
+    public Object visitBreakStatement(JavanaParser.BreakStatementContext ctx) {
+        return ControlFlow.BREAK;
+    }
+
+    @Override
+    public Object visitPrintStatement(JavanaParser.PrintStatementContext ctx) {
+        print(printText(ctx.arg));
+        return null;
+    }
+
+    @Override
+    public Object visitPrintLineStatement(JavanaParser.PrintLineStatementContext ctx) {
+        println(ctx.arg != null ? printText(ctx.arg) : "");
+        return null;
+    }
+
+    /**
+     * Evaluate the argument of a print or println statement.
+     *
+     * @param ctx the PrintArgumentContext.
+     * @return the text to print.
+     */
+    private String printText(JavanaParser.PrintArgumentContext ctx) {
+        if (ctx instanceof JavanaParser.PrintSingleValueContext singleCtx) {
+            return toText(visit(singleCtx.expression()));
+        }
+
+        List<JavanaParser.ExpressionContext> exprCtxs =
+                ((JavanaParser.FormattedPrintContext) ctx).exprList().exprs;
+        Object[] values = new Object[exprCtxs.size()];
+        for (int i = 0; i < values.length; i++) values[i] = visit(exprCtxs.get(i));
+
+        return toText(values);
+    }
+
+    @Override
+    public Object visitPrintfCall(JavanaParser.PrintfCallContext ctx) {
+        FormatRecipe recipe = FormatRecipe.of(ctx);
+        Object format = recipe == null ? visit(ctx.formatString) : null;
+        List<JavanaParser.ExpressionContext> argCtxs =
+                ((JavanaParser.PrintFArgsListContext) ctx.argsList()).expression();
+        Object[] args = new Object[argCtxs.size()];
+        for (int i = 0; i < args.length; i++) args[i] = visit(argCtxs.get(i));
+
+        if (recipe != null) printf(recipe, args, ctx);
+        else printf(format, args, ctx);
+        return null;
+    }
+
+    // ===========
+    // Expressions
+    // ===========
+
+    /**
+     * Visit a node, unless it's an expression that was folded to a
+     * constant at compile time, whose value is simply returned.
+     */
+    @Override
+    public Object visit(ParseTree tree) {
+        if (tree instanceof JavanaParser.ExpressionContext exprCtx) {
+            Constant constant = ConstantFolder.constantOf(exprCtx);
+            if (constant != null) return constant.getValue();
+        }
+
+        return super.visit(tree);
+    }
+
+    @Override
+    public Object visitParenthesizedExpression(JavanaParser.ParenthesizedExpressionContext ctx) {
+        return visit(ctx.expression());
+    }
+
+    @Override
+    public Object visitIdentifierExpression(JavanaParser.IdentifierExpressionContext ctx) {
+        Cell cell = lookup(ctx.getText(), ctx);
+        return cell != null ? cell.getValue() : null;
+    }
+
+    @Override
+    public Object visitLiteralExpression(JavanaParser.LiteralExpressionContext ctx) {
+        return ctx.literal().value;  // decoded into the program's constant pool
+    }
+
+    @Override
+    public Object visitArithmeticExpression(JavanaParser.ArithmeticExpressionContext ctx) {
+        Simplification simplification = Simplification.of(ctx);
+        if (simplification != null) return evaluateSimplified(simplification, ctx);
+
+        int lhs = intValue(visit(ctx.expression(0)), ctx);
+        int rhs = intValue(visit(ctx.expression(1)), ctx);
+
+        return ctx.ARITH_OP().getText().equals("+") ? lhs + rhs : lhs - rhs;
+    }
+
+    @Override
+    public Object visitHigherArithmeticExpression(JavanaParser.HigherArithmeticExpressionContext ctx) {
+        Simplification simplification = Simplification.of(ctx);
+        if (simplification != null) return evaluateSimplified(simplification, ctx);
+
+        int lhs = intValue(visit(ctx.expression(0)), ctx);
+        int rhs = intValue(visit(ctx.expression(1)), ctx);
+
+        return switch (ctx.HIGHER_ARITH_OP().getText()) {
+            case "*" -> lhs * rhs;
+            case "/" -> divide(lhs, rhs, ctx);
+            default -> remainder(lhs, rhs, ctx);
+        };
+    }
+
+    @Override
+    public Object visitRelationalExpression(JavanaParser.RelationalExpressionContext ctx) {
+        int lhs = intValue(visit(ctx.expression(0)), ctx);
+        int rhs = intValue(visit(ctx.expression(1)), ctx);
+
+        return compare(ctx.REL_OP().getText(), lhs, rhs);
+    }
+
+    private static boolean compare(String operator, int lhs, int rhs) {
+        return switch (operator) {
+            case "<" -> lhs < rhs;
+            case "<=" -> lhs <= rhs;
+            case ">" -> lhs > rhs;
+            default -> lhs >= rhs;
+        };
+    }
+
+    @Override
+    public Object visitEqualityExpression(JavanaParser.EqualityExpressionContext ctx) {
+        StringIntrinsic intrinsic = StringIntrinsic.of(ctx);
+        boolean equal = intrinsic != null
+                ? evaluateRegionEquals(intrinsic, ctx)
+                : StringRope.valueEquals(visit(ctx.expression(0)), visit(ctx.expression(1)));
+        return ctx.EQ_OP().getText().equals("==") == equal;
     }
 
+    @Override
+    public Object visitConditionalExpression(JavanaParser.ConditionalExpressionContext ctx) {
+        boolean lhs = isTrue(visit(ctx.expression(0)), ctx);
+
+        // Short-circuit evaluation.
+        if (ctx.COND_OP().getText().equals("&&")) {
+            return lhs && isTrue(visit(ctx.expression(1)), ctx);
+        } else {
+            return lhs || isTrue(visit(ctx.expression(1)), ctx);
+        }
+    }
+
+    @Override
+    public Object visitNotExpression(JavanaParser.NotExpressionContext ctx) {
+        Simplification simplification = Simplification.of(ctx);
+        if (simplification != null) return evaluateSimplified(simplification, ctx);
+
+        return !isTrue(visit(ctx.expression()), ctx);
+    }
+
+    @Override
+    public Object visitArrayIndexExpression(JavanaParser.ArrayIndexExpressionContext ctx) {
+        Cell cell = selectElement(visit(ctx.expression()), visit(ctx.arrIdxSpecifier().expr), ctx);
+        return cell != null ? cell.getValue() : null;
+    }
+
+    @Override
+    public Object visitRecordFieldExpression(JavanaParser.RecordFieldExpressionContext ctx) {
+        Cell cell = selectField(visit(ctx.expression()), ctx.identifier().getText(), ctx);
+        return cell != null ? cell.getValue() : null;
+    }
+
+    @Override
+    public Object visitStringLengthExpression(JavanaParser.StringLengthExpressionContext ctx) {
+        return length(visit(ctx.expression()), ctx);
+    }
+
+    @Override
+    public Object visitArrayLengthExpression(JavanaParser.ArrayLengthExpressionContext ctx) {
+        return length(visit(ctx.arrayLength().paramArray), ctx);
+    }
+
+    @Override
+    public Object visitCharAtExpression(JavanaParser.CharAtExpressionContext ctx) {
+        return charAt(visit(ctx.expression(0)), visit(ctx.expression(1)), ctx);
+    }
+
+    @Override
+    public Object visitCharToValExpression(JavanaParser.CharToValExpressionContext ctx) {
+        StringIntrinsic intrinsic = StringIntrinsic.of(ctx.stringCharToValCall());
+        if (intrinsic == null) return charToVal(visit(ctx.stringCharToValCall().expression()), ctx);
+
+        Object string = visit(intrinsic.getString());
+        Object begin = visit(intrinsic.getBegin());
+
+        return intrinsic.getEnd() != null
+                ? regionCharValue(string, begin, visit(intrinsic.getEnd()), ctx)
+                : charValue(string, begin, ctx);
+    }
+
+    @Override
+    public Object visitConcatenateStringsExpression(JavanaParser.ConcatenateStringsExpressionContext ctx) {
+        JavanaParser.ConcatenateStringsCallContext callCtx = ctx.concatenateStringsCall();
+        return StringRope.concat(visit(callCtx.first), visit(callCtx.second));
+    }
+
+    @Override
+    public Object visitSubstringExpression(JavanaParser.SubstringExpressionContext ctx) {
+        JavanaParser.SubstringCallContext callCtx = ctx.substringCall();
+        return substring(visit(callCtx.first), visit(callCtx.second), visit(callCtx.third), ctx);
+    }
+
+    @Override
+    public Object visitStringEqualsExpression(JavanaParser.StringEqualsExpressionContext ctx) {
+        JavanaParser.StringEqualsContext callCtx = ctx.stringEquals();
+        StringIntrinsic intrinsic = StringIntrinsic.of(callCtx);
+
+        return intrinsic != null
+                ? evaluateRegionEquals(intrinsic, ctx)
+                : StringRope.valueEquals(visit(callCtx.first), visit(callCtx.second));
+    }
+
+    /**
+     * Evaluate a compare of a substring or a char with another string,
+     * with the operands in their source order.
+     *
+     * @param intrinsic the match.
+     * @param ctx       the context, for error reporting.
+     * @return true if they're equal.
+     */
+    private boolean evaluateRegionEquals(StringIntrinsic intrinsic, ParserRuleContext ctx) {
+        Object other = intrinsic.isOtherFirst() ? visit(intrinsic.getOther()) : null;
+        Object string = visit(intrinsic.getString());
+        Object begin = visit(intrinsic.getBegin());
+        Object end = intrinsic.getEnd() != null ? visit(intrinsic.getEnd()) : null;
+        if (!intrinsic.isOtherFirst()) other = visit(intrinsic.getOther());
+
+        return intrinsic.getEnd() != null
+                ? regionEquals(string, begin, end, other, ctx)
+                : charEquals(string, begin, other, ctx);
+    }
+
+    /**
+     * Evaluate an expression as its simplification does: only its
+     * operand, a shift or mask of its integer operand, or the opposite
+     * comparison of the relational expression that it negates.
+     *
+     * @param simplification the simplification.
+     * @param ctx            the context, for error reporting.
+     * @return the value of the expression.
+     */
+    private Object evaluateSimplified(Simplification simplification, ParserRuleContext ctx) {
+        switch (simplification.getKind()) {
+            case OPERAND -> {
+                return visit(simplification.getOperand());
+            }
+            case NEGATED_COMPARISON -> {
+                JavanaParser.RelationalExpressionContext relCtx =
+                        (JavanaParser.RelationalExpressionContext) simplification.getOperand();
+                int lhs = intValue(visit(relCtx.expression(0)), relCtx);
+                int rhs = intValue(visit(relCtx.expression(1)), relCtx);
+
+                return compare(simplification.getOperator(), lhs, rhs);
+            }
+            default -> {
+                return simplification.apply(intValue(visit(simplification.getOperand()), ctx));
+            }
+        }
+    }
+
+    @Override
+    public Object visitStringToIntCallExpression(JavanaParser.StringToIntCallExpressionContext ctx) {
+        return stringToInt(visit(ctx.stringToIntCall().expression()), ctx);
+    }
+
+    @Override
+    public Object visitReadCharCallExpression(JavanaParser.ReadCharCallExpressionContext ctx) {
+        return readChar();
+    }
+
+    @Override
+    public Object visitReadLineCallExpression(JavanaParser.ReadLineCallExpressionContext ctx) {
+        return readLine();
+    }
+
+    @Override
+    public Object visitNewArrayExpression(JavanaParser.NewArrayExpressionContext ctx) {
+        JavanaParser.NewArrayContext arrayCtx = ctx.newArray();
+        Typespec elemType = arrayCtx.scalarType() != null
+                ? TypeChecker.returnType(arrayCtx.scalarType().getText())
+                : null;  // array of records
+
+        return newArray(elemType, visit(arrayCtx.arrIdxSpecifier().expr), ctx);
+    }
+
+    @Override
+    public Object visitNewRecordExpression(JavanaParser.NewRecordExpressionContext ctx) {
+        JavanaParser.NewRecordContext recordCtx = ctx.newRecord();
+        int fieldCount = recordCtx.init != null ? recordCtx.init.init.size() : 0;
+        MemoryMap record = newRecord(recordCtx.identifier().getText(), fieldCount, ctx);
+
+        if (recordCtx.init != null) {
+            for (JavanaParser.FieldInitContext fieldCtx : recordCtx.init.init) {
+                record.replaceCell(fieldCtx.field.getText(), new Cell(visit(fieldCtx.expr)));
+            }
+        }
+
+        return record;
+    }
+
+    // ===============================
+    // Operations shared by both tiers
+    // ===============================
+
+    /**
+     * Spend a unit of fuel at a loop back-edge or function entry.
+     * Only every FUEL_SLICE units are the limits actually checked,
+     * and an execution without limits spends none.
+     *
+     * @param ctx the context, for error reporting.
+     */
+    void tick(ParserRuleContext ctx) {
+        if (metered && (--slice < 0)) refuel(ctx);
+    }
+
+    /**
+     * Get the count of runtime errors flagged so far.
+     *
+     * @return the count.
+     */
+    int errorCount() {
+        return error.getCount();
+    }
+
+    /**
+     * Check the fuel and time limits, and grant the next slice of fuel.
+     *
+     * @param ctx the context, for error reporting.
+     */
+    private void refuel(ParserRuleContext ctx) {
+        if (timedOut) error.abort(TIME_LIMIT_EXCEEDED, ctx);
+        if (fuel <= 0) error.abort(FUEL_EXHAUSTED, ctx);
+
+        slice = (int) Math.min(FUEL_SLICE, fuel) - 1;  // including this unit
+        fuel -= slice + 1;
+    }
+
+    /**
+     * Charge an allocation to the heap budget.
+     *
+     * @param bytes the estimated size of the allocation.
+     * @param ctx   the context, for error reporting.
+     */
+    private void allocate(long bytes, ParserRuleContext ctx) {
+        if (!metered) return;
+
+        heapUsed += bytes;
+        if (heapUsed > limits.getHeapBudget()) error.abort(HEAP_BUDGET_EXCEEDED, ctx);
+    }
+
+    /**
+     * Define a variable or constant in the current stack frame.
+     *
+     * @param name  the name.
+     * @param value the initial value.
+     */
+    private void define(String name, Object value) {
+        StackFrame frame = runtimeStack.top();
+        Cell cell = frame.getCell(name);
+
+        if (cell != null) cell.setValue(value);
+        else frame.replaceCell(name, new Cell(value));
+    }
+
+    /**
+     * Look up the memory cell of a name in the current routine's frame
+     * and then in the frames of the enclosing scopes.
+     *
+     * @param name the name.
+     * @param ctx  the context, for error reporting.
+     * @return the cell, or null if not found.
+     */
+    private Cell lookup(String name, ParserRuleContext ctx) {
+        for (int level = runtimeStack.currentNestingLevel(); level > 0; level--) {
+            StackFrame frame = runtimeStack.getTopmost(level);
+            Cell cell = frame != null ? frame.getCell(name) : null;
+            if (cell != null) return cell;
+        }
+
+        error.flag(UNINITIALIZED_VALUE, ctx);
+        return null;
+    }
+
+    /**
+     * Get the memory cell of a program variable.
+     *
+     * @param slot the variable's slot in the program.
+     * @return the cell.
+     */
+    Cell globalCell(int slot) {
+        return globals[slot];
+    }
+
+    /**
+     * Select the array element or record field of an assignment target.
+     *
+     * @param container the array or record.
+     * @param modCtx    the VarModifierContext.
+     * @return the cell, or null if there was an error.
+     */
+    private Cell selectCell(Object container, JavanaParser.VarModifierContext modCtx) {
+        if (modCtx instanceof JavanaParser.VarArrayIndexModfierContext indexCtx) {
+            return selectElement(container, visit(indexCtx.arrIdxSpecifier().expr), modCtx);
+        } else {
+            String fieldName = ((JavanaParser.VarRecordFieldModifierContext) modCtx).identifier().getText();
+            return selectField(container, fieldName, modCtx);
+        }
+    }
+
+    /**
+     * Select an array element.
+     *
+     * @param array the array.
+     * @param index the element index.
+     * @param ctx   the context, for error reporting.
+     * @return the element's cell, or null if there was an error.
+     */
+    Cell selectElement(Object array, Object index, ParserRuleContext ctx) {
+        if (!(array instanceof Cell[] cells)) {
+            error.flag(UNINITIALIZED_VALUE, ctx);
+            return null;
+        }
+
+        int i = intValue(index, ctx);
+        if ((i < 0) || (i >= cells.length)) {
+            error.flag(VALUE_RANGE, ctx);
+            return null;
+        }
+
+        return cells[i];
+    }
+
+    /**
+     * Select a record field.
+     *
+     * @param record    the record.
+     * @param fieldName the field name.
+     * @param ctx       the context, for error reporting.
+     * @return the field's cell, or null if there was an error.
+     */
+    Cell selectField(Object record, String fieldName, ParserRuleContext ctx) {
+        if (!(record instanceof MemoryMap fields)) {
+            error.flag(UNINITIALIZED_VALUE, ctx);
+            return null;
+        }
+
+        Cell cell = fields.getCell(fieldName);
+        if (cell == null) {
+            cell = new Cell(null);
+            fields.replaceCell(fieldName, cell);
+        }
+
+        return cell;
+    }
+
+    /**
+     * Allocate a new array.
+     *
+     * @param elemType the element type, or null for records.
+     * @param size     the element count.
+     * @param ctx      the context, for error reporting.
+     * @return the array.
+     */
+    Cell[] newArray(Typespec elemType, Object size, ParserRuleContext ctx) {
+        int count = intValue(size, ctx);
+        if (count < 0) {
+            error.flag(VALUE_RANGE, ctx);
+            count = 0;
+        }
+
+        allocate(ExecutionLimits.arrayBytes(count), ctx);
+
+        Object value = MemoryMap.allocateCellValue(elemType);
+        Cell[] array = new Cell[count];
+        for (int i = 0; i < count; i++) array[i] = new Cell(value);
+
+        return array;
+    }
+
+    /**
+     * Allocate a new record with its fields set to their default values.
+     *
+     * @param typeName   the name of the record type.
+     * @param fieldCount the count of fields that the record literal sets.
+     * @param ctx        the context, for error reporting.
+     * @return the record.
+     */
+    MemoryMap newRecord(String typeName, int fieldCount, ParserRuleContext ctx) {
+        MemoryMap record = null;
+
+        for (int level = runtimeStack.currentNestingLevel(); (record == null) && (level > 0); level--) {
+            StackFrame frame = runtimeStack.getTopmost(level);
+            if (frame == null) continue;
+
+            SymTable symTable = frame.getRoutineId().getRoutineSymTable();
+            SymTableEntry typeId = symTable != null ? symTable.lookup(typeName) : null;
+
+            if ((typeId != null) && (typeId.getKind() == TYPE)) {
+                record = new MemoryMap(typeId.getType().getRecordSymTable());
+            }
+        }
+
+        // A record type declared within @main isn't kept by Semantics.
+        // Its fields are created as the record literal sets them.
+        if (record == null) record = new MemoryMap(new SymTable(0));
+
+        allocate(ExecutionLimits.recordBytes(Math.max(record.size(), fieldCount)), ctx);
+        return record;
+    }
+
+    /**
+     * Get the value of an integer operand.
+     *
+     * @param value the operand value.
+     * @param ctx   the context, for error reporting.
+     * @return the integer value, or 0 if it isn't an integer.
+     */
+    int intValue(Object value, ParserRuleContext ctx) {
+        if (value instanceof Integer i) return i;
+
+        error.flag(UNINITIALIZED_VALUE, ctx);
+        return 0;
+    }
+
+    /**
+     * Get the value of a boolean operand.
+     *
+     * @param value the operand value.
+     * @param ctx   the context, for error reporting.
+     * @return the boolean value, or false if it isn't a boolean.
+     */
+    boolean isTrue(Object value, ParserRuleContext ctx) {
+        if (value instanceof Boolean b) return b;
+
+        error.flag(UNINITIALIZED_VALUE, ctx);
+        return false;
+    }
+
+    /**
+     * Get the value of a string operand.
+     *
+     * @param value the operand value.
+     * @param ctx   the context, for error reporting.
+     * @return the string or rope, or "" if it isn't a string.
+     */
+    CharSequence stringValue(Object value, ParserRuleContext ctx) {
+        if (value instanceof CharSequence s) return s;
+
+        error.flag(UNINITIALIZED_VALUE, ctx);
+        return "";
+    }
+
+    int divide(int lhs, int rhs, ParserRuleContext ctx) {
+        if (rhs == 0) {
+            error.flag(DIVISION_BY_ZERO, ctx);
+            return 0;
+        }
+
+        return lhs / rhs;
+    }
+
+    int remainder(int lhs, int rhs, ParserRuleContext ctx) {
+        if (rhs == 0) {
+            error.flag(DIVISION_BY_ZERO, ctx);
+            return 0;
+        }
+
+        return lhs % rhs;
+    }
+
+    /**
+     * Get the length of a string or an array.
+     *
+     * @param value the string or array.
+     * @param ctx   the context, for error reporting.
+     * @return the length.
+     */
+    int length(Object value, ParserRuleContext ctx) {
+        if (value instanceof CharSequence s) return s.length();
+        if (value instanceof Cell[] cells) return cells.length;
+
+        error.flag(UNINITIALIZED_VALUE, ctx);
+        return 0;
+    }
+
+    String charAt(Object string, Object index, ParserRuleContext ctx) {
+        CharSequence s = stringValue(string, ctx);
+        int i = intValue(index, ctx);
+
+        if ((i < 0) || (i >= s.length())) {
+            error.flag(VALUE_RANGE, ctx);
+            return "";
+        }
+
+        return String.valueOf(s.charAt(i));
+    }
+
+    int charToVal(Object string, ParserRuleContext ctx) {
+        CharSequence s = stringValue(string, ctx);
+
+        if (s.isEmpty()) {
+            error.flag(INVALID_STANDARD_FUNCTION_ARGUMENT, ctx);
+            return 0;
+        }
+
+        return s.charAt(0);
+    }
+
+    String substring(Object string, Object begin, Object end, ParserRuleContext ctx) {
+        CharSequence s = stringValue(string, ctx);
+        int b = intValue(begin, ctx);
+        int e = intValue(end, ctx);
+
+        if ((b < 0) || (e > s.length()) || (b > e)) {
+            error.flag(VALUE_RANGE, ctx);
+            return "";
+        }
+
+        return s.subSequence(b, e).toString();
+    }
+
+    /**
+     * Compare substring(string, begin, end) with another string without
+     * creating the substring. Bad indexes are flagged as by substring.
+     *
+     * @param string the string.
+     * @param begin  the index of the first char.
+     * @param end    the index after the last char.
+     * @param other  the other string.
+     * @param ctx    the context, for error reporting.
+     * @return true if they're equal.
+     */
+    boolean regionEquals(Object string, Object begin, Object end, Object other, ParserRuleContext ctx) {
+        if ((string instanceof CharSequence s) && (begin instanceof Integer b) && (end instanceof Integer e)
+                && (b >= 0) && (e <= s.length()) && (b <= e) && ((other == null) || (other instanceof CharSequence))) {
+            return JavanaStrings.regionEquals(s, b, e, (CharSequence) other);
+        }
+
+        return StringRope.valueEquals(substring(string, begin, end, ctx), other);
+    }
+
+    /**
+     * Compare string.charAt(index) with another string without
+     * creating the one-char string.
+     *
+     * @param string the string.
+     * @param index  the index of the char.
+     * @param other  the other string.
+     * @param ctx    the context, for error reporting.
+     * @return true if they're equal.
+     */
+    boolean charEquals(Object string, Object index, Object other, ParserRuleContext ctx) {
+        if ((string instanceof CharSequence s) && (index instanceof Integer i)
+                && (i >= 0) && (i < s.length()) && ((other == null) || (other instanceof CharSequence))) {
+            return JavanaStrings.charEquals(s, i, (CharSequence) other);
+        }
+
+        return StringRope.valueEquals(charAt(string, index, ctx), other);
+    }
+
+    /**
+     * Get stringCharToVal(substring(string, begin, end)) without
+     * creating the substring.
+     */
+    int regionCharValue(Object string, Object begin, Object end, ParserRuleContext ctx) {
+        if ((string instanceof CharSequence s) && (begin instanceof Integer b) && (end instanceof Integer e)
+                && (b >= 0) && (e <= s.length()) && (b < e)) {
+            return s.charAt(b);
+        }
+
+        return charToVal(substring(string, begin, end, ctx), ctx);
+    }
+
+    /**
+     * Get stringCharToVal(string.charAt(index)) without creating
+     * the one-char string.
+     */
+    int charValue(Object string, Object index, ParserRuleContext ctx) {
+        if ((string instanceof CharSequence s) && (index instanceof Integer i) && (i >= 0) && (i < s.length())) {
+            return s.charAt(i);
+        }
+
+        return charToVal(charAt(string, index, ctx), ctx);
+    }
+
+    int stringToInt(Object string, ParserRuleContext ctx) {
+        try {
+            return JavanaInput.parseInt(stringValue(string, ctx));
+        } catch (NumberFormatException ex) {
+            error.flag(INVALID_INPUT, ctx);
+            return 0;
+        }
+    }
+
+    /**
+     * Read the next whitespace-delimited token from standard input
+     * and return its first character.
+     *
+     * @return the character as a string, or None at end of input.
+     */
+    String readChar() {
+        try {
+            return in.readChar();
+        } catch (UncheckedIOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Read the rest of the current line from standard input.
+     *
+     * @return the line, or None at end of input.
+     */
+    String readLine() {
+        try {
+            return in.readLine();
+        } catch (UncheckedIOException ex) {
+            return null;
+        }
+    }
+
+    void print(String text) {
+        out.print(text);
+    }
+
+    void println(String text) {
+        out.println(text);
+    }
+
+    void printf(Object format, Object[] args, ParserRuleContext ctx) {
+        try {
+            out.print(String.format(stringValue(format, ctx).toString(), args));
+        } catch (IllegalArgumentException ex) {
+            error.flag(INVALID_STANDARD_FUNCTION_ARGUMENT, ctx);
+        }
+    }
+
+    /**
+     * Print the segments of a format that was split at compile time with
+     * the arguments between them. As String.format would, flag a %d
+     * argument that isn't an integer before printing anything.
+     *
+     * @param recipe the split format.
+     * @param args   the arguments, one per conversion.
+     * @param ctx    the printf call.
+     */
+    void printf(FormatRecipe recipe, Object[] args, ParserRuleContext ctx) {
+        List<Character> conversions = recipe.getConversions();
+        List<String> segments = recipe.getSegments();
+
+        for (int i = 0; i < args.length; i++) {
+            if ((conversions.get(i) == FormatRecipe.INTEGER) && (args[i] != null) && !(args[i] instanceof Integer)) {
+                error.flag(INVALID_STANDARD_FUNCTION_ARGUMENT, ctx);
+                return;
+            }
+        }
+
+        out.print(segments.get(0));
+        for (int i = 0; i < args.length; i++) {
+            out.print(args[i]);
+            out.print(segments.get(i + 1));
+        }
+    }
+
+    /**
+     * Convert a value to the text that print and concat use.
+     *
+     * @param value the value.
+     * @return the text.
+     */
+    static String toText(Object value) {
+        return String.valueOf(value);
+    }
+
+    /**
+     * Convert the values of a formatted print to text.
+     *
+     * @param values the values.
+     * @return the text with the values separated by blanks.
+     */
+    static String toText(Object[] values) {
+        StringBuilder buffer = new StringBuilder();
+
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) buffer.append(' ');
+            buffer.append(values[i]);
+        }
+
+        return buffer.toString();
+    }
+
+    /**
+     * Determine whether a parse tree is a statement that ends its block.
+     *
+     * @param tree the parse tree.
+     * @return true if it's a return, break, or continue statement.
+     */
+    static boolean isJump(ParseTree tree) {
+        ParseTree stmt = tree instanceof JavanaParser.StatementContext ? tree.getChild(0) : tree;
+        return (stmt instanceof JavanaParser.ReturnStatementContext)
+                || (stmt instanceof JavanaParser.BreakStatementContext)
+                || (stmt instanceof JavanaParser.ContinueStatementContext);
+    }
 }
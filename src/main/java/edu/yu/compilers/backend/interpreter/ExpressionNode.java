@@ -0,0 +1,18 @@
+package edu.yu.compilers.backend.interpreter;
+
+/**
+ * <h1>ExpressionNode</h1>
+ * <p>An expression of a compiled routine. Nodes are shared by all the
+ * executions of a program, so the execution is passed in.</p>
+ */
+@FunctionalInterface
+public interface ExpressionNode {
+    /**
+     * Evaluate the expression.
+     *
+     * @param executor the execution.
+     * @param locals   the slots of the routine's locals.
+     * @return the value.
+     */
+    Object evaluate(Executor executor, Object[] locals);
+}
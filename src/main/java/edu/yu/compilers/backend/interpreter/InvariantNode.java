@@ -0,0 +1,35 @@
+package edu.yu.compilers.backend.interpreter;
+
+/**
+ * <h1>InvariantNode</h1>
+ * <p>A loop-invariant expression of a while or for statement. Its value
+ * is kept in a slot of the locals from its first evaluation in each
+ * execution of the loop, which resets the slot on entry. An evaluation
+ * that flags a runtime error isn't kept, so the error is reported as
+ * often as it would be without the node.</p>
+ */
+class InvariantNode implements ExpressionNode {
+    static final Object UNCACHED = new Object();  // a slot without a value yet
+
+    private final int slot;              // slot of the kept value
+    private final ExpressionNode expr;   // the invariant expression
+
+    InvariantNode(int slot, ExpressionNode expr) {
+        this.slot = slot;
+        this.expr = expr;
+    }
+
+    @Override
+    public Object evaluate(Executor executor, Object[] locals) {
+        Object value = locals[slot];
+
+        if (value == UNCACHED) {
+            int errors = executor.errorCount();
+            value = expr.evaluate(executor, locals);
+
+            if (executor.errorCount() == errors) locals[slot] = value;
+        }
+
+        return value;
+    }
+}
@@ -0,0 +1,81 @@
+package edu.yu.compilers.backend.interpreter;
+
+import java.util.Arrays;
+
+/**
+ * <h1>JumpTableNode</h1>
+ * <p>A chain of if statements that compare one variable with integer
+ * constants, dispatched in one step. Dense constants index a table
+ * directly; sparse ones are found by binary search. A value that isn't
+ * an integer matches no case, as it would equal no constant.</p>
+ */
+class JumpTableNode implements StatementNode {
+    private final ExpressionNode selector;  // the variable switched on
+    private final int low;                  // smallest constant of a dense table
+    private final StatementNode[] table;    // case by value - low, or null when sparse
+    private final int[] keys;               // sorted constants of a sparse table
+    private final StatementNode[] cases;    // case by index of its key
+    private final StatementNode otherwise;  // default, or null
+
+    /**
+     * Constructor.
+     *
+     * @param selector  the variable switched on.
+     * @param values    the case constants, all different.
+     * @param bodies    the case bodies.
+     * @param otherwise the default body, or null.
+     * @param dense     true to index a table by value.
+     */
+    JumpTableNode(ExpressionNode selector, int[] values, StatementNode[] bodies,
+                  StatementNode otherwise, boolean dense) {
+        this.selector = selector;
+        this.otherwise = otherwise;
+
+        if (dense) {
+            int min = Arrays.stream(values).min().orElse(0);
+            int max = Arrays.stream(values).max().orElse(0);
+
+            this.low = min;
+            this.table = new StatementNode[max - min + 1];
+            for (int i = 0; i < values.length; i++) table[values[i] - min] = bodies[i];
+
+            this.keys = null;
+            this.cases = null;
+        } else {
+            Integer[] order = new Integer[values.length];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> Integer.compare(values[a], values[b]));
+
+            this.keys = new int[values.length];
+            this.cases = new StatementNode[values.length];
+            for (int i = 0; i < order.length; i++) {
+                keys[i] = values[order[i]];
+                cases[i] = bodies[order[i]];
+            }
+
+            this.low = 0;
+            this.table = null;
+        }
+    }
+
+    @Override
+    public int execute(Executor executor, Object[] locals) {
+        StatementNode body = select(selector.evaluate(executor, locals));
+
+        if (body != null) return body.execute(executor, locals);
+        else if (otherwise != null) return otherwise.execute(executor, locals);
+        else return NORMAL;
+    }
+
+    private StatementNode select(Object value) {
+        if (!(value instanceof Integer i)) return null;
+
+        if (table != null) {
+            long index = (long) i - low;
+            return (index >= 0) && (index < table.length) ? table[(int) index] : null;
+        }
+
+        int index = Arrays.binarySearch(keys, i);
+        return index >= 0 ? cases[index] : null;
+    }
+}
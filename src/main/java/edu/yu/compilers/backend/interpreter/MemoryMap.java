@@ -7,6 +7,7 @@
 
 package edu.yu.compilers.backend.interpreter;
 
+import edu.yu.compilers.intermediate.symtable.Predefined;
 import edu.yu.compilers.intermediate.symtable.SymTable;
 import edu.yu.compilers.intermediate.symtable.SymTableEntry;
 import edu.yu.compilers.intermediate.symtable.SymTableEntry.Kind;
@@ -91,45 +92,19 @@ public class MemoryMap extends HashMap<String, Cell> {
 
     /**
      * Make an allocation for a value of a given data type for a memory cell.
+     * Javana arrays and records are references that are allocated
+     * with the @ operator, so their cells start out as None.
      *
      * @param type the data type.
      * @return the allocation.
      */
-    private Object allocateCellValue(Typespec type) {
-        return switch (type.getForm()) {
-            case ARRAY -> allocateArrayCells(type);
-            case RECORD -> allocateRecordMap(type);
-            default -> null;  // uninitialized scalar value
-        };
-    }
-
-    /**
-     * Allocate the memory cells of an array.
-     *
-     * @param type the array type.
-     * @return the allocation.
-     */
-    private Object[] allocateArrayCells(Typespec type) {
-        int elemCount = type.getArrayElementCount();
-        Typespec elemType = type.getArrayElementType();
-        Cell[] allocation = new Cell[elemCount];
-
-        for (int i = 0; i < elemCount; ++i) {
-            allocation[i] = new Cell(allocateCellValue(elemType));
-        }
-
-        return allocation;
-    }
+    static Object allocateCellValue(Typespec type) {
+        if (type == null) return null;
 
-    /**
-     * Allocate the memory map for a record.
-     *
-     * @param type the record type.
-     * @return the allocation.
-     */
-    private MemoryMap allocateRecordMap(Typespec type) {
-        SymTable symTable = type.getRecordSymTable();
+        type = type.baseType();
 
-        return new MemoryMap(symTable);
+        if (type == Predefined.integerType) return 0;
+        else if (type == Predefined.booleanType) return Boolean.FALSE;
+        else return null;  // string, array, record, or None
     }
 }
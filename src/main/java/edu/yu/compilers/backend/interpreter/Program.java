@@ -0,0 +1,215 @@
+package edu.yu.compilers.backend.interpreter;
+
+import antlr4.JavanaParser;
+import edu.yu.compilers.intermediate.symtable.SymTableEntry;
+import edu.yu.compilers.intermediate.util.ConstantPool;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <h1>Program</h1>
+ * <p>A checked Javana program that any number of executions can share.
+ * The parse tree and symbol tables are only read during execution, and
+ * the call targets hold code compiled for the program, not for any one
+ * execution. Everything that changes while a program runs belongs to
+ * its Executor.</p>
+ */
+public class Program {
+    private final SymTableEntry programId;              // program's symbol table entry
+    private final JavanaParser.ProgramContext tree;     // program's parse tree
+    private final Map<SymTableEntry, CallTarget> callTargets;  // function's entry -> target
+    private final Map<JavanaParser.FunctionCallContext, CallTarget> callSites;  // call -> callee's target
+    private final Map<String, Integer> globalSlots;     // program variable name -> slot
+    private final int maxNestingLevel;                  // deepest nesting level of any frame
+
+    /**
+     * Constructor.
+     *
+     * @param programId the symbol table entry of the program name.
+     * @param tree      the program's parse tree after semantic analysis.
+     */
+    public Program(SymTableEntry programId, JavanaParser.ProgramContext tree) {
+        this.programId = programId;
+        this.tree = tree;
+
+        // Semantics decodes the literals that it visits. Decode the rest,
+        // such as those of functions that are never called, so that
+        // executions only read the parse tree.
+        new ConstantPool().literals(tree);
+
+        HashMap<SymTableEntry, CallTarget> targets = new HashMap<>();
+        enterCallTargets(programId, targets);
+        this.callTargets = Collections.unmodifiableMap(targets);
+
+        // Resolve each call once, in the scope of the routine that makes it.
+        HashMap<Object, SymTableEntry> bodies = new HashMap<>();
+        targets.keySet().forEach(functionId -> bodies.put(functionId.getExecutable(), functionId));
+        HashMap<JavanaParser.FunctionCallContext, CallTarget> sites = new HashMap<>();
+        enterCallSites(tree, programId, bodies, sites);
+        this.callSites = Collections.unmodifiableMap(sites);
+
+        HashMap<String, Integer> slots = new HashMap<>();
+        for (JavanaParser.GlobalDefinitionsContext defCtx : tree.defs) {
+            for (JavanaParser.IdentifierContext nameCtx : definedNames(defCtx)) {
+                slots.putIfAbsent(nameCtx.getText(), slots.size());
+            }
+        }
+        this.globalSlots = Collections.unmodifiableMap(slots);
+
+        // @main is one level deeper than the program.
+        int mainLevel = programId.getRoutineSymTable().getNestingLevel() + 1;
+        this.maxNestingLevel = Math.max(mainLevel, RuntimeDisplay.maxNestingLevel(programId));
+    }
+
+    /**
+     * Create a call target for each function of a routine and its subroutines.
+     *
+     * @param routineId the symbol table entry of the routine.
+     * @param targets   the call targets by function entry.
+     */
+    private static void enterCallTargets(SymTableEntry routineId, HashMap<SymTableEntry, CallTarget> targets) {
+        for (SymTableEntry subroutineId : routineId.getSubroutines()) {
+            if (subroutineId.getExecutable() != null) {
+                targets.put(subroutineId, new CallTarget(subroutineId));
+                enterCallTargets(subroutineId, targets);
+            }
+        }
+    }
+
+    /**
+     * Find the call target of each function call in a parse tree.
+     *
+     * @param tree      the parse tree.
+     * @param routineId the symbol table entry of the routine whose code it is.
+     * @param bodies    the function entries by function body.
+     * @param sites     the call targets by function call.
+     */
+    private void enterCallSites(ParseTree tree, SymTableEntry routineId, HashMap<Object, SymTableEntry> bodies,
+                                HashMap<JavanaParser.FunctionCallContext, CallTarget> sites) {
+        SymTableEntry functionId = bodies.get(tree);
+        if (functionId != null) routineId = functionId;
+
+        if (tree instanceof JavanaParser.FunctionCallContext callCtx) {
+            CallTarget target = callTargets.get(resolve(routineId, callCtx.name.getText()));
+            if (target != null) sites.put(callCtx, target);
+        }
+
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            enterCallSites(tree.getChild(i), routineId, bodies, sites);
+        }
+    }
+
+    /**
+     * Look up a function name in a routine's scope and then
+     * in the scopes that enclose it.
+     *
+     * @param routineId the symbol table entry of the routine.
+     * @param name      the function name.
+     * @return the function's symbol table entry, or null if there is none.
+     */
+    private static SymTableEntry resolve(SymTableEntry routineId, String name) {
+        while (routineId != null) {
+            SymTableEntry entry = routineId.getRoutineSymTable().lookup(name);
+            if ((entry != null) && (entry.getKind() == SymTableEntry.Kind.FUNCTION)) return entry;
+
+            SymTableEntry parentId = routineId.getSymTable().getOwner();
+            routineId = parentId != routineId ? parentId : null;
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the names of the program variables and constants
+     * that a global definition defines.
+     *
+     * @param ctx the GlobalDefinitionsContext.
+     * @return the names, which are empty for records and functions.
+     */
+    static List<JavanaParser.IdentifierContext> definedNames(JavanaParser.GlobalDefinitionsContext ctx) {
+        if (ctx.nameDeclStatement() != null) {
+            JavanaParser.VariableDeclContext declCtx = ctx.nameDeclStatement().variableDecl();
+            if (declCtx != null) return declCtx.assoc.namelst.names;
+        } else {
+            JavanaParser.NameDeclDefStatementContext defCtx = ctx.nameDeclDefStatement();
+            if (defCtx.variableDef() instanceof JavanaParser.VariableDefinitionContext varCtx) {
+                return varCtx.namelst.names;
+            }
+            if (defCtx.constantDef() instanceof JavanaParser.ConstantDefinitionContext constCtx) {
+                return constCtx.namelst.names;
+            }
+        }
+
+        return List.of();
+    }
+
+    public SymTableEntry getProgramId() {
+        return programId;
+    }
+
+    public JavanaParser.ProgramContext getTree() {
+        return tree;
+    }
+
+    public int getMaxNestingLevel() {
+        return maxNestingLevel;
+    }
+
+    /**
+     * Get the call target of the function that a call calls.
+     *
+     * @param ctx the FunctionCallContext.
+     * @return the call target, or null if there is no such function.
+     */
+    public CallTarget getCallTarget(JavanaParser.FunctionCallContext ctx) {
+        return callSites.get(ctx);
+    }
+
+    /**
+     * Get the call target of a function.
+     *
+     * @param functionId the function's symbol table entry.
+     * @return the call target, or null if the function has no body.
+     */
+    public CallTarget getCallTarget(SymTableEntry functionId) {
+        return callTargets.get(functionId);
+    }
+
+    /**
+     * Get the call targets of the program's functions.
+     *
+     * @return the call targets by function entry.
+     */
+    public Map<SymTableEntry, CallTarget> getCallTargets() {
+        return callTargets;
+    }
+
+    /**
+     * Get the slot of a program variable or constant. Each execution
+     * keeps the cells of the program's variables in an array indexed
+     * by slot, which lets compiled code be shared among executions.
+     *
+     * @param name the name.
+     * @return the slot index, or -1 if there is no such program variable.
+     */
+    public int getGlobalSlot(String name) {
+        Integer slot = globalSlots.get(name);
+        return slot != null ? slot : -1;
+    }
+
+    /**
+     * Get the names of the program variables by slot.
+     *
+     * @return the names.
+     */
+    String[] getGlobalNames() {
+        String[] names = new String[globalSlots.size()];
+        globalSlots.forEach((name, slot) -> names[slot] = name);
+
+        return names;
+    }
+}
@@ -0,0 +1,1033 @@
+package edu.yu.compilers.backend.interpreter;
+
+import antlr4.JavanaBaseVisitor;
+import antlr4.JavanaParser;
+import edu.yu.compilers.intermediate.ssa.CommonSubexpression;
+import edu.yu.compilers.intermediate.ssa.Constant;
+import edu.yu.compilers.intermediate.ssa.ConstantFolder;
+import edu.yu.compilers.intermediate.ssa.InlinedCall;
+import edu.yu.compilers.intermediate.ssa.LoopInvariant;
+import edu.yu.compilers.intermediate.ssa.Simplification;
+import edu.yu.compilers.intermediate.ssa.TailCall;
+import edu.yu.compilers.intermediate.symtable.SymTableEntry;
+import edu.yu.compilers.intermediate.type.TypeChecker;
+import edu.yu.compilers.intermediate.type.Typespec;
+import edu.yu.compilers.intermediate.util.CountedLoop;
+import edu.yu.compilers.intermediate.util.FormatRecipe;
+import edu.yu.compilers.intermediate.util.StringIntrinsic;
+import edu.yu.compilers.intermediate.util.SwitchChain;
+import edu.yu.compilers.runtime.StringRope;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * <h1>RoutineCompiler</h1>
+ * <p>Lower the body of a hot Javana function to executable nodes.
+ * Names are resolved once, at compile time: locals and parameters to
+ * slots of the locals array, program variables to slots of the
+ * execution's array of program variable cells,
+ * and calls to their call targets. A call that the inliner chose is
+ * replaced by the callee's body, whose parameters and locals get slots
+ * of their own in the caller's locals array. A tail call of the routine
+ * itself starts the body over instead of calling. A routine that uses a
+ * feature the nodes don't support stays interpreted.</p>
+ */
+public class RoutineCompiler extends JavanaBaseVisitor<Object> {
+
+    /**
+     * Thrown to give up compiling a routine.
+     */
+    private static class Uncompilable extends RuntimeException {
+        Uncompilable() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final StatementNode[] NO_STATEMENTS = new StatementNode[0];
+
+    private final Program program;                              // the program being compiled
+    private final HashMap<String, Integer> localSlots;          // name -> slot of the routine's local
+    private final HashMap<LoopInvariant, Integer> invariantSlots;  // invariant -> slot of its value
+    private final HashMap<CommonSubexpression, Integer> temporarySlots;  // source -> slot of its value
+    private int localsCount;                                    // slots allocated so far
+    private int returnSlot;                                     // slot of the return value being compiled
+
+    /**
+     * Constructor.
+     *
+     * @param program the program that contains the routines.
+     */
+    public RoutineCompiler(Program program) {
+        this.program = program;
+        this.localSlots = new HashMap<>();
+        this.invariantSlots = new HashMap<>();
+        this.temporarySlots = new HashMap<>();
+    }
+
+    /**
+     * Compile a routine.
+     *
+     * @param target the routine's call target.
+     * @return the compiled routine, or null if it can't be compiled.
+     */
+    public CompiledRoutine compile(CallTarget target) {
+        SymTableEntry routineId = target.getRoutineId();
+        ArrayList<SymTableEntry> parmIds = routineId.getRoutineParameters();
+
+        localSlots.clear();
+        invariantSlots.clear();
+        temporarySlots.clear();
+        localsCount = 1;  // slot 0 is the return value
+        returnSlot = 0;
+
+        for (SymTableEntry parmId : parmIds) declare(parmId.getName());
+
+        try {
+            StatementNode body = withTemporaries((StatementNode) visit(target.getBody()));
+            return new CompiledRoutine(routineId.getName(), parmIds.size(), localsCount, body);
+        } catch (Uncompilable ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Allocate a slot for a name, unless the routine already has one.
+     * A routine has one local per name, as its interpreted frame has
+     * one cell per name, so a name declared again in a nested block
+     * is the same variable.
+     *
+     * @param name the name.
+     * @return the slot index.
+     */
+    private int declare(String name) {
+        return localSlots.computeIfAbsent(name, n -> localsCount++);
+    }
+
+    /**
+     * Find the slot of a local name.
+     *
+     * @param name the name.
+     * @return the slot index, or -1 if it isn't local.
+     */
+    private int slotOf(String name) {
+        return localSlots.getOrDefault(name, -1);
+    }
+
+    /**
+     * Find the slot of a program variable.
+     *
+     * @param name the name.
+     * @return the slot index.
+     * @throws Uncompilable if the name is neither local nor global.
+     */
+    private int globalSlot(String name) {
+        int slot = program.getGlobalSlot(name);
+        if (slot < 0) throw new Uncompilable();
+
+        return slot;
+    }
+
+    private ExpressionNode expression(JavanaParser.ExpressionContext ctx) {
+        return (ExpressionNode) visit(ctx);
+    }
+
+    private StatementNode statement(ParseTree ctx) {
+        Object node = visit(ctx);
+        if (!(node instanceof StatementNode)) throw new Uncompilable();
+
+        return (StatementNode) node;
+    }
+
+    /**
+     * Make a routine body start with no values in the slots of its
+     * common subexpressions.
+     *
+     * @param body the body.
+     * @return the body, or a node that clears the slots and runs it.
+     */
+    private StatementNode withTemporaries(StatementNode body) {
+        if (temporarySlots.isEmpty()) return body;
+
+        int[] slots = temporarySlots.values().stream().mapToInt(Integer::intValue).toArray();
+
+        return (executor, locals) -> {
+            for (int slot : slots) locals[slot] = InvariantNode.UNCACHED;
+            return body.execute(executor, locals);
+        };
+    }
+
+    /**
+     * Allocate the slots of a loop's invariants.
+     *
+     * @param ctx the while or for statement.
+     * @return the slot indexes.
+     */
+    private int[] invariantSlots(ParserRuleContext ctx) {
+        List<LoopInvariant> invariants = LoopInvariant.in(ctx);
+        int[] slots = new int[invariants.size()];
+
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = localsCount++;
+            invariantSlots.put(invariants.get(i), slots[i]);
+        }
+
+        return slots;
+    }
+
+    /**
+     * Make a loop forget the values of its invariants from the last time
+     * it ran before it runs again.
+     *
+     * @param slots the slots of the invariants.
+     * @param loop  the loop.
+     * @return the loop, or a node that resets the slots and runs it.
+     */
+    private static StatementNode resetting(int[] slots, StatementNode loop) {
+        if (slots.length == 0) return loop;
+
+        return (executor, locals) -> {
+            for (int slot : slots) locals[slot] = InvariantNode.UNCACHED;
+            return loop.execute(executor, locals);
+        };
+    }
+
+    private ExpressionNode[] expressions(List<JavanaParser.ExpressionContext> ctxs) {
+        ExpressionNode[] nodes = new ExpressionNode[ctxs.size()];
+        for (int i = 0; i < nodes.length; i++) nodes[i] = expression(ctxs.get(i));
+
+        return nodes;
+    }
+
+    private static Object[] evaluate(ExpressionNode[] nodes, Executor executor, Object[] locals) {
+        Object[] values = new Object[nodes.length];
+        for (int i = 0; i < values.length; i++) values[i] = nodes[i].evaluate(executor, locals);
+
+        return values;
+    }
+
+    /**
+     * Any construct without a lowering makes the routine uncompilable.
+     */
+    @Override
+    protected Object defaultResult() {
+        throw new Uncompilable();
+    }
+
+    // ==========
+    // Statements
+    // ==========
+
+    @Override
+    public Object visitBlockStatement(JavanaParser.BlockStatementContext ctx) {
+        ArrayList<StatementNode> nodes = new ArrayList<>();
+
+        for (JavanaParser.StatementContext stmtCtx : ctx.stmts) {
+            if (stmtCtx.dead) continue;
+
+            StatementNode node = statement(stmtCtx);
+            if (node != null) nodes.add(node);
+            if (Executor.isJump(stmtCtx)) break;  // the rest is unreachable
+        }
+
+        StatementNode[] stmts = nodes.toArray(NO_STATEMENTS);
+        return (StatementNode) (executor, locals) -> {
+            for (StatementNode stmt : stmts) {
+                int flow = stmt.execute(executor, locals);
+                if (flow != StatementNode.NORMAL) return flow;
+            }
+
+            return StatementNode.NORMAL;
+        };
+    }
+
+    @Override
+    public Object visitStatement(JavanaParser.StatementContext ctx) {
+        return visit(ctx.getChild(0));
+    }
+
+    @Override
+    public Object visitNameDeclStatement(JavanaParser.NameDeclStatementContext ctx) {
+        return visit(ctx.getChild(0));
+    }
+
+    @Override
+    public Object visitNameDeclDefStatement(JavanaParser.NameDeclDefStatementContext ctx) {
+        return visit(ctx.getChild(0));
+    }
+
+    @Override
+    public Object visitRecordDecl(JavanaParser.RecordDeclContext ctx) {
+        return (StatementNode) (executor, locals) -> StatementNode.NORMAL;
+    }
+
+    @Override
+    public Object visitVariableDecl(JavanaParser.VariableDeclContext ctx) {
+        Typespec type = TypeChecker.returnType(ctx.assoc.t.getText());
+        Object value = MemoryMap.allocateCellValue(type);
+        int[] slots = ctx.assoc.namelst.names.stream().mapToInt(nameCtx -> declare(nameCtx.getText())).toArray();
+
+        return (StatementNode) (executor, locals) -> {
+            for (int slot : slots) locals[slot] = value;
+            return StatementNode.NORMAL;
+        };
+    }
+
+    @Override
+    public Object visitVariableDefinition(JavanaParser.VariableDefinitionContext ctx) {
+        return definition(ctx.namelst, ctx.expr);
+    }
+
+    @Override
+    public Object visitConstantDefinition(JavanaParser.ConstantDefinitionContext ctx) {
+        return definition(ctx.namelst, ctx.expr);
+    }
+
+    private StatementNode definition(JavanaParser.NameListContext namesCtx, JavanaParser.ExpressionContext exprCtx) {
+        ExpressionNode expr = expression(exprCtx);  // before the names are in scope
+        int[] slots = namesCtx.names.stream().mapToInt(nameCtx -> declare(nameCtx.getText())).toArray();
+
+        return (executor, locals) -> {
+            Object value = expr.evaluate(executor, locals);
+            for (int slot : slots) locals[slot] = value;
+            return StatementNode.NORMAL;
+        };
+    }
+
+    @Override
+    public Object visitAssignmentStatement(JavanaParser.AssignmentStatementContext ctx) {
+        ExpressionNode expr = expression(ctx.expr);
+        JavanaParser.VariableContext varCtx = ctx.var;
+        String name = varCtx.name.getText();
+        int slot = slotOf(name);
+
+        if (varCtx.modifiers.isEmpty()) {
+            if (slot >= 0) {
+                return (StatementNode) (executor, locals) -> {
+                    locals[slot] = expr.evaluate(executor, locals);
+                    return StatementNode.NORMAL;
+                };
+            }
+
+            int global = globalSlot(name);
+            return (StatementNode) (executor, locals) -> {
+                executor.globalCell(global).setValue(expr.evaluate(executor, locals));
+                return StatementNode.NORMAL;
+            };
+        }
+
+        // Evaluate the container through all but the last modifier, and
+        // the last one's index, then the value, as the interpreter does.
+        // Then store into the element or field that the last one selects.
+        ExpressionNode container = slot >= 0 ? (executor, locals) -> locals[slot] : globalValue(globalSlot(name));
+        int last = varCtx.modifiers.size() - 1;
+
+        for (int i = 0; i < last; i++) {
+            container = select(container, varCtx.modifiers.get(i));
+        }
+
+        ExpressionNode target = container;
+        JavanaParser.VarModifierContext modCtx = varCtx.modifiers.get(last);
+
+        if (modCtx instanceof JavanaParser.VarArrayIndexModfierContext indexCtx) {
+            ExpressionNode index = expression(indexCtx.arrIdxSpecifier().expr);
+            return (StatementNode) (executor, locals) -> {
+                Object array = target.evaluate(executor, locals);
+                Object i = index.evaluate(executor, locals);
+                Object value = expr.evaluate(executor, locals);
+                Cell cell = executor.selectElement(array, i, modCtx);
+                if (cell != null) cell.setValue(value);
+                return StatementNode.NORMAL;
+            };
+        } else {
+            String field = ((JavanaParser.VarRecordFieldModifierContext) modCtx).identifier().getText();
+            return (StatementNode) (executor, locals) -> {
+                Object record = target.evaluate(executor, locals);
+                Object value = expr.evaluate(executor, locals);
+                Cell cell = executor.selectField(record, field, modCtx);
+                if (cell != null) cell.setValue(value);
+                return StatementNode.NORMAL;
+            };
+        }
+    }
+
+    private static ExpressionNode globalValue(int global) {
+        return (executor, locals) -> executor.globalCell(global).getValue();
+    }
+
+    private ExpressionNode select(ExpressionNode container, JavanaParser.VarModifierContext modCtx) {
+        if (modCtx instanceof JavanaParser.VarArrayIndexModfierContext indexCtx) {
+            ExpressionNode index = expression(indexCtx.arrIdxSpecifier().expr);
+            return (executor, locals) -> {
+                Cell cell = executor.selectElement(container.evaluate(executor, locals), index.evaluate(executor, locals), modCtx);
+                return cell != null ? cell.getValue() : null;
+            };
+        } else {
+            String field = ((JavanaParser.VarRecordFieldModifierContext) modCtx).identifier().getText();
+            return (executor, locals) -> {
+                Cell cell = executor.selectField(container.evaluate(executor, locals), field, modCtx);
+                return cell != null ? cell.getValue() : null;
+            };
+        }
+    }
+
+    @Override
+    public Object visitIfStatement(JavanaParser.IfStatementContext ctx) {
+        SwitchChain chain = SwitchChain.of(ctx);
+        if (chain != null) return jumpTable(chain);
+
+        ExpressionNode condition = expression(ctx.condition);
+        StatementNode thenStmt = statement(ctx.thenStmt);
+        StatementNode elseStmt = ctx.elseStmt != null ? statement(ctx.elseStmt) : null;
+
+        if (elseStmt == null) {
+            return (StatementNode) (executor, locals) ->
+                    executor.isTrue(condition.evaluate(executor, locals), ctx)
+                            ? thenStmt.execute(executor, locals) : StatementNode.NORMAL;
+        }
+
+        return (StatementNode) (executor, locals) ->
+                executor.isTrue(condition.evaluate(executor, locals), ctx)
+                        ? thenStmt.execute(executor, locals) : elseStmt.execute(executor, locals);
+    }
+
+    /**
+     * Lower a chain of if statements on one variable to a jump table.
+     *
+     * @param chain the chain.
+     * @return the node.
+     */
+    private StatementNode jumpTable(SwitchChain chain) {
+        ExpressionNode selector = expression(chain.getVariable());
+        int[] values = chain.getValues().stream().mapToInt(Integer::intValue).toArray();
+        StatementNode[] bodies = chain.getBodies().stream().map(this::statement).toArray(StatementNode[]::new);
+        StatementNode otherwise = chain.getDefaultBody() != null ? statement(chain.getDefaultBody()) : null;
+
+        return new JumpTableNode(selector, values, bodies, otherwise, chain.isDense());
+    }
+
+    @Override
+    public Object visitWhileStatement(JavanaParser.WhileStatementContext ctx) {
+        int[] slots = invariantSlots(ctx);
+        ExpressionNode condition = expression(ctx.condition);
+        StatementNode body = statement(ctx.body);
+
+        return resetting(slots, (executor, locals) -> {
+            while (executor.isTrue(condition.evaluate(executor, locals), ctx)) {
+                int flow = body.execute(executor, locals);
+
+                if (flow == StatementNode.BREAK) break;
+                if ((flow == StatementNode.RETURN) || (flow == StatementNode.RESTART)) return flow;
+
+                executor.tick(ctx);
+            }
+
+            return StatementNode.NORMAL;
+        });
+    }
+
+    @Override
+    public Object visitForStatement(JavanaParser.ForStatementContext ctx) {
+        int[] slots = invariantSlots(ctx);
+        StatementNode init = ctx.init != null ? statement(ctx.init) : (executor, locals) -> StatementNode.NORMAL;
+        ExpressionNode condition = expression(ctx.condition);
+        StatementNode body = statement(ctx.body);
+        ExpressionNode update = expression(ctx.updateExpr);
+
+        JavanaParser.IdentifierExpressionContext inductionCtx = Executor.updateTarget(ctx.updateExpr);
+        if (inductionCtx == null) throw new Uncompilable();
+
+        String name = inductionCtx.getText();
+        int slot = slotOf(name);
+        int global = slot < 0 ? globalSlot(name) : -1;
+
+        CountedLoop counted = CountedLoop.of(ctx, local -> slotOf(local) >= 0);
+        ExpressionNode bound = counted != null ? expression(counted.getBound()) : null;
+
+        StatementNode loop = (executor, locals) -> {
+            while (executor.isTrue(condition.evaluate(executor, locals), ctx)) {
+                int flow = body.execute(executor, locals);
+
+                if (flow == StatementNode.BREAK) break;
+                if ((flow == StatementNode.RETURN) || (flow == StatementNode.RESTART)) return flow;
+
+                Object value = update.evaluate(executor, locals);
+                if (slot >= 0) locals[slot] = value;
+                else executor.globalCell(global).setValue(value);
+
+                executor.tick(ctx);
+            }
+
+            return StatementNode.NORMAL;
+        };
+
+        if (counted != null) {
+            return resetting(slots,
+                    new CountedLoopNode(slot, init, bound, counted.getRelation(), counted.getStep(), body, loop, ctx));
+        }
+
+        return resetting(slots, (executor, locals) -> {
+            init.execute(executor, locals);
+            return loop.execute(executor, locals);
+        });
+    }
+
+    @Override
+    public Object visitExpressionStatement(JavanaParser.ExpressionStatementContext ctx) {
+        ExpressionNode expr = expression(ctx.expr);
+
+        return (StatementNode) (executor, locals) -> {
+            expr.evaluate(executor, locals);
+            return StatementNode.NORMAL;
+        };
+    }
+
+    @Override
+    public Object visitReturnStatement(JavanaParser.ReturnStatementContext ctx) {
+        if (ctx.expr == null) return (StatementNode) (executor, locals) -> StatementNode.RETURN;
+
+        TailCall tailCall = TailCall.of(ctx);
+        if ((tailCall != null) && (returnSlot == 0)) return tailCall(tailCall, ctx);  // not in an inlined body
+
+        ExpressionNode expr = expression(ctx.expr);
+        int slot = returnSlot;
+
+        return (StatementNode) (executor, locals) -> {
+            locals[slot] = expr.evaluate(executor, locals);
+            return StatementNode.RETURN;
+        };
+    }
+
+    /**
+     * Lower a tail call. A call of the routine itself assigns the
+     * arguments to the parameter slots and starts the body over. A call
+     * of another function is left to the executor, which makes it once
+     * this routine has returned.
+     *
+     * @param tailCall the tail call.
+     * @param ctx      the ReturnStatementContext.
+     * @return the node.
+     */
+    private StatementNode tailCall(TailCall tailCall, JavanaParser.ReturnStatementContext ctx) {
+        CallTarget target = program.getCallTarget(tailCall.getCall());
+        if (target == null) throw new Uncompilable();
+
+        ExpressionNode[] args = expressions(tailCall.getArguments());
+
+        if (tailCall.isSelf()) {
+            return (executor, locals) -> {
+                Object[] values = evaluate(args, executor, locals);
+                System.arraycopy(values, 0, locals, 1, values.length);
+                executor.tick(ctx);
+
+                return StatementNode.RESTART;
+            };
+        }
+
+        return (executor, locals) -> {
+            executor.tailCall(target, evaluate(args, executor, locals));
+            return StatementNode.RETURN;
+        };
+    }
+
+    @Override
+    public Object visitContinueStatement(JavanaParser.ContinueStatementContext ctx) {
+        return (StatementNode) (executor, locals) -> StatementNode.CONTINUE;
+    }
+
+    @Override
+    public Object visitBreakStatement(JavanaParser.BreakStatementContext ctx) {
+        return (StatementNode) (executor, locals) -> StatementNode.BREAK;
+    }
+
+    @Override
+    public Object visitPrintStatement(JavanaParser.PrintStatementContext ctx) {
+        ExpressionNode text = printText(ctx.arg);
+
+        return (StatementNode) (executor, locals) -> {
+            executor.print((String) text.evaluate(executor, locals));
+            return StatementNode.NORMAL;
+        };
+    }
+
+    @Override
+    public Object visitPrintLineStatement(JavanaParser.PrintLineStatementContext ctx) {
+        ExpressionNode text = ctx.arg != null ? printText(ctx.arg) : (executor, locals) -> "";
+
+        return (StatementNode) (executor, locals) -> {
+            executor.println((String) text.evaluate(executor, locals));
+            return StatementNode.NORMAL;
+        };
+    }
+
+    private ExpressionNode printText(JavanaParser.PrintArgumentContext ctx) {
+        if (ctx instanceof JavanaParser.PrintSingleValueContext singleCtx) {
+            ExpressionNode value = expression(singleCtx.expression());
+            return (executor, locals) -> Executor.toText(value.evaluate(executor, locals));
+        }
+
+        ExpressionNode[] values = expressions(((JavanaParser.FormattedPrintContext) ctx).exprList().exprs);
+        return (executor, locals) -> Executor.toText(evaluate(values, executor, locals));
+    }
+
+    @Override
+    public Object visitPrintfCall(JavanaParser.PrintfCallContext ctx) {
+        FormatRecipe recipe = FormatRecipe.of(ctx);
+        ExpressionNode[] args = expressions(((JavanaParser.PrintFArgsListContext) ctx.argsList()).expression());
+
+        if (recipe != null) {
+            return (StatementNode) (executor, locals) -> {
+                executor.printf(recipe, evaluate(args, executor, locals), ctx);
+                return StatementNode.NORMAL;
+            };
+        }
+
+        ExpressionNode format = expression(ctx.formatString);
+
+        return (StatementNode) (executor, locals) -> {
+            executor.printf(format.evaluate(executor, locals), evaluate(args, executor, locals), ctx);
+            return StatementNode.NORMAL;
+        };
+    }
+
+    // ===========
+    // Expressions
+    // ===========
+
+    /**
+     * Compile a node, the constant of an expression that was folded,
+     * a loop-invariant expression that keeps its value, or a common
+     * subexpression that shares its value through a slot.
+     */
+    @Override
+    public Object visit(ParseTree tree) {
+        if (tree instanceof JavanaParser.ExpressionContext exprCtx) {
+            Constant constant = ConstantFolder.constantOf(exprCtx);
+
+            if (constant != null) {
+                Object value = constant.getValue();
+                return (ExpressionNode) (executor, locals) -> value;
+            }
+
+            Integer slot = invariantSlots.get(LoopInvariant.of(exprCtx));
+            if (slot != null) return new InvariantNode(slot, (ExpressionNode) super.visit(tree));
+
+            CommonSubexpression common = CommonSubexpression.of(exprCtx);
+
+            if (common != null) {
+                int temporary = temporarySlots.computeIfAbsent(common.getSource(), source -> localsCount++);
+                return new TemporaryNode(temporary, common.isSource(), (ExpressionNode) super.visit(tree));
+            }
+        }
+
+        return super.visit(tree);
+    }
+
+    @Override
+    public Object visitFunctionCallExpression(JavanaParser.FunctionCallExpressionContext ctx) {
+        return visit(ctx.functionCall());
+    }
+
+    @Override
+    public Object visitFunctionCall(JavanaParser.FunctionCallContext ctx) {
+        CallTarget target = program.getCallTarget(ctx);
+        if (target == null) throw new Uncompilable();
+
+        ExpressionNode[] args = expressions(ctx.args != null ? ctx.args.exprs : List.of());
+
+        if (InlinedCall.of(ctx) != null) {
+            ExpressionNode inlined = inline(target, args, ctx);
+            if (inlined != null) return inlined;
+        }
+
+        return (ExpressionNode) (executor, locals) -> executor.call(target, evaluate(args, executor, locals), ctx);
+    }
+
+    /**
+     * Compile the body of a called function in place of the call. The
+     * body sees only its own parameters and locals, in new slots, and
+     * the program variables.
+     *
+     * @param target the callee's call target.
+     * @param args   the argument nodes.
+     * @param ctx    the FunctionCallContext.
+     * @return the node, or null if the body can't be compiled.
+     */
+    private ExpressionNode inline(CallTarget target, ExpressionNode[] args, JavanaParser.FunctionCallContext ctx) {
+        HashMap<String, Integer> callerSlots = new HashMap<>(localSlots);
+        HashMap<CommonSubexpression, Integer> callerTemporaries = new HashMap<>(temporarySlots);
+        int callerLocalsCount = localsCount;
+        int callerReturnSlot = returnSlot;
+
+        localSlots.clear();
+        temporarySlots.clear();
+        returnSlot = localsCount++;
+
+        try {
+            int result = returnSlot;
+            int[] parms = target.getRoutineId().getRoutineParameters().stream()
+                                .mapToInt(parmId -> declare(parmId.getName())).toArray();
+            StatementNode body = withTemporaries(statement(target.getBody()));
+
+            return (executor, locals) -> {
+                for (int i = 0; i < parms.length; i++) locals[parms[i]] = args[i].evaluate(executor, locals);
+                executor.tick(ctx);
+
+                locals[result] = null;
+                body.execute(executor, locals);
+                return locals[result];
+            };
+        } catch (Uncompilable ex) {
+            localsCount = callerLocalsCount;
+            return null;
+        } finally {
+            localSlots.clear();
+            localSlots.putAll(callerSlots);
+            temporarySlots.clear();
+            temporarySlots.putAll(callerTemporaries);
+            returnSlot = callerReturnSlot;
+        }
+    }
+
+    @Override
+    public Object visitParenthesizedExpression(JavanaParser.ParenthesizedExpressionContext ctx) {
+        return visit(ctx.expression());
+    }
+
+    @Override
+    public Object visitIdentifierExpression(JavanaParser.IdentifierExpressionContext ctx) {
+        String name = ctx.getText();
+        int slot = slotOf(name);
+
+        return slot >= 0 ? (ExpressionNode) (executor, locals) -> locals[slot] : globalValue(globalSlot(name));
+    }
+
+    @Override
+    public Object visitLiteralExpression(JavanaParser.LiteralExpressionContext ctx) {
+        Object value = ctx.literal().value;
+        return (ExpressionNode) (executor, locals) -> value;
+    }
+
+    @Override
+    public Object visitArithmeticExpression(JavanaParser.ArithmeticExpressionContext ctx) {
+        Simplification simplification = Simplification.of(ctx);
+        if (simplification != null) return simplified(simplification, ctx);
+
+        ExpressionNode lhs = expression(ctx.expression(0));
+        ExpressionNode rhs = expression(ctx.expression(1));
+
+        if (ctx.ARITH_OP().getText().equals("+")) {
+            return (ExpressionNode) (executor, locals) ->
+                    executor.intValue(lhs.evaluate(executor, locals), ctx) + executor.intValue(rhs.evaluate(executor, locals), ctx);
+        } else {
+            return (ExpressionNode) (executor, locals) ->
+                    executor.intValue(lhs.evaluate(executor, locals), ctx) - executor.intValue(rhs.evaluate(executor, locals), ctx);
+        }
+    }
+
+    @Override
+    public Object visitHigherArithmeticExpression(JavanaParser.HigherArithmeticExpressionContext ctx) {
+        Simplification simplification = Simplification.of(ctx);
+        if (simplification != null) return simplified(simplification, ctx);
+
+        ExpressionNode lhs = expression(ctx.expression(0));
+        ExpressionNode rhs = expression(ctx.expression(1));
+
+        return switch (ctx.HIGHER_ARITH_OP().getText()) {
+            case "*" -> (ExpressionNode) (executor, locals) ->
+                    executor.intValue(lhs.evaluate(executor, locals), ctx) * executor.intValue(rhs.evaluate(executor, locals), ctx);
+            case "/" -> (ExpressionNode) (executor, locals) -> executor.divide(
+                    executor.intValue(lhs.evaluate(executor, locals), ctx), executor.intValue(rhs.evaluate(executor, locals), ctx), ctx);
+            default -> (ExpressionNode) (executor, locals) -> executor.remainder(
+                    executor.intValue(lhs.evaluate(executor, locals), ctx), executor.intValue(rhs.evaluate(executor, locals), ctx), ctx);
+        };
+    }
+
+    @Override
+    public Object visitRelationalExpression(JavanaParser.RelationalExpressionContext ctx) {
+        return comparison(ctx.REL_OP().getText(), ctx);
+    }
+
+    /**
+     * Compile the comparison of a relational expression's operands.
+     *
+     * @param operator the relational operator, which can be the opposite
+     *                 of the one written.
+     * @param ctx      the RelationalExpressionContext.
+     * @return the node.
+     */
+    private ExpressionNode comparison(String operator, JavanaParser.RelationalExpressionContext ctx) {
+        ExpressionNode lhs = expression(ctx.expression(0));
+        ExpressionNode rhs = expression(ctx.expression(1));
+
+        return switch (operator) {
+            case "<" -> (ExpressionNode) (executor, locals) ->
+                    executor.intValue(lhs.evaluate(executor, locals), ctx) < executor.intValue(rhs.evaluate(executor, locals), ctx);
+            case "<=" -> (ExpressionNode) (executor, locals) ->
+                    executor.intValue(lhs.evaluate(executor, locals), ctx) <= executor.intValue(rhs.evaluate(executor, locals), ctx);
+            case ">" -> (ExpressionNode) (executor, locals) ->
+                    executor.intValue(lhs.evaluate(executor, locals), ctx) > executor.intValue(rhs.evaluate(executor, locals), ctx);
+            default -> (ExpressionNode) (executor, locals) ->
+                    executor.intValue(lhs.evaluate(executor, locals), ctx) >= executor.intValue(rhs.evaluate(executor, locals), ctx);
+        };
+    }
+
+    @Override
+    public Object visitEqualityExpression(JavanaParser.EqualityExpressionContext ctx) {
+        boolean equals = ctx.EQ_OP().getText().equals("==");
+
+        StringIntrinsic intrinsic = StringIntrinsic.of(ctx);
+        if (intrinsic != null) {
+            ExpressionNode compare = regionEquals(intrinsic, ctx);
+            return equals ? compare : (ExpressionNode) (executor, locals) -> !(Boolean) compare.evaluate(executor, locals);
+        }
+
+        ExpressionNode lhs = expression(ctx.expression(0));
+        ExpressionNode rhs = expression(ctx.expression(1));
+
+        return (ExpressionNode) (executor, locals) -> StringRope.valueEquals(lhs.evaluate(executor, locals), rhs.evaluate(executor, locals)) == equals;
+    }
+
+    @Override
+    public Object visitConditionalExpression(JavanaParser.ConditionalExpressionContext ctx) {
+        ExpressionNode lhs = expression(ctx.expression(0));
+        ExpressionNode rhs = expression(ctx.expression(1));
+
+        if (ctx.COND_OP().getText().equals("&&")) {
+            return (ExpressionNode) (executor, locals) ->
+                    executor.isTrue(lhs.evaluate(executor, locals), ctx) && executor.isTrue(rhs.evaluate(executor, locals), ctx);
+        } else {
+            return (ExpressionNode) (executor, locals) ->
+                    executor.isTrue(lhs.evaluate(executor, locals), ctx) || executor.isTrue(rhs.evaluate(executor, locals), ctx);
+        }
+    }
+
+    @Override
+    public Object visitNotExpression(JavanaParser.NotExpressionContext ctx) {
+        Simplification simplification = Simplification.of(ctx);
+        if (simplification != null) return simplified(simplification, ctx);
+
+        ExpressionNode operand = expression(ctx.expression());
+        return (ExpressionNode) (executor, locals) -> !executor.isTrue(operand.evaluate(executor, locals), ctx);
+    }
+
+    /**
+     * Compile an expression as its simplification: only its operand, a
+     * shift or mask of its integer operand, or the opposite comparison
+     * of the relational expression that it negates.
+     *
+     * @param simplification the simplification.
+     * @param ctx            the context, for error reporting.
+     * @return the node.
+     */
+    private ExpressionNode simplified(Simplification simplification, ParserRuleContext ctx) {
+        if (simplification.getKind() == Simplification.Kind.OPERAND) {
+            return expression(simplification.getOperand());
+        } else if (simplification.getKind() == Simplification.Kind.NEGATED_COMPARISON) {
+            return comparison(simplification.getOperator(),
+                              (JavanaParser.RelationalExpressionContext) simplification.getOperand());
+        }
+
+        ExpressionNode operand = expression(simplification.getOperand());
+        int k = simplification.getShift();
+        int mask = (1 << k) - 1;
+
+        return switch (simplification.getKind()) {
+            case SHIFT_LEFT -> (executor, locals) -> executor.intValue(operand.evaluate(executor, locals), ctx) << k;
+            case SHIFT_RIGHT -> (executor, locals) -> executor.intValue(operand.evaluate(executor, locals), ctx) >> k;
+            case MASK -> (executor, locals) -> executor.intValue(operand.evaluate(executor, locals), ctx) & mask;
+            default -> (executor, locals) -> simplification.apply(executor.intValue(operand.evaluate(executor, locals), ctx));
+        };
+    }
+
+    @Override
+    public Object visitArrayIndexExpression(JavanaParser.ArrayIndexExpressionContext ctx) {
+        ExpressionNode array = expression(ctx.expression());
+        ExpressionNode index = expression(ctx.arrIdxSpecifier().expr);
+
+        return (ExpressionNode) (executor, locals) -> {
+            Cell cell = executor.selectElement(array.evaluate(executor, locals), index.evaluate(executor, locals), ctx);
+            return cell != null ? cell.getValue() : null;
+        };
+    }
+
+    @Override
+    public Object visitRecordFieldExpression(JavanaParser.RecordFieldExpressionContext ctx) {
+        ExpressionNode record = expression(ctx.expression());
+        String field = ctx.identifier().getText();
+
+        return (ExpressionNode) (executor, locals) -> {
+            Cell cell = executor.selectField(record.evaluate(executor, locals), field, ctx);
+            return cell != null ? cell.getValue() : null;
+        };
+    }
+
+    @Override
+    public Object visitStringLengthExpression(JavanaParser.StringLengthExpressionContext ctx) {
+        ExpressionNode operand = expression(ctx.expression());
+        return (ExpressionNode) (executor, locals) -> executor.length(operand.evaluate(executor, locals), ctx);
+    }
+
+    @Override
+    public Object visitArrayLengthExpression(JavanaParser.ArrayLengthExpressionContext ctx) {
+        ExpressionNode operand = expression(ctx.arrayLength().paramArray);
+        return (ExpressionNode) (executor, locals) -> executor.length(operand.evaluate(executor, locals), ctx);
+    }
+
+    @Override
+    public Object visitCharAtExpression(JavanaParser.CharAtExpressionContext ctx) {
+        ExpressionNode string = expression(ctx.expression(0));
+        ExpressionNode index = expression(ctx.expression(1));
+
+        return (ExpressionNode) (executor, locals) -> executor.charAt(string.evaluate(executor, locals), index.evaluate(executor, locals), ctx);
+    }
+
+    @Override
+    public Object visitCharToValExpression(JavanaParser.CharToValExpressionContext ctx) {
+        StringIntrinsic intrinsic = StringIntrinsic.of(ctx.stringCharToValCall());
+        if (intrinsic != null) {
+            ExpressionNode string = expression(intrinsic.getString());
+            ExpressionNode begin = expression(intrinsic.getBegin());
+
+            if (intrinsic.getEnd() == null) {
+                return (ExpressionNode) (executor, locals) ->
+                        executor.charValue(string.evaluate(executor, locals), begin.evaluate(executor, locals), ctx);
+            }
+
+            ExpressionNode end = expression(intrinsic.getEnd());
+            return (ExpressionNode) (executor, locals) -> executor.regionCharValue(
+                    string.evaluate(executor, locals), begin.evaluate(executor, locals), end.evaluate(executor, locals), ctx);
+        }
+
+        ExpressionNode string = expression(ctx.stringCharToValCall().expression());
+        return (ExpressionNode) (executor, locals) -> executor.charToVal(string.evaluate(executor, locals), ctx);
+    }
+
+    @Override
+    public Object visitConcatenateStringsExpression(JavanaParser.ConcatenateStringsExpressionContext ctx) {
+        JavanaParser.ConcatenateStringsCallContext callCtx = ctx.concatenateStringsCall();
+        ExpressionNode first = expression(callCtx.first);
+        ExpressionNode second = expression(callCtx.second);
+
+        return (ExpressionNode) (executor, locals) ->
+                StringRope.concat(first.evaluate(executor, locals), second.evaluate(executor, locals));
+    }
+
+    @Override
+    public Object visitSubstringExpression(JavanaParser.SubstringExpressionContext ctx) {
+        JavanaParser.SubstringCallContext callCtx = ctx.substringCall();
+        ExpressionNode string = expression(callCtx.first);
+        ExpressionNode begin = expression(callCtx.second);
+        ExpressionNode end = expression(callCtx.third);
+
+        return (ExpressionNode) (executor, locals) -> executor.substring(
+                string.evaluate(executor, locals), begin.evaluate(executor, locals), end.evaluate(executor, locals), ctx);
+    }
+
+    @Override
+    public Object visitStringEqualsExpression(JavanaParser.StringEqualsExpressionContext ctx) {
+        JavanaParser.StringEqualsContext callCtx = ctx.stringEquals();
+        StringIntrinsic intrinsic = StringIntrinsic.of(callCtx);
+        if (intrinsic != null) return regionEquals(intrinsic, ctx);
+
+        ExpressionNode first = expression(callCtx.first);
+        ExpressionNode second = expression(callCtx.second);
+
+        return (ExpressionNode) (executor, locals) -> StringRope.valueEquals(first.evaluate(executor, locals), second.evaluate(executor, locals));
+    }
+
+    /**
+     * Lower a compare of a substring or a char with another string to a
+     * node that reads the chars in place. The operands are evaluated in
+     * their source order.
+     *
+     * @param intrinsic the match.
+     * @param ctx       the context, for error reporting.
+     * @return the node.
+     */
+    private ExpressionNode regionEquals(StringIntrinsic intrinsic, ParserRuleContext ctx) {
+        ExpressionNode other = expression(intrinsic.getOther());
+        ExpressionNode string = expression(intrinsic.getString());
+        ExpressionNode begin = expression(intrinsic.getBegin());
+
+        if (intrinsic.getEnd() == null) {
+            if (intrinsic.isOtherFirst()) {
+                return (executor, locals) -> {
+                    Object otherValue = other.evaluate(executor, locals);
+                    return executor.charEquals(string.evaluate(executor, locals), begin.evaluate(executor, locals),
+                                               otherValue, ctx);
+                };
+            }
+
+            return (executor, locals) -> executor.charEquals(string.evaluate(executor, locals),
+                    begin.evaluate(executor, locals), other.evaluate(executor, locals), ctx);
+        }
+
+        ExpressionNode end = expression(intrinsic.getEnd());
+
+        if (intrinsic.isOtherFirst()) {
+            return (executor, locals) -> {
+                Object otherValue = other.evaluate(executor, locals);
+                return executor.regionEquals(string.evaluate(executor, locals), begin.evaluate(executor, locals),
+                                             end.evaluate(executor, locals), otherValue, ctx);
+            };
+        }
+
+        return (executor, locals) -> executor.regionEquals(string.evaluate(executor, locals),
+                begin.evaluate(executor, locals), end.evaluate(executor, locals), other.evaluate(executor, locals), ctx);
+    }
+
+    @Override
+    public Object visitStringToIntCallExpression(JavanaParser.StringToIntCallExpressionContext ctx) {
+        ExpressionNode string = expression(ctx.stringToIntCall().expression());
+        return (ExpressionNode) (executor, locals) -> executor.stringToInt(string.evaluate(executor, locals), ctx);
+    }
+
+    @Override
+    public Object visitReadCharCallExpression(JavanaParser.ReadCharCallExpressionContext ctx) {
+        return (ExpressionNode) (executor, locals) -> executor.readChar();
+    }
+
+    @Override
+    public Object visitReadLineCallExpression(JavanaParser.ReadLineCallExpressionContext ctx) {
+        return (ExpressionNode) (executor, locals) -> executor.readLine();
+    }
+
+    @Override
+    public Object visitNewArrayExpression(JavanaParser.NewArrayExpressionContext ctx) {
+        JavanaParser.NewArrayContext arrayCtx = ctx.newArray();
+        Typespec elemType = arrayCtx.scalarType() != null
+                ? TypeChecker.returnType(arrayCtx.scalarType().getText())
+                : null;  // array of records
+        ExpressionNode size = expression(arrayCtx.arrIdxSpecifier().expr);
+
+        return (ExpressionNode) (executor, locals) -> executor.newArray(elemType, size.evaluate(executor, locals), ctx);
+    }
+
+    @Override
+    public Object visitNewRecordExpression(JavanaParser.NewRecordExpressionContext ctx) {
+        JavanaParser.NewRecordContext recordCtx = ctx.newRecord();
+        String typeName = recordCtx.identifier().getText();
+        List<JavanaParser.FieldInitContext> fieldCtxs =
+                recordCtx.init != null ? recordCtx.init.init : List.of();
+
+        String[] fields = new String[fieldCtxs.size()];
+        ExpressionNode[] values = new ExpressionNode[fieldCtxs.size()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = fieldCtxs.get(i).field.getText();
+            values[i] = expression(fieldCtxs.get(i).expr);
+        }
+
+        return (ExpressionNode) (executor, locals) -> {
+            MemoryMap record = executor.newRecord(typeName, fields.length, ctx);
+            for (int i = 0; i < fields.length; i++) {
+                record.replaceCell(fields[i], new Cell(values[i].evaluate(executor, locals)));
+            }
+
+            return record;
+        };
+    }
+}
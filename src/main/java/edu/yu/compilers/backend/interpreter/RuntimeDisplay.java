@@ -6,15 +6,38 @@
  */
 package edu.yu.compilers.backend.interpreter;
 
-import java.util.ArrayList;
+import edu.yu.compilers.intermediate.symtable.SymTableEntry;
 
+public class RuntimeDisplay {
+    private final StackFrame[] frames;  // topmost frame at each nesting level
 
-public class RuntimeDisplay extends ArrayList<StackFrame> {
     /**
      * Constructor.
+     * The display is preallocated since the deepest nesting level
+     * of a Javana program is known once semantic analysis is done.
+     *
+     * @param maxNestingLevel the deepest nesting level of any routine.
      */
-    public RuntimeDisplay() {
-        add(null);  // dummy element 0 (never used)
+    public RuntimeDisplay(int maxNestingLevel) {
+        frames = new StackFrame[maxNestingLevel + 1];  // element 0 is never used
+    }
+
+    /**
+     * Compute the deepest nesting level of a routine and its subroutines.
+     *
+     * @param routineId the symbol table entry of the routine's name.
+     * @return the nesting level.
+     */
+    public static int maxNestingLevel(SymTableEntry routineId) {
+        int maxLevel = routineId.getRoutineSymTable().getNestingLevel();
+
+        for (SymTableEntry subroutineId : routineId.getSubroutines()) {
+            if (subroutineId.getRoutineSymTable() != null) {
+                maxLevel = Math.max(maxLevel, maxNestingLevel(subroutineId));
+            }
+        }
+
+        return maxLevel;
     }
 
     /**
@@ -24,7 +47,7 @@ public class RuntimeDisplay extends ArrayList<StackFrame> {
      * @return the stack frame.
      */
     public StackFrame getStackFrame(int nestingLevel) {
-        return get(nestingLevel);
+        return frames[nestingLevel];
     }
 
     /**
@@ -34,14 +57,7 @@ public class RuntimeDisplay extends ArrayList<StackFrame> {
      * @param frame        the stack frame for the routine.
      */
     public void callUpdate(int nestingLevel, StackFrame frame) {
-        // Next higher nesting level: Append a new element at the top.
-        if (nestingLevel >= size()) add(frame);
-
-            // Existing nesting level: Set at the specified level.
-        else {
-            StackFrame prevFrame = get(nestingLevel);
-            set(nestingLevel, frame.createBacklink(prevFrame));
-        }
+        frames[nestingLevel] = frame.createBacklink(frames[nestingLevel]);
     }
 
     /**
@@ -50,15 +66,8 @@ public class RuntimeDisplay extends ArrayList<StackFrame> {
      * @param nestingLevel the nesting level.
      */
     public void returnUpdate(int nestingLevel) {
-        int topIndex = size() - 1;
-        StackFrame frame = get(nestingLevel);     // frame about to be popped off
-        StackFrame prevFrame = frame.backlink();  // previous frame it points to
-
         // Point the element at that nesting level
-        // to the previous stack frame.
-        if (prevFrame != null) set(nestingLevel, prevFrame);
-
-            // The top element has become null, so remove it.
-        else if (nestingLevel == topIndex) remove(topIndex);
+        // to the previous stack frame, which may be null.
+        frames[nestingLevel] = frames[nestingLevel].backlink();
     }
 }
@@ -8,11 +8,27 @@ package edu.yu.compilers.backend.interpreter;
 
 import org.antlr.v4.runtime.ParserRuleContext;
 
+import java.io.PrintStream;
+
 
 public class RuntimeErrorHandler {
     private static final int MAX_ERRORS = 5;
+    private final PrintStream out;  // where the execution's errors are printed
     private int count = 0;    // count of runtime errors
 
+    public RuntimeErrorHandler() {
+        this(System.out);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param out the output stream of the execution.
+     */
+    public RuntimeErrorHandler(PrintStream out) {
+        this.out = out;
+    }
+
     /**
      * Getter
      *
@@ -29,16 +45,40 @@ public class RuntimeErrorHandler {
      * @param ctx  the context node.
      */
     public void flag(Code code, ParserRuleContext ctx) {
-        System.out.printf("\n*** RUNTIME ERROR at line %03d: %s\n", ctx.getStart().getLine(), code.message);
+        out.printf("\n*** RUNTIME ERROR at line %03d: %s\n", ctx.getStart().getLine(), code.message);
 
         if (++count > MAX_ERRORS) {
-            System.out.println("*** ABORTED AFTER TOO MANY RUNTIME ERRORS.");
-            System.exit(-1);
+            out.println("*** ABORTED AFTER TOO MANY RUNTIME ERRORS.");
+            throw new Abort();
+        }
+    }
+
+    /**
+     * Flag a runtime error that ends the execution.
+     *
+     * @param code the runtime error code.
+     * @param ctx  the context node.
+     */
+    public void abort(Code code, ParserRuleContext ctx) {
+        out.printf("\n*** RUNTIME ERROR at line %03d: %s\n", ctx.getStart().getLine(), code.message);
+        out.println("*** ABORTED.");
+        ++count;
+
+        throw new Abort();
+    }
+
+    /**
+     * Thrown to abort an execution. Other executions of the
+     * same program keep running.
+     */
+    public static class Abort extends RuntimeException {
+        Abort() {
+            super(null, null, false, false);
         }
     }
 
     public enum Code {
-        UNINITIALIZED_VALUE("Uninitialized value"), VALUE_RANGE("Value out of range"), INVALID_CASE_EXPRESSION_VALUE("Invalid CASE expression value"), DIVISION_BY_ZERO("Division by zero"), INVALID_STANDARD_FUNCTION_ARGUMENT("Invalid standard function argument"), INVALID_INPUT("Invalid input"), STACK_OVERFLOW("Runtime stack overflow"), UNIMPLEMENTED_FEATURE("Unimplemented runtime feature");
+        UNINITIALIZED_VALUE("Uninitialized value"), VALUE_RANGE("Value out of range"), INVALID_CASE_EXPRESSION_VALUE("Invalid CASE expression value"), DIVISION_BY_ZERO("Division by zero"), INVALID_STANDARD_FUNCTION_ARGUMENT("Invalid standard function argument"), INVALID_INPUT("Invalid input"), STACK_OVERFLOW("Runtime stack overflow"), UNIMPLEMENTED_FEATURE("Unimplemented runtime feature"), FUEL_EXHAUSTED("Instruction budget exhausted"), TIME_LIMIT_EXCEEDED("Time limit exceeded"), HEAP_BUDGET_EXCEEDED("Heap budget exceeded");
 
         private final String message;  // error message
 
@@ -6,17 +6,34 @@
  */
 package edu.yu.compilers.backend.interpreter;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
+public class RuntimeStack {
+    public static final int INITIAL_CAPACITY = 64;  // frames before the first growth
 
-public class RuntimeStack extends ArrayList<StackFrame> {
+    private StackFrame[] frames;           // contiguous stack of frames
     private final RuntimeDisplay display;  // runtime display
+    private int top;                       // index of the topmost frame
 
     /**
      * Constructor.
+     *
+     * @param maxNestingLevel the deepest nesting level of any routine.
      */
-    public RuntimeStack() {
-        display = new RuntimeDisplay();
+    public RuntimeStack(int maxNestingLevel) {
+        this(maxNestingLevel, INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxNestingLevel the deepest nesting level of any routine.
+     * @param capacity        the number of frames the stack holds before it grows.
+     */
+    public RuntimeStack(int maxNestingLevel, int capacity) {
+        frames = new StackFrame[Math.max(capacity, 1)];
+        display = new RuntimeDisplay(maxNestingLevel);
+        top = -1;
     }
 
     /**
@@ -29,33 +46,52 @@ public class RuntimeStack extends ArrayList<StackFrame> {
         return display.getStackFrame(nestingLevel);
     }
 
+    /**
+     * Get the stack frame on top of the stack.
+     *
+     * @return the stack frame, or null if the stack is empty.
+     */
+    public StackFrame top() {
+        return top >= 0 ? frames[top] : null;
+    }
+
+    /**
+     * Get the number of frames on the stack.
+     *
+     * @return the count.
+     */
+    public int size() {
+        return top + 1;
+    }
+
     /**
      * Get the current nesting level.
      *
      * @return the current level.
      */
     public int currentNestingLevel() {
-        int topIndex = size() - 1;
-        return topIndex >= 0 ? get(topIndex).getNestingLevel() : -1;
+        return top >= 0 ? frames[top].getNestingLevel() : -1;
     }
 
     /**
      * Push a stack frame onto the stack for a routine being called.
+     * A full stack doubles, so the depth of calls is bounded only
+     * by the Java stack of the executing thread.
      *
      * @param frame the stack frame to push.
      */
     public void push(StackFrame frame) {
-        int nestingLevel = frame.getNestingLevel();
+        if (top == frames.length - 1) frames = Arrays.copyOf(frames, 2 * frames.length);
 
-        add(frame);
-        display.callUpdate(nestingLevel, frame);
+        frames[++top] = frame;
+        display.callUpdate(frame.getNestingLevel(), frame);
     }
 
     /**
      * Pop a stack frame off the stack for a returning routine.
      */
     public void pop() {
-        display.returnUpdate(currentNestingLevel());
-        remove(size() - 1);
+        display.returnUpdate(frames[top].getNestingLevel());
+        frames[top--] = null;  // don't retain the popped frame's memory
     }
 }
@@ -24,8 +24,17 @@ public class StackFrame {
      * @param routineId the symbol table entry of the routine's name.
      */
     public StackFrame(SymTableEntry routineId) {
-        SymTable symTable = routineId.getRoutineSymTable();
+        this(routineId, routineId.getRoutineSymTable());
+    }
 
+    /**
+     * Constructor for a frame whose symbol table isn't the routine's own,
+     * such as the frame of the @main method.
+     *
+     * @param routineId the symbol table entry of the routine's name.
+     * @param symTable  the symbol table to allocate the frame from.
+     */
+    public StackFrame(SymTableEntry routineId, SymTable symTable) {
         this.routineId = routineId;
         this.backlink = null;
         this.nestingLevel = symTable.getNestingLevel();
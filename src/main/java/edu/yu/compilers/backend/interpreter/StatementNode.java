@@ -0,0 +1,24 @@
+package edu.yu.compilers.backend.interpreter;
+
+/**
+ * <h1>StatementNode</h1>
+ * <p>A statement of a compiled routine. Executing a statement returns
+ * how it transferred control.</p>
+ */
+@FunctionalInterface
+public interface StatementNode {
+    int NORMAL = 0;    // continue with the next statement
+    int BREAK = 1;     // exit the enclosing loop
+    int CONTINUE = 2;  // start the enclosing loop's next iteration
+    int RETURN = 3;    // return from the routine
+    int RESTART = 4;   // start the routine over with the parameters it assigned
+
+    /**
+     * Execute the statement.
+     *
+     * @param executor the execution.
+     * @param locals   the slots of the routine's locals.
+     * @return NORMAL, BREAK, CONTINUE, RETURN, or RESTART.
+     */
+    int execute(Executor executor, Object[] locals);
+}
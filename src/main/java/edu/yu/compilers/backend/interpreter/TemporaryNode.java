@@ -0,0 +1,36 @@
+package edu.yu.compilers.backend.interpreter;
+
+/**
+ * <h1>TemporaryNode</h1>
+ * <p>A common subexpression of a compiled routine, whose value is kept
+ * in a slot of the locals. The source stores its value each time it is
+ * evaluated, unless it flagged a runtime error. A repetition loads the
+ * value, or evaluates its own expression if there is none, so that an
+ * error is reported as often as it would be without the node. Every
+ * slot starts without a value when the routine is called.</p>
+ */
+class TemporaryNode implements ExpressionNode {
+    private final int slot;              // slot of the kept value
+    private final boolean source;        // true to store, false to load
+    private final ExpressionNode expr;   // the common subexpression
+
+    TemporaryNode(int slot, boolean source, ExpressionNode expr) {
+        this.slot = slot;
+        this.source = source;
+        this.expr = expr;
+    }
+
+    @Override
+    public Object evaluate(Executor executor, Object[] locals) {
+        if (!source) {
+            Object value = locals[slot];
+            return value != InvariantNode.UNCACHED ? value : expr.evaluate(executor, locals);
+        }
+
+        int errors = executor.errorCount();
+        Object value = expr.evaluate(executor, locals);
+
+        locals[slot] = executor.errorCount() == errors ? value : InvariantNode.UNCACHED;
+        return value;
+    }
+}
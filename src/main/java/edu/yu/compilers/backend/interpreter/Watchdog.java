@@ -0,0 +1,33 @@
+package edu.yu.compilers.backend.interpreter;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h1>Watchdog</h1>
+ * <p>A single daemon thread that enforces the wall-clock limits
+ * of all executions.</p>
+ */
+final class Watchdog {
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "javana-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Watchdog() {
+    }
+
+    /**
+     * Run an action once a time limit has passed.
+     *
+     * @param millis the time limit in milliseconds.
+     * @param action the action.
+     * @return the alarm, to cancel if the execution finishes in time.
+     */
+    static ScheduledFuture<?> arm(long millis, Runnable action) {
+        return TIMER.schedule(action, millis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -9,7 +9,9 @@ import edu.yu.compilers.intermediate.symtable.SymTableEntry;
 import edu.yu.compilers.intermediate.symtable.SymTableStack;
 import edu.yu.compilers.intermediate.type.TypeChecker;
 import edu.yu.compilers.intermediate.type.Typespec;
+import edu.yu.compilers.intermediate.util.ConstantPool;
 import edu.yu.compilers.intermediate.util.CrossReferencer;
+import edu.yu.compilers.intermediate.util.FormatRecipe;
 import org.antlr.v4.runtime.tree.ParseTree;
 
 import java.util.*;
@@ -25,13 +27,16 @@ public class Semantics extends JavanaBaseVisitor<Object> {
     private SymTableStack symTableStack;
     private SymTableStack tempTableStack  = new SymTableStack();
     private final SemanticErrorHandler error;
+    private final ConstantPool constants;
     private SymTableEntry programId;
+    private final HashSet<SymTableEntry> checking = new HashSet<>();  // functions whose bodies are being checked
 
     public Semantics() {
 
         this.symTableStack = new SymTableStack();
         Predefined.initialize(symTableStack);
         this.error = new SemanticErrorHandler();
+        this.constants = new ConstantPool();
     }
 
     /**
@@ -58,6 +63,10 @@ public class Semantics extends JavanaBaseVisitor<Object> {
         return programId;
     }
 
+    public ConstantPool getConstantPool() {
+        return constants;
+    }
+
     public void printSymbolTableStack() {
         CrossReferencer crossReferencer = new CrossReferencer();
         crossReferencer.print(symTableStack);
@@ -377,9 +386,8 @@ public class Semantics extends JavanaBaseVisitor<Object> {
             ArrayList<SymTableEntry> parameters = functionId.getRoutineParameters();
             checkCallArguments(exprList, parameters);
 
-            if(ctx.getStart().getLine() == 83){
-                int dd = 2;
-            }
+            // A recursive call doesn't check the body again.
+            if (!checking.add(functionId)) return null;
 
             updateTempStack();
             SymTableStack hodl = symTableStack;
@@ -391,7 +399,7 @@ public class Semantics extends JavanaBaseVisitor<Object> {
             symTableStack.pop();
             symTableStack = hodl;
             updateRealStack();
-
+            checking.remove(functionId);
         }
 
 
@@ -1158,6 +1166,44 @@ public class Semantics extends JavanaBaseVisitor<Object> {
         return "a";
     }
 
+    /**
+     * Split a literal format string once, check the arguments against
+     * its conversions, and attach the recipe to the call for the backends.
+     *
+     * @param ctx the PrintfCallContext.
+     * @return null.
+     */
+    @Override
+    public Object visitPrintfCall(JavanaParser.PrintfCallContext ctx) {
+        visit(ctx.formatString);
+
+        List<JavanaParser.ExpressionContext> argCtxs =
+                ((JavanaParser.PrintFArgsListContext) ctx.argsList()).expression();
+        Object[] args = new Object[argCtxs.size()];
+        for (int i = 0; i < args.length; i++) args[i] = visit(argCtxs.get(i));
+
+        FormatRecipe recipe = FormatRecipe.split(ctx);
+        if (recipe == null) return null;
+
+        if (recipe.getArgumentCount() != args.length) {
+            error.flag(ARGUMENT_COUNT_MISMATCH, ctx.start.getLine(), ctx.getText());
+            return null;
+        }
+
+        // %d can't print a string or a boolean.
+        boolean valid = true;
+        for (int i = 0; i < args.length; i++) {
+            if ((recipe.getConversions().get(i) == FormatRecipe.INTEGER)
+                    && ((args[i] instanceof CharSequence) || (args[i] instanceof Boolean))) {
+                error.flag(TYPE_MUST_BE_INTEGER, argCtxs.get(i).start.getLine(), argCtxs.get(i).getText());
+                valid = false;
+            }
+        }
+
+        if (valid) ctx.recipe = recipe;
+        return null;
+    }
+
     @Override
     public Object visitStringCharToValCall(JavanaParser.StringCharToValCallContext ctx) {
         return 0;
@@ -1382,6 +1428,10 @@ public class Semantics extends JavanaBaseVisitor<Object> {
 
         boolean oneIsInt = TypeChecker.returnType(lhs).getIdentifier().getName().equals("integer") || TypeChecker.returnType(rhs).getIdentifier().getName().equals("integer");
 
+        //in case one is a typespec
+        if(TypeChecker.oneIsTypeSpecOneIsActualType(lhs, rhs)){
+            return lhs;
+        }
 
         if (TypeChecker.returnType(rhs) != TypeChecker.returnType(lhs)) {
             if (oneIsInt) {
@@ -1561,7 +1611,7 @@ public class Semantics extends JavanaBaseVisitor<Object> {
      */
     @Override
     public Object visitIntegerLiteral(JavanaParser.IntegerLiteralContext ctx) {
-        return Integer.parseInt(ctx.INTEGER().getText());
+        return constants.literal(ctx);
     }
 
     /**
@@ -1574,7 +1624,7 @@ public class Semantics extends JavanaBaseVisitor<Object> {
      */
     @Override
     public Object visitBooleanLiteral(JavanaParser.BooleanLiteralContext ctx) {
-        return Boolean.parseBoolean(ctx.BOOL().getText());
+        return constants.literal(ctx);
     }
 
     /**
@@ -1587,7 +1637,7 @@ public class Semantics extends JavanaBaseVisitor<Object> {
      */
     @Override
     public Object visitStringLiteral(JavanaParser.StringLiteralContext ctx) {
-        return ctx.STRING().getText();
+        return constants.literal(ctx);
     }
 
 
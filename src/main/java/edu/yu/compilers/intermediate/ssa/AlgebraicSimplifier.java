@@ -0,0 +1,454 @@
+/**
+ * <h1>AlgebraicSimplifier</h1>
+ * <p>Replace integer operations by cheaper ones that compute the same
+ * value. Adding or subtracting 0, and multiplying or dividing by 1,
+ * leave an integer operand as it is. Multiplying by a power of two is a
+ * left shift. Dividing by a power of two, or taking the remainder, is a
+ * right shift or a mask if the dividend is never negative, and otherwise
+ * a shift or mask with a bias that rounds toward zero as division does.
+ * A negated comparison becomes the opposite comparison, a doubly negated
+ * boolean becomes the boolean, and a constant on the left of a comparison
+ * moves to the right, so that common subexpression elimination finds
+ * more.</p>
+ * <p>In a loop, a multiplication of an induction variable, a phi of the
+ * loop's header that each iteration steps by a constant, by a constant
+ * becomes a phi of its own that each iteration steps by the product.
+ * Integer arithmetic wraps around, so that is exact even on overflow.
+ * The new phi is only in the representation, and the backends still
+ * evaluate the multiplication as written.</p>
+ * <p>An identity is removed only if its operand is certainly an integer
+ * or a boolean, so that no runtime error goes unreported. Where both an
+ * operation and its replacement were built from an expression, the
+ * expression is marked with its simplification for the backends.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+import antlr4.JavanaParser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static edu.yu.compilers.intermediate.ssa.Opcode.*;
+
+public class AlgebraicSimplifier implements SsaPass {
+
+    @Override
+    public String getName() {
+        return "operations simplified";
+    }
+
+    @Override
+    public int run(SsaProgram program) {
+        int count = 0;
+
+        for (SsaFunction function : program.getAllFunctions()) {
+            int simplified = 0;
+
+            for (BasicBlock block : function.getBlocks()) {
+                for (Operation operation : new ArrayList<>(block.getOperations())) {
+                    if ((operation.getBlock() != null) && simplify(function, operation)) simplified++;
+                }
+            }
+
+            simplified += reduceInductions(function);
+            if (simplified > 0) function.inferTypes();
+
+            count += simplified;
+        }
+
+        return count;
+    }
+
+    /**
+     * Simplify an operation.
+     *
+     * @return true if it was replaced.
+     */
+    private static boolean simplify(SsaFunction function, Operation operation) {
+        return switch (operation.getOpcode()) {
+            case ADD -> identity(function, operation, 1, 0) || identity(function, operation, 0, 0);
+            case SUB -> identity(function, operation, 1, 0);
+            case MUL -> identity(function, operation, 1, 1) || identity(function, operation, 0, 1)
+                    || shiftLeft(function, operation, 1) || shiftLeft(function, operation, 0);
+            case DIV -> identity(function, operation, 1, 1) || divide(function, operation);
+            case REM -> remainder(function, operation);
+            case LT, LE, GT, GE -> mirror(function, operation);
+            case NOT -> negate(function, operation) || doubleNegate(function, operation);
+            default -> false;
+        };
+    }
+
+    /**
+     * Replace an operation by one operand if the other is its identity.
+     *
+     * @param index    the index of the operand that must be the identity.
+     * @param identity 0 or 1.
+     */
+    private static boolean identity(SsaFunction function, Operation operation, int index, int identity) {
+        Value other = operation.getOperand(1 - index);
+        if (!isConstant(operation.getOperand(index), identity) || (other.getType() != SsaType.INT)) return false;
+
+        mark(function, operation, Simplification.Kind.OPERAND, 1 - index, 0);
+        function.replace(operation, other);
+        return true;
+    }
+
+    /**
+     * Replace a multiplication by a power of two by a left shift.
+     *
+     * @param index the index of the operand that must be the power.
+     */
+    private static boolean shiftLeft(SsaFunction function, Operation operation, int index) {
+        int k = log2(operation.getOperand(index));
+        if (k < 0) return false;
+
+        mark(function, operation, Simplification.Kind.SHIFT_LEFT, 1 - index, k);
+        function.replace(operation, emit(function, operation, SHL, operation.getOperand(1 - index),
+                                         function.constant(k)));
+        return true;
+    }
+
+    /**
+     * Replace a division by a power of two by a right shift, after
+     * adding 2^k - 1 to a dividend that may be negative.
+     */
+    private static boolean divide(SsaFunction function, Operation operation) {
+        int k = log2(operation.getOperand(1));
+        if (k < 0) return false;
+
+        Value x = operation.getOperand(0);
+        Value result;
+
+        if (isNonNegative(x)) {
+            mark(function, operation, Simplification.Kind.SHIFT_RIGHT, 0, k);
+            result = emit(function, operation, SHR, x, function.constant(k));
+        } else {
+            mark(function, operation, Simplification.Kind.DIVIDE, 0, k);
+            Operation bias = bias(function, operation, x, k);
+            Operation biased = emit(function, operation, ADD, x, bias);
+            result = emit(function, operation, SHR, biased, function.constant(k));
+        }
+
+        function.replace(operation, result);
+        return true;
+    }
+
+    /**
+     * Replace a remainder by a power of two by a mask, after adding
+     * 2^k - 1 to a dividend that may be negative and subtracting it
+     * from the result.
+     */
+    private static boolean remainder(SsaFunction function, Operation operation) {
+        int k = log2(operation.getOperand(1));
+        if (k < 0) return false;
+
+        Value x = operation.getOperand(0);
+        Constant mask = function.constant((1 << k) - 1);
+        Value result;
+
+        if (isNonNegative(x)) {
+            mark(function, operation, Simplification.Kind.MASK, 0, k);
+            result = emit(function, operation, AND, x, mask);
+        } else {
+            mark(function, operation, Simplification.Kind.REMAINDER, 0, k);
+            Operation bias = bias(function, operation, x, k);
+            Operation biased = emit(function, operation, ADD, x, bias);
+            result = emit(function, operation, SUB, emit(function, operation, AND, biased, mask), bias);
+        }
+
+        function.replace(operation, result);
+        return true;
+    }
+
+    /**
+     * Emit (x >> 31) >>> (32 - k), which is 2^k - 1 if x is negative
+     * and 0 otherwise.
+     */
+    private static Operation bias(SsaFunction function, Operation operation, Value x, int k) {
+        Operation sign = emit(function, operation, SHR, x, function.constant(31));
+        return emit(function, operation, USHR, sign, function.constant(32 - k));
+    }
+
+    /**
+     * Move a constant on the left of a comparison to the right.
+     */
+    private static boolean mirror(SsaFunction function, Operation operation) {
+        if (!(operation.getOperand(0) instanceof Constant) || (operation.getOperand(1) instanceof Constant)) {
+            return false;
+        }
+
+        Opcode opcode = switch (operation.getOpcode()) {
+            case LT -> GT;
+            case LE -> GE;
+            case GT -> LT;
+            default -> LE;
+        };
+
+        function.replace(operation, emit(function, operation, opcode,
+                                         operation.getOperand(1), operation.getOperand(0)));
+        return true;
+    }
+
+    /**
+     * Replace the negation of a comparison that nothing else uses by
+     * the opposite comparison.
+     */
+    private static boolean negate(SsaFunction function, Operation operation) {
+        if (!(operation.getOperand(0) instanceof Operation comparison) || (comparison.getUsers().size() != 1)) {
+            return false;
+        }
+
+        Opcode opcode = switch (comparison.getOpcode()) {
+            case LT -> GE;
+            case LE -> GT;
+            case GT -> LE;
+            case GE -> LT;
+            case EQ -> NE;
+            case NE -> EQ;
+            default -> null;
+        };
+        if (opcode == null) return false;
+
+        if ((operation.getContext() instanceof JavanaParser.NotExpressionContext notCtx)
+                && (function.valueOf(notCtx) == operation)
+                && (stripped(notCtx.expression()) instanceof JavanaParser.RelationalExpressionContext relCtx)
+                && (function.valueOf(relCtx) == comparison)) {
+            notCtx.simplified = new Simplification(notCtx, Simplification.Kind.NEGATED_COMPARISON, relCtx, 0);
+        }
+
+        function.replace(operation, emit(function, operation, opcode,
+                                         comparison.getOperand(0), comparison.getOperand(1)));
+        comparison.remove();
+        return true;
+    }
+
+    /**
+     * Replace the negation of a negated boolean by the boolean.
+     */
+    private static boolean doubleNegate(SsaFunction function, Operation operation) {
+        if (!(operation.getOperand(0) instanceof Operation inner) || (inner.getOpcode() != NOT)
+                || (inner.getOperand(0).getType() != SsaType.BOOL)) {
+            return false;
+        }
+
+        Value x = inner.getOperand(0);
+
+        if ((operation.getContext() instanceof JavanaParser.NotExpressionContext notCtx)
+                && (function.valueOf(notCtx) == operation)
+                && (stripped(notCtx.expression()) instanceof JavanaParser.NotExpressionContext innerCtx)
+                && (function.valueOf(innerCtx) == inner) && (innerCtx.simplified == null)) {
+            notCtx.simplified = new Simplification(notCtx, Simplification.Kind.OPERAND, innerCtx.expression(), 0);
+        }
+
+        function.replace(operation, x);
+        if (inner.getUsers().isEmpty()) inner.remove();
+        return true;
+    }
+
+    // ===================
+    // Induction variables
+    // ===================
+
+    /**
+     * Replace each multiplication of an induction variable by a constant
+     * by an induction variable of its own.
+     *
+     * @return the number of multiplications replaced.
+     */
+    private static int reduceInductions(SsaFunction function) {
+        DominatorTree dominators = new DominatorTree(function);
+        int count = 0;
+
+        for (BasicBlock header : function.getBlocks()) {
+            for (Operation phi : new ArrayList<>(header.getPhis())) {
+                if (!isInduction(phi, dominators)) continue;
+
+                HashMap<Integer, Operation> reduced = new HashMap<>();  // factor -> its induction variable
+
+                for (Operation user : new ArrayList<>(phi.getUsers())) {
+                    if ((user.getBlock() == null) || (user.getOpcode() != MUL)) continue;
+
+                    Value factor = user.getOperand(0) == phi ? user.getOperand(1) : user.getOperand(0);
+                    if (!(factor instanceof Constant c) || !(c.getValue() instanceof Integer k) || (k == 0)) continue;
+
+                    Operation induction = reduced.computeIfAbsent(k, f -> newInduction(function, dominators, phi, f));
+                    function.replace(user, induction);
+                    count++;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Determine whether a phi is an induction variable: an integer that
+     * some back edge brings to its header, and each back edge brings
+     * stepped by a constant.
+     */
+    private static boolean isInduction(Operation phi, DominatorTree dominators) {
+        if (phi.getType() != SsaType.INT) return false;
+
+        BasicBlock header = phi.getBlock();
+        boolean loops = false;
+
+        for (int i = 0; i < phi.getOperands().size(); i++) {
+            if (dominators.dominates(header, header.getPredecessors().get(i))) {
+                if (step(phi, phi.getOperand(i)) == null) return false;
+                loops = true;
+            }
+        }
+
+        return loops;
+    }
+
+    /**
+     * Get the constant that an induction variable is stepped by.
+     *
+     * @param phi   the induction variable.
+     * @param value the value that a back edge brings.
+     * @return the step, or null if it isn't one.
+     */
+    private static Integer step(Operation phi, Value value) {
+        if (value == phi) return 0;
+        if (!(value instanceof Operation operation)) return null;
+
+        if ((operation.getOpcode() == ADD) && (operation.getOperand(0) == phi)
+                && (operation.getOperand(1) instanceof Constant c) && (c.getValue() instanceof Integer n)) {
+            return n;
+        } else if ((operation.getOpcode() == ADD) && (operation.getOperand(1) == phi)
+                && (operation.getOperand(0) instanceof Constant c) && (c.getValue() instanceof Integer n)) {
+            return n;
+        } else if ((operation.getOpcode() == SUB) && (operation.getOperand(0) == phi)
+                && (operation.getOperand(1) instanceof Constant c) && (c.getValue() instanceof Integer n)) {
+            return -n;
+        }
+
+        return null;
+    }
+
+    /**
+     * Create an induction variable that is always another one times a
+     * factor. Each entry to the loop multiplies the initial value, and
+     * each step adds the step times the factor right after the other
+     * variable's step.
+     *
+     * @return the new phi.
+     */
+    private static Operation newInduction(SsaFunction function, DominatorTree dominators, Operation phi, int factor) {
+        BasicBlock header = phi.getBlock();
+        Operation induction = function.newOperation(PHI, null, null);
+        HashMap<Operation, Operation> steps = new HashMap<>();
+
+        header.append(induction);
+
+        for (int i = 0; i < phi.getOperands().size(); i++) {
+            BasicBlock predecessor = header.getPredecessors().get(i);
+            Value value = phi.getOperand(i);
+
+            if (value == phi) {
+                induction.addOperand(induction);
+            } else if (dominators.dominates(header, predecessor)) {
+                induction.addOperand(steps.computeIfAbsent((Operation) value, s -> {
+                    Operation add = function.newOperation(ADD, null, null);
+                    add.addOperand(induction);
+                    add.addOperand(function.constant(step(phi, s) * factor));
+
+                    List<Operation> operations = s.getBlock().getOperations();
+                    s.getBlock().insertBefore(add, operations.get(operations.indexOf(s) + 1));
+                    return add;
+                }));
+            } else if ((value instanceof Constant c) && (c.getValue() instanceof Integer n)) {
+                induction.addOperand(function.constant(n * factor));
+            } else {
+                Operation initial = function.newOperation(MUL, null, null);
+                initial.addOperand(value);
+                initial.addOperand(function.constant(factor));
+                predecessor.insertBeforeTerminator(initial);
+                induction.addOperand(initial);
+            }
+        }
+
+        return induction;
+    }
+
+    // =======
+    // Helpers
+    // =======
+
+    /**
+     * Create an operation built from the same expression as another,
+     * and insert it before the other.
+     */
+    private static Operation emit(SsaFunction function, Operation before, Opcode opcode, Value... operands) {
+        Operation operation = function.newOperation(opcode, null, before.getContext());
+        for (Value operand : operands) operation.addOperand(operand);
+
+        before.getBlock().insertBefore(operation, before);
+        return operation;
+    }
+
+    /**
+     * Mark a binary arithmetic expression with its simplification, if
+     * the operation is its value and the operand that the simplification
+     * skips is a constant that evaluating has no effects.
+     *
+     * @param index the index of the operand that it evaluates.
+     */
+    private static void mark(SsaFunction function, Operation operation, Simplification.Kind kind, int index, int k) {
+        if (!((operation.getContext() instanceof JavanaParser.ArithmeticExpressionContext)
+              || (operation.getContext() instanceof JavanaParser.HigherArithmeticExpressionContext))) {
+            return;
+        }
+
+        JavanaParser.ExpressionContext exprCtx = (JavanaParser.ExpressionContext) operation.getContext();
+        JavanaParser.ExpressionContext operandCtx = exprCtx.getRuleContext(JavanaParser.ExpressionContext.class, index);
+        JavanaParser.ExpressionContext skippedCtx = exprCtx.getRuleContext(JavanaParser.ExpressionContext.class, 1 - index);
+
+        if ((function.valueOf(exprCtx) == operation) && (exprCtx.simplified == null)
+                && ((skippedCtx.folded != null) || (stripped(skippedCtx) instanceof JavanaParser.LiteralExpressionContext))) {
+            exprCtx.simplified = new Simplification(exprCtx, kind, operandCtx, k);
+        }
+    }
+
+    private static JavanaParser.ExpressionContext stripped(JavanaParser.ExpressionContext exprCtx) {
+        while (exprCtx instanceof JavanaParser.ParenthesizedExpressionContext parenCtx) exprCtx = parenCtx.expression();
+        return exprCtx;
+    }
+
+    private static boolean isConstant(Value value, int n) {
+        return (value instanceof Constant c) && (c.getValue() instanceof Integer i) && (i == n);
+    }
+
+    /**
+     * Get k if a value is the constant 2^k, for k from 1 to 30.
+     *
+     * @return k, or -1 if it isn't.
+     */
+    private static int log2(Value value) {
+        if (!(value instanceof Constant c) || !(c.getValue() instanceof Integer n) || (n < 2) || ((n & (n - 1)) != 0)) {
+            return -1;
+        }
+
+        return Integer.numberOfTrailingZeros(n);
+    }
+
+    /**
+     * Determine whether an integer value is certainly never negative.
+     */
+    private static boolean isNonNegative(Value value) {
+        if (value instanceof Constant c) return (c.getValue() instanceof Integer n) && (n >= 0);
+        if (!(value instanceof Operation operation)) return false;
+
+        return switch (operation.getOpcode()) {
+            case LENGTH, CHAR_TO_VAL -> true;
+            case SHR, REM -> isNonNegative(operation.getOperand(0));
+            case USHR -> (operation.getOperand(1) instanceof Constant c) && (c.getValue() instanceof Integer n)
+                         && ((n & 31) != 0);
+            case AND -> isNonNegative(operation.getOperand(0)) || isNonNegative(operation.getOperand(1));
+            default -> false;
+        };
+    }
+}
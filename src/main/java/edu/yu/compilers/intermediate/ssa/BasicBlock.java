@@ -0,0 +1,121 @@
+/**
+ * <h1>BasicBlock</h1>
+ * <p>A basic block of the control flow graph: its phis, then operations
+ * that execute in order, the last of which is a terminator. A branch's
+ * first successor is where it goes when its condition is true.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BasicBlock {
+    private final int id;
+    private final ArrayList<Operation> phis;
+    private final ArrayList<Operation> operations;  // ending with the terminator
+    private final ArrayList<BasicBlock> predecessors;
+    private final ArrayList<BasicBlock> successors;
+
+    BasicBlock(int id) {
+        this.id = id;
+        this.phis = new ArrayList<>();
+        this.operations = new ArrayList<>();
+        this.predecessors = new ArrayList<>();
+        this.successors = new ArrayList<>();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public List<Operation> getPhis() {
+        return phis;
+    }
+
+    public List<Operation> getOperations() {
+        return operations;
+    }
+
+    public List<BasicBlock> getPredecessors() {
+        return predecessors;
+    }
+
+    public List<BasicBlock> getSuccessors() {
+        return successors;
+    }
+
+    /**
+     * Get the terminator.
+     *
+     * @return the last operation if it is a jump, branch, or return,
+     * else null while the block is still being built.
+     */
+    public Operation getTerminator() {
+        Operation last = operations.isEmpty() ? null : operations.get(operations.size() - 1);
+        return (last != null) && last.getOpcode().isTerminator() ? last : null;
+    }
+
+    void append(Operation operation) {
+        operation.setBlock(this);
+        if (operation.isPhi()) phis.add(operation);
+        else operations.add(operation);
+    }
+
+    /**
+     * Insert an operation before the terminator.
+     *
+     * @param operation the operation.
+     */
+    public void insertBeforeTerminator(Operation operation) {
+        operation.setBlock(this);
+        int index = getTerminator() != null ? operations.size() - 1 : operations.size();
+        operations.add(index, operation);
+    }
+
+    /**
+     * Insert an operation before another one of the block.
+     *
+     * @param operation the operation.
+     * @param next      the operation to insert it before.
+     */
+    void insertBefore(Operation operation, Operation next) {
+        operation.setBlock(this);
+        operations.add(operations.indexOf(next), operation);
+    }
+
+    void remove(Operation operation) {
+        if (operation.isPhi()) phis.remove(operation);
+        else operations.remove(operation);
+    }
+
+    void addSuccessor(BasicBlock successor) {
+        successors.add(successor);
+        successor.predecessors.add(this);
+    }
+
+    /**
+     * Remove the edge to a successor, along with the phi operands
+     * that came over it.
+     *
+     * @param successor the successor.
+     */
+    void removeSuccessor(BasicBlock successor) {
+        successors.remove(successor);
+
+        int index = successor.predecessors.indexOf(this);
+        successor.predecessors.remove(index);
+        for (Operation phi : successor.phis) {
+            if (phi.getOperands().size() > index) phi.removeOperand(index);
+        }
+    }
+
+    public String getName() {
+        return "b" + id;
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
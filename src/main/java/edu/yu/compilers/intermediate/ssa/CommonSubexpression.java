@@ -0,0 +1,85 @@
+/**
+ * <h1>CommonSubexpression</h1>
+ * <p>An expression that computes the same value as an earlier one, found
+ * by common subexpression elimination, or the earlier expression itself,
+ * which is the source. The source is evaluated first on every path to
+ * its repetitions, so a backend can keep its value in a temporary and
+ * load the temporary at each repetition instead of evaluating it again.
+ * The temporary is declared before the statement that contains the
+ * source, which also contains the repetitions or comes before them in
+ * the same block.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+import antlr4.JavanaParser;
+
+import java.util.List;
+
+public class CommonSubexpression {
+    private final JavanaParser.ExpressionContext ctx;
+    private final CommonSubexpression source;   // this if it is the source
+    private final JavanaParser.StatementContext stmtCtx;  // where the source's temporary is declared
+    private final SsaType type;
+
+    /**
+     * Constructor for a source.
+     */
+    CommonSubexpression(JavanaParser.ExpressionContext ctx, JavanaParser.StatementContext stmtCtx, SsaType type) {
+        this.ctx = ctx;
+        this.source = this;
+        this.stmtCtx = stmtCtx;
+        this.type = type;
+    }
+
+    /**
+     * Constructor for a repetition.
+     */
+    CommonSubexpression(JavanaParser.ExpressionContext ctx, CommonSubexpression source) {
+        this.ctx = ctx;
+        this.source = source;
+        this.stmtCtx = source.stmtCtx;
+        this.type = source.type;
+    }
+
+    /**
+     * Get the common subexpression that an expression is.
+     *
+     * @param ctx the ExpressionContext.
+     * @return the source or repetition, or null if it is neither.
+     */
+    public static CommonSubexpression of(JavanaParser.ExpressionContext ctx) {
+        return (CommonSubexpression) ctx.common;
+    }
+
+    /**
+     * Get the sources whose temporaries are declared before a statement.
+     *
+     * @param stmtCtx the StatementContext.
+     * @return the sources, in source order, which can be empty.
+     */
+    @SuppressWarnings("unchecked")
+    public static List<CommonSubexpression> declaredBefore(JavanaParser.StatementContext stmtCtx) {
+        return stmtCtx.temporaries != null ? (List<CommonSubexpression>) stmtCtx.temporaries : List.of();
+    }
+
+    public JavanaParser.ExpressionContext getContext() {
+        return ctx;
+    }
+
+    public boolean isSource() {
+        return source == this;
+    }
+
+    public CommonSubexpression getSource() {
+        return source;
+    }
+
+    public JavanaParser.StatementContext getStatement() {
+        return stmtCtx;
+    }
+
+    public SsaType getType() {
+        return type;
+    }
+}
@@ -0,0 +1,286 @@
+/**
+ * <h1>CommonSubexpressionEliminator</h1>
+ * <p>Replace each operation that computes the same value as an earlier
+ * one by the earlier one. Two operations are the same if they have the
+ * same opcode, symbol, and operands, in either order for a commutative
+ * opcode. A pure operation is replaced by one in the same block or in a
+ * dominating block, found by walking the dominator tree with a scoped
+ * table. A read is replaced only by one earlier in the same block with
+ * no write in between that may change what it reads: a store to the
+ * same program variable, a store to a field of the same name, a store
+ * to any array element, or a call, which may store anything.</p>
+ * <p>Where both operations were built from expressions, the expressions
+ * are marked as common subexpressions, so that a backend can keep the
+ * value of the earlier one in a temporary and load it for the later.
+ * An expression is marked only if evaluating the earlier one is all
+ * that evaluating the later one would do.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+import antlr4.JavanaParser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static edu.yu.compilers.intermediate.ssa.Opcode.*;
+
+public class CommonSubexpressionEliminator implements SsaPass {
+    private static final Set<Opcode> COMMUTATIVE = EnumSet.of(ADD, MUL, AND, EQ, NE);
+
+    /**
+     * What makes two operations compute the same value.
+     */
+    private record Key(Opcode opcode, String symbol, List<Value> operands) {
+        static Key of(Operation operation) {
+            List<Value> operands = operation.getOperands();
+
+            if (COMMUTATIVE.contains(operation.getOpcode()) && (operands.get(0).getId() > operands.get(1).getId())) {
+                operands = List.of(operands.get(1), operands.get(0));
+            }
+
+            return new Key(operation.getOpcode(), operation.getSymbol(), List.copyOf(operands));
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "common subexpressions eliminated";
+    }
+
+    @Override
+    public int run(SsaProgram program) {
+        int count = 0;
+
+        for (SsaFunction function : program.getAllFunctions()) {
+            DominatorTree dominators = new DominatorTree(function);
+            LinkedHashMap<Operation, Operation> replaced = new LinkedHashMap<>();  // later -> earlier
+
+            eliminate(function, dominators, function.getEntry(), new HashMap<>(), replaced);
+            count += replaced.size();
+
+            if (function.getKind() != SsaFunction.Kind.INITIALIZER) mark(function, replaced);
+        }
+
+        return count;
+    }
+
+    /**
+     * Replace the operations of a block and of the blocks it dominates.
+     *
+     * @param available the pure operations of the blocks that dominate it.
+     * @param replaced  where to record each replaced operation.
+     */
+    private static void eliminate(SsaFunction function, DominatorTree dominators, BasicBlock block,
+                                  HashMap<Key, Operation> available, LinkedHashMap<Operation, Operation> replaced) {
+        ArrayList<Key> added = new ArrayList<>();
+        HashMap<Key, Operation> reads = new HashMap<>();
+
+        for (Operation operation : new ArrayList<>(block.getOperations())) {
+            switch (operation.getOpcode().getEffect()) {
+                case PURE -> {
+                    Key key = Key.of(operation);
+                    Operation earlier = available.get(key);
+
+                    if (earlier != null) {
+                        function.replace(operation, earlier);
+                        replaced.put(operation, earlier);
+                    } else {
+                        available.put(key, operation);
+                        added.add(key);
+                    }
+                }
+                case READ -> {
+                    Key key = Key.of(operation);
+                    Operation earlier = reads.get(key);
+
+                    if (earlier != null) {
+                        function.replace(operation, earlier);
+                        replaced.put(operation, earlier);
+                    } else {
+                        reads.put(key, operation);
+                    }
+                }
+                case WRITE -> kill(reads, operation);
+            }
+        }
+
+        for (BasicBlock child : dominators.getChildren(block)) {
+            eliminate(function, dominators, child, available, replaced);
+        }
+
+        for (Key key : added) available.remove(key);
+    }
+
+    /**
+     * Forget the reads that a write may change.
+     */
+    private static void kill(HashMap<Key, Operation> reads, Operation write) {
+        switch (write.getOpcode()) {
+            case STORE_GLOBAL -> reads.keySet().removeIf(key -> (key.opcode() == LOAD_GLOBAL)
+                                                            && key.symbol().equals(write.getSymbol()));
+            case STORE_FIELD -> reads.keySet().removeIf(key -> (key.opcode() == LOAD_FIELD)
+                                                           && key.symbol().equals(write.getSymbol()));
+            case STORE_ELEMENT -> reads.keySet().removeIf(key -> key.opcode() == LOAD_ELEMENT);
+            case CALL -> reads.clear();
+            default -> {}
+        }
+    }
+
+    // =======
+    // Marking
+    // =======
+
+    /**
+     * Mark the expressions of the replaced operations and of the ones
+     * that replaced them.
+     */
+    private static void mark(SsaFunction function, LinkedHashMap<Operation, Operation> replaced) {
+        HashSet<ParserRuleContext> evaluated = new HashSet<>();  // contexts of the remaining operations
+
+        for (BasicBlock block : function.getBlocks()) {
+            for (Operation phi : block.getPhis()) evaluated.add(phi.getContext());
+            for (Operation operation : block.getOperations()) evaluated.add(operation.getContext());
+        }
+
+        LinkedHashMap<Operation, CommonSubexpression> sources = new LinkedHashMap<>();
+        ArrayList<CommonSubexpression> repetitions = new ArrayList<>();
+
+        for (var entry : replaced.entrySet()) {
+            Operation earlier = entry.getValue();
+
+            if (!(entry.getKey().getContext() instanceof JavanaParser.ExpressionContext exprCtx)
+                    || !isMarkable(function, exprCtx, earlier) || isEvaluated(exprCtx, evaluated)
+                    || !(earlier.getContext() instanceof JavanaParser.ExpressionContext sourceCtx)
+                    || !(sourceCtx.common == null ? isSource(function, sourceCtx, earlier)
+                                                  : CommonSubexpression.of(sourceCtx).isSource())) {
+                continue;
+            }
+
+            JavanaParser.StatementContext stmtCtx = statementOf(sourceCtx);
+            if ((stmtCtx == null) || !isInside(exprCtx, stmtCtx.getParent())) continue;
+
+            CommonSubexpression source = sources.computeIfAbsent(earlier, e -> {
+                CommonSubexpression common = new CommonSubexpression(sourceCtx, stmtCtx, e.getType());
+
+                sourceCtx.common = common;
+                declare(stmtCtx, common);
+                return common;
+            });
+
+            CommonSubexpression repetition = new CommonSubexpression(exprCtx, source);
+            exprCtx.common = repetition;
+            repetitions.add(repetition);
+        }
+
+        // A repetition inside another one is never evaluated, and
+        // a source whose repetitions are all gone needs no temporary.
+        HashSet<CommonSubexpression> used = new HashSet<>();
+
+        for (CommonSubexpression repetition : repetitions) {
+            if (isInsideRepetition(repetition.getContext())) repetition.getContext().common = null;
+            else used.add(repetition.getSource());
+        }
+
+        for (CommonSubexpression source : sources.values()) {
+            if (!used.contains(source)) {
+                source.getContext().common = null;
+                ((List<?>) source.getStatement().temporaries).remove(source);
+            }
+        }
+    }
+
+    private static boolean isInsideRepetition(ParserRuleContext ctx) {
+        for (ParserRuleContext parent = ctx.getParent(); parent != null; parent = parent.getParent()) {
+            if ((parent instanceof JavanaParser.ExpressionContext exprCtx) && (exprCtx.common != null)
+                    && !CommonSubexpression.of(exprCtx).isSource()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isMarkable(SsaFunction function, JavanaParser.ExpressionContext exprCtx, Operation value) {
+        return !(exprCtx instanceof JavanaParser.IdentifierExpressionContext)
+                && (exprCtx.folded == null) && (exprCtx.common == null)
+                && (function.valueOf(exprCtx) == value);
+    }
+
+    /**
+     * Determine whether an expression can be the source of a common
+     * subexpression: every backend evaluates it where it is written.
+     * The condition and update of a counted for statement and the
+     * substring or char of a string compare or conversion may not be.
+     */
+    private static boolean isSource(SsaFunction function, JavanaParser.ExpressionContext sourceCtx,
+                                    Operation operation) {
+        if (!isMarkable(function, sourceCtx, operation)) return false;
+
+        ParserRuleContext child = sourceCtx;
+        for (ParserRuleContext parent = child.getParent(); parent != null; parent = parent.getParent()) {
+            if ((parent instanceof JavanaParser.ForStatementContext forCtx)
+                    && ((child == forCtx.condition) || (child == forCtx.updateExpr))) {
+                return false;
+            }
+
+            child = parent;
+        }
+
+        if ((sourceCtx instanceof JavanaParser.SubstringExpressionContext)
+                || (sourceCtx instanceof JavanaParser.CharAtExpressionContext)) {
+            ParserRuleContext parent = sourceCtx.getParent();
+            while (parent instanceof JavanaParser.ParenthesizedExpressionContext) parent = parent.getParent();
+
+            return !(parent instanceof JavanaParser.EqualityExpressionContext)
+                    && !(parent instanceof JavanaParser.StringEqualsContext)
+                    && !(parent instanceof JavanaParser.StringCharToValCallContext);
+        }
+
+        return true;
+    }
+
+    private static boolean isEvaluated(ParseTree tree, HashSet<ParserRuleContext> evaluated) {
+        if (evaluated.contains(tree)) return true;
+
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            if (isEvaluated(tree.getChild(i), evaluated)) return true;
+        }
+
+        return false;
+    }
+
+    private static JavanaParser.StatementContext statementOf(ParserRuleContext ctx) {
+        while ((ctx != null) && !(ctx instanceof JavanaParser.StatementContext)) ctx = ctx.getParent();
+        return (JavanaParser.StatementContext) ctx;
+    }
+
+    private static boolean isInside(ParserRuleContext ctx, ParserRuleContext ancestor) {
+        for (; ctx != null; ctx = ctx.getParent()) {
+            if (ctx == ancestor) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Declare a source's temporary before its statement, keeping the
+     * statement's temporaries in source order.
+     */
+    @SuppressWarnings("unchecked")
+    private static void declare(JavanaParser.StatementContext stmtCtx, CommonSubexpression source) {
+        if (stmtCtx.temporaries == null) stmtCtx.temporaries = new ArrayList<CommonSubexpression>();
+
+        List<CommonSubexpression> temporaries = (List<CommonSubexpression>) stmtCtx.temporaries;
+        temporaries.add(source);
+        temporaries.sort(Comparator.comparingInt(common -> common.getContext().getStart().getTokenIndex()));
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * <h1>Constant</h1>
+ * <p>A constant value: an integer, a boolean, a string, or None. Each
+ * function has one constant of each value. The undefined constant is
+ * what a variable reads as on a path that can't be executed.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+public class Constant extends Value {
+    static final Object UNDEFINED = new Object();
+
+    private final Object value;  // Integer, Boolean, String, null for None, or UNDEFINED
+
+    Constant(int id, Object value) {
+        super(id, typeOf(value));
+        this.value = value;
+    }
+
+    private static SsaType typeOf(Object value) {
+        if (value instanceof Integer) return SsaType.INT;
+        else if (value instanceof Boolean) return SsaType.BOOL;
+        else if (value instanceof String) return SsaType.STRING;
+        else return SsaType.ANY;
+    }
+
+    /**
+     * Get the constant's value.
+     *
+     * @return the Integer, Boolean, or String, or null for None.
+     */
+    public Object getValue() {
+        return value != UNDEFINED ? value : null;
+    }
+
+    public boolean isUndefined() {
+        return value == UNDEFINED;
+    }
+
+    @Override
+    public String getName() {
+        if (value == UNDEFINED) return "undef";
+        else if (value == null) return "None";
+        else if (value instanceof String s) return quoted(s);
+        else return value.toString();
+    }
+
+    private static String quoted(String s) {
+        StringBuilder buffer = new StringBuilder("\"");
+
+        for (char ch : s.toCharArray()) {
+            switch (ch) {
+                case '"' -> buffer.append("\\\"");
+                case '\\' -> buffer.append("\\\\");
+                case '\n' -> buffer.append("\\n");
+                case '\t' -> buffer.append("\\t");
+                case '\r' -> buffer.append("\\r");
+                default -> buffer.append(ch);
+            }
+        }
+
+        return buffer.append('"').toString();
+    }
+}
@@ -0,0 +1,476 @@
+/**
+ * <h1>ConstantFolder</h1>
+ * <p>Fold constant expressions and propagate constants with sparse
+ * conditional constant propagation: each value is unknown, a constant,
+ * or varying, and only the blocks that can be reached without taking
+ * a branch on a constant condition the other way are evaluated. An
+ * operation folds only if evaluating it can't flag a runtime error,
+ * so that a folded program behaves exactly as the original does. A
+ * program constant or variable that is only stored once, by the
+ * initializer, with a constant, folds wherever it's loaded.</p>
+ * <p>The branches on constant conditions become jumps, which removes
+ * the blocks they no longer reach. The value of each expression that
+ * folds is attached to its parse tree node for the backends, which
+ * then don't evaluate the expression at all.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+import antlr4.JavanaBaseVisitor;
+import antlr4.JavanaParser;
+import edu.yu.compilers.runtime.JavanaInput;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+
+import static edu.yu.compilers.intermediate.ssa.Opcode.*;
+
+public class ConstantFolder implements SsaPass {
+    private static final Object VARYING = new Object();  // lattice bottom; unknown is absent
+
+    private final HashMap<String, Operation> globals;    // program name -> its only store of a constant
+    private final HashMap<Value, Object> lattice;        // value -> Constant or VARYING
+    private final HashSet<BasicBlock> executable;
+    private final HashSet<Edge> executableEdges;
+    private final ArrayDeque<Edge> edgeWork;
+    private final ArrayDeque<Operation> operationWork;
+    private SsaFunction initializer;
+    private SsaFunction function;
+
+    private record Edge(BasicBlock from, BasicBlock to) {}
+
+    public ConstantFolder() {
+        this.globals = new HashMap<>();
+        this.lattice = new HashMap<>();
+        this.executable = new HashSet<>();
+        this.executableEdges = new HashSet<>();
+        this.edgeWork = new ArrayDeque<>();
+        this.operationWork = new ArrayDeque<>();
+    }
+
+    /**
+     * Get the value that an expression folded to.
+     *
+     * @param ctx the ExpressionContext.
+     * @return the constant, or null if it didn't fold.
+     */
+    public static Constant constantOf(JavanaParser.ExpressionContext ctx) {
+        return (Constant) ctx.folded;
+    }
+
+    @Override
+    public String getName() {
+        return "operations folded";
+    }
+
+    @Override
+    public int run(SsaProgram program) {
+        int count = 0;
+        initializer = program.getInitializer();
+        globals.clear();
+
+        // Fold the initializer until no more program names become constant,
+        // since one constant can be defined by the value of another.
+        if (initializer != null) {
+            HashSet<String> candidates = candidates(program, initializer);
+
+            do {
+                count += fold(initializer);
+            } while (findGlobals(initializer, candidates));
+        }
+
+        for (SsaFunction f : program.getAllFunctions()) {
+            if (f != initializer) count += fold(f);
+        }
+
+        for (SsaFunction f : program.getAllFunctions()) annotate(f);
+
+        return count;
+    }
+
+    // ================
+    // Program names
+    // ================
+
+    /**
+     * Find the program names that might be constant: those that the
+     * initializer stores exactly once and nothing else stores or assigns,
+     * including the routines that couldn't be built. An initializer that
+     * calls a function could have the function store them first.
+     */
+    private static HashSet<String> candidates(SsaProgram program, SsaFunction initializer) {
+        HashSet<String> candidates = new HashSet<>();
+        HashMap<String, Integer> stores = new HashMap<>();
+
+        for (BasicBlock block : initializer.getBlocks()) {
+            for (Operation operation : block.getOperations()) {
+                if (operation.getOpcode() == CALL) return candidates;
+                if (operation.getOpcode() == STORE_GLOBAL) stores.merge(operation.getSymbol(), 1, Integer::sum);
+            }
+        }
+
+        stores.forEach((name, n) -> {
+            if (n == 1) candidates.add(name);
+        });
+
+        for (SsaFunction f : program.getAllFunctions()) {
+            if (f == initializer) continue;
+
+            for (BasicBlock block : f.getBlocks()) {
+                for (Operation operation : block.getOperations()) {
+                    if (operation.getOpcode() == STORE_GLOBAL) candidates.remove(operation.getSymbol());
+                }
+            }
+        }
+
+        // Assignments anywhere in the source, which covers the routines
+        // that weren't built.
+        new JavanaBaseVisitor<Void>() {
+            @Override
+            public Void visitAssignmentStatement(JavanaParser.AssignmentStatementContext ctx) {
+                candidates.remove(ctx.var.name.getText());
+                return visitChildren(ctx);
+            }
+
+            @Override
+            public Void visitForStatement(JavanaParser.ForStatementContext ctx) {
+                JavanaParser.IdentifierExpressionContext targetCtx = SsaBuilder.updateTarget(ctx.updateExpr);
+                if (targetCtx != null) candidates.remove(targetCtx.getText());
+
+                return visitChildren(ctx);
+            }
+        }.visit(program.getContext());
+
+        return candidates;
+    }
+
+    /**
+     * Record the candidates whose stores now store constants.
+     *
+     * @return true if there are new ones.
+     */
+    private boolean findGlobals(SsaFunction initializer, HashSet<String> candidates) {
+        boolean found = false;
+
+        for (BasicBlock block : initializer.getBlocks()) {
+            for (Operation operation : block.getOperations()) {
+                String name = operation.getSymbol();
+
+                if ((operation.getOpcode() == STORE_GLOBAL) && candidates.contains(name)
+                        && !globals.containsKey(name)
+                        && (operation.getOperand(0) instanceof Constant c) && !c.isUndefined()) {
+                    globals.put(name, operation);
+                    found = true;
+                }
+            }
+        }
+
+        return found;
+    }
+
+    // =====================================
+    // Sparse conditional constant propagation
+    // =====================================
+
+    /**
+     * Fold the operations of a function.
+     *
+     * @return the number of operations folded.
+     */
+    private int fold(SsaFunction f) {
+        function = f;
+        lattice.clear();
+        executable.clear();
+        executableEdges.clear();
+
+        edgeWork.add(new Edge(null, f.getEntry()));
+
+        while (!edgeWork.isEmpty() || !operationWork.isEmpty()) {
+            while (!edgeWork.isEmpty()) {
+                Edge edge = edgeWork.remove();
+                if ((edge.from() != null) && !executableEdges.add(edge)) continue;
+
+                BasicBlock block = edge.to();
+                for (Operation phi : block.getPhis()) visit(phi);
+
+                if (executable.add(block)) {
+                    for (Operation operation : block.getOperations()) visit(operation);
+                }
+            }
+
+            while (!operationWork.isEmpty()) {
+                Operation operation = operationWork.remove();
+                if (executable.contains(operation.getBlock())) visit(operation);
+            }
+        }
+
+        return rewrite();
+    }
+
+    private void visit(Operation operation) {
+        switch (operation.getOpcode()) {
+            case JUMP -> markEdge(operation.getBlock(), 0);
+            case BRANCH -> {
+                Object condition = latticeValue(operation.getOperand(0));
+
+                if ((condition instanceof Constant c) && (c.getValue() instanceof Boolean b)) {
+                    markEdge(operation.getBlock(), b ? 0 : 1);
+                } else if (condition != null) {
+                    markEdge(operation.getBlock(), 0);
+                    markEdge(operation.getBlock(), 1);
+                }
+            }
+            case RETURN -> {}
+            default -> {
+                Object value = operation.isPhi() ? meet(operation) : evaluate(operation);
+                if ((value == null) || Objects.equals(value, lattice.get(operation))) return;
+
+                lattice.put(operation, value);
+                operationWork.addAll(operation.getUsers());
+            }
+        }
+    }
+
+    private void markEdge(BasicBlock block, int index) {
+        Edge edge = new Edge(block, block.getSuccessors().get(index));
+        if (!executableEdges.contains(edge)) edgeWork.add(edge);
+    }
+
+    /**
+     * Get a value in the lattice: a Constant, VARYING, or null if unknown.
+     */
+    private Object latticeValue(Value value) {
+        if (value instanceof Constant c) return c.isUndefined() ? VARYING : c;
+        else if (value instanceof Operation operation) return lattice.get(operation);
+        else return VARYING;  // parameter
+    }
+
+    /**
+     * Merge the values of a phi that arrive over executable edges.
+     */
+    private Object meet(Operation phi) {
+        List<BasicBlock> predecessors = phi.getBlock().getPredecessors();
+        Object result = null;
+
+        for (int i = 0; i < phi.getOperands().size(); i++) {
+            if (!executableEdges.contains(new Edge(predecessors.get(i), phi.getBlock()))) continue;
+
+            Object value = latticeValue(phi.getOperand(i));
+            if ((value == null) || (value == result)) continue;
+            if ((value == VARYING) || (result != null)) return VARYING;
+            result = value;
+        }
+
+        return result;
+    }
+
+    /**
+     * Evaluate an operation in the lattice.
+     */
+    private Object evaluate(Operation operation) {
+        Opcode opcode = operation.getOpcode();
+
+        if (opcode == LOAD_GLOBAL) {
+            // The initializer can load a name before it stores it.
+            Operation store = globals.get(operation.getSymbol());
+            boolean stored = (store != null) && ((function != initializer) || (operation.getId() > store.getId()));
+            return stored ? function.constant(((Constant) store.getOperand(0)).getValue()) : VARYING;
+        }
+        if ((opcode == LENGTH) && (operation.getOperand(0) instanceof Operation array)
+                && (array.getOpcode() == NEW_ARRAY)) {
+            Object size = latticeValue(array.getOperand(0));
+            if (!(size instanceof Constant c)) return size;
+            return (c.getValue() instanceof Integer n) && (n >= 0) ? function.constant(n) : VARYING;
+        }
+        if (opcode.getEffect() != Opcode.Effect.PURE) return VARYING;
+
+        Object[] values = new Object[operation.getOperands().size()];
+        for (int i = 0; i < values.length; i++) {
+            Object value = latticeValue(operation.getOperand(i));
+            if (value == VARYING) return VARYING;
+            if (value == null) return null;
+            values[i] = ((Constant) value).getValue();
+        }
+
+        Object result = fold(opcode, values);
+        return result != VARYING ? function.constant(result) : VARYING;
+    }
+
+    /**
+     * Compute an operation on constants as the interpreter does.
+     *
+     * @param opcode the operation.
+     * @param values the values of the operands.
+     * @return the result, or VARYING if evaluating it would flag
+     * a runtime error or it isn't computed at compile time.
+     */
+    static Object fold(Opcode opcode, Object... values) {
+        switch (opcode) {
+            case ADD, SUB, MUL, DIV, REM, SHL, SHR, USHR, AND, LT, LE, GT, GE -> {
+                if (!(values[0] instanceof Integer a) || !(values[1] instanceof Integer b)) return VARYING;
+
+                return switch (opcode) {
+                    case ADD -> a + b;
+                    case SUB -> a - b;
+                    case MUL -> a * b;
+                    case DIV -> b != 0 ? (Object) (a / b) : VARYING;
+                    case REM -> b != 0 ? (Object) (a % b) : VARYING;
+                    case SHL -> a << b;
+                    case SHR -> a >> b;
+                    case USHR -> a >>> b;
+                    case AND -> a & b;
+                    case LT -> a < b;
+                    case LE -> a <= b;
+                    case GT -> a > b;
+                    default -> a >= b;
+                };
+            }
+            case EQ -> {
+                return Objects.equals(values[0], values[1]);
+            }
+            case NE -> {
+                return !Objects.equals(values[0], values[1]);
+            }
+            case NOT -> {
+                return values[0] instanceof Boolean b ? (Object) !b : VARYING;
+            }
+            case TEST -> {
+                return values[0] instanceof Boolean ? values[0] : VARYING;
+            }
+            case CONCAT -> {
+                return String.valueOf(values[0]) + values[1];
+            }
+            case LENGTH -> {
+                return values[0] instanceof String s ? (Object) s.length() : VARYING;
+            }
+            case CHAR_AT -> {
+                if (!(values[0] instanceof String s) || !(values[1] instanceof Integer i)) return VARYING;
+                return (i >= 0) && (i < s.length()) ? String.valueOf(s.charAt(i)) : VARYING;
+            }
+            case CHAR_TO_VAL -> {
+                return (values[0] instanceof String s) && !s.isEmpty() ? (Object) (int) s.charAt(0) : VARYING;
+            }
+            case SUBSTRING -> {
+                if (!(values[0] instanceof String s) || !(values[1] instanceof Integer b)
+                        || !(values[2] instanceof Integer e)) {
+                    return VARYING;
+                }
+                return (b >= 0) && (e <= s.length()) && (b <= e) ? s.substring(b, e) : VARYING;
+            }
+            case STRING_TO_INT -> {
+                if (!(values[0] instanceof String s)) return VARYING;
+
+                try {
+                    return JavanaInput.parseInt(s);
+                } catch (NumberFormatException ex) {
+                    return VARYING;
+                }
+            }
+            default -> {
+                return VARYING;
+            }
+        }
+    }
+
+    /**
+     * Replace the operations that folded by their constants, and the
+     * branches on constant conditions by jumps.
+     *
+     * @return the number of operations folded.
+     */
+    private int rewrite() {
+        int count = 0;
+
+        for (BasicBlock block : new ArrayList<>(function.getBlocks())) {
+            if (!executable.contains(block)) continue;
+
+            ArrayList<Operation> operations = new ArrayList<>(block.getPhis());
+            operations.addAll(block.getOperations());
+
+            for (Operation operation : operations) {
+                Object value = lattice.get(operation);
+
+                if ((operation.getOpcode() == BRANCH)
+                        && (latticeValue(operation.getOperand(0)) instanceof Constant c)
+                        && (c.getValue() instanceof Boolean b)) {
+                    BasicBlock taken = block.getSuccessors().get(b ? 0 : 1);
+                    BasicBlock untaken = block.getSuccessors().get(b ? 1 : 0);
+                    if (taken == untaken) continue;
+
+                    Operation jump = function.newOperation(JUMP, null, operation.getContext());
+                    operation.remove();
+                    block.append(jump);
+                    block.removeSuccessor(untaken);
+                    count++;
+                } else if (value instanceof Constant c) {
+                    function.replace(operation, c);
+                    count++;
+                }
+            }
+        }
+
+        if (count > 0) {
+            function.removeUnreachableBlocks();
+            function.removeTrivialPhis();
+            function.inferTypes();
+        }
+
+        return count;
+    }
+
+    // ===========================
+    // Facts for the backends
+    // ===========================
+
+    /**
+     * Attach the constant value of each expression of a function that
+     * folded to its parse tree node. An expression qualifies only if
+     * every subexpression that it evaluates is constant too, so that
+     * not evaluating them skips no side effects or runtime errors.
+     */
+    private static void annotate(SsaFunction f) {
+        for (ParserRuleContext ctx : f.getExpressions()) {
+            if (!(ctx instanceof JavanaParser.ExpressionContext exprCtx)
+                    || (exprCtx instanceof JavanaParser.LiteralExpressionContext)) {
+                continue;
+            }
+
+            if ((f.valueOf(exprCtx) instanceof Constant c) && !c.isUndefined() && isFree(f, exprCtx)) {
+                exprCtx.folded = c;
+            }
+        }
+    }
+
+    /**
+     * Determine whether the subexpressions of an expression that are
+     * evaluated are all constants, or arrays of constant sizes whose
+     * lengths are taken.
+     */
+    private static boolean isFree(SsaFunction f, ParseTree tree) {
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            ParseTree child = tree.getChild(i);
+
+            if (child instanceof JavanaParser.ExpressionContext exprCtx) {
+                Value value = f.valueOf(exprCtx);
+
+                if (value == null) continue;  // never evaluated
+                if (!((value instanceof Constant c) && !c.isUndefined())
+                        && !((value instanceof Operation operation) && (operation.getOpcode() == NEW_ARRAY)
+                             && (operation.getOperand(0) instanceof Constant size)
+                             && (size.getValue() instanceof Integer n) && (n >= 0))) {
+                    return false;
+                }
+            }
+
+            if (!isFree(f, child)) return false;
+        }
+
+        return true;
+    }
+}
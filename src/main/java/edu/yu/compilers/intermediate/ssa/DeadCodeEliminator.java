@@ -0,0 +1,371 @@
+/**
+ * <h1>DeadCodeEliminator</h1>
+ * <p>Remove the code that can't affect a program's behavior. Within each
+ * routine, an operation whose value isn't used is removed if it has no
+ * side effect and can't flag a runtime error. The statements that can't
+ * be reached, such as those after a return, break, or continue or in
+ * a branch of an if statement whose condition folded, are marked dead
+ * in the parse tree, as is the definition of a local variable or
+ * constant that is never used and whose value is free to compute.</p>
+ * <p>Across the program, a function that can't be reached from main or
+ * the program's initialization through the call graph is removed and
+ * its definition marked dead, and so is a program record type that no
+ * live code or live record type names. The backends don't translate
+ * what is marked dead.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+import antlr4.JavanaBaseVisitor;
+import antlr4.JavanaParser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static edu.yu.compilers.intermediate.ssa.Opcode.*;
+
+public class DeadCodeEliminator implements SsaPass {
+
+    @Override
+    public String getName() {
+        return "dead operations, statements, functions, and records removed";
+    }
+
+    @Override
+    public int run(SsaProgram program) {
+        int count = 0;
+
+        for (SsaFunction function : program.getAllFunctions()) {
+            count += removeDeadOperations(function);
+        }
+
+        count += removeDeadFunctions(program);
+
+        for (SsaFunction function : program.getAllFunctions()) {
+            if (function.getKind() != SsaFunction.Kind.INITIALIZER) count += markDeadStatements(function);
+        }
+
+        count += markDeadRecords(program);
+
+        return count;
+    }
+
+    // ==========
+    // Operations
+    // ==========
+
+    /**
+     * Remove the operations whose values aren't used, repeating until
+     * none are left, since removing one can leave its operands unused.
+     *
+     * @return the number of operations removed.
+     */
+    private static int removeDeadOperations(SsaFunction function) {
+        int count = 0;
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+
+            for (BasicBlock block : function.getBlocks()) {
+                ArrayList<Operation> operations = new ArrayList<>(block.getPhis());
+                operations.addAll(block.getOperations());
+
+                for (int i = operations.size() - 1; i >= 0; i--) {
+                    Operation operation = operations.get(i);
+
+                    if (isUnused(operation) && isRemovable(operation)) {
+                        operation.remove();
+                        count++;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        return count;
+    }
+
+    private static boolean isUnused(Operation operation) {
+        for (Operation user : operation.getUsers()) {
+            if (user != operation) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Determine whether an operation can be removed if its value isn't used:
+     * it only computes or reads a value and can't flag, or it creates an
+     * array of a size that can't be negative.
+     */
+    private static boolean isRemovable(Operation operation) {
+        Opcode opcode = operation.getOpcode();
+
+        if (opcode == NEW_ARRAY) {
+            return (operation.getOperand(0) instanceof Constant size)
+                    && (size.getValue() instanceof Integer n) && (n >= 0);
+        }
+
+        return (opcode.getEffect() != Opcode.Effect.WRITE) && !operation.mayFlag();
+    }
+
+    // =========
+    // Functions
+    // =========
+
+    /**
+     * Remove the functions that main and the initializer can't call,
+     * directly or indirectly. The calls of a function that wasn't built
+     * are found in its parse tree.
+     *
+     * @return the number of functions removed.
+     */
+    private static int removeDeadFunctions(SsaProgram program) {
+        LinkedHashMap<String, JavanaParser.FuncDefinitionContext> definitions = functionDefinitions(program);
+        HashSet<String> live = new HashSet<>();
+        ArrayList<String> work = new ArrayList<>();
+
+        work.addAll(callees(program.getMain(), program.getContext().main));
+        if (program.getInitializer() != null) {
+            work.addAll(callees(program.getInitializer(), null));
+        } else {
+            for (JavanaParser.GlobalDefinitionsContext defCtx : program.getContext().defs) {
+                if (!isFunctionDefinition(defCtx)) work.addAll(callees(null, defCtx));
+            }
+        }
+
+        while (!work.isEmpty()) {
+            String name = work.remove(work.size() - 1);
+            JavanaParser.FuncDefinitionContext funcCtx = definitions.get(name);
+
+            if ((funcCtx != null) && live.add(name)) {
+                work.addAll(callees(program.getFunction(name), funcCtx));
+            }
+        }
+
+        int count = 0;
+
+        for (var entry : definitions.entrySet()) {
+            if (!live.contains(entry.getKey())) {
+                entry.getValue().dead = true;
+                program.remove(entry.getKey());
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private static LinkedHashMap<String, JavanaParser.FuncDefinitionContext> functionDefinitions(SsaProgram program) {
+        LinkedHashMap<String, JavanaParser.FuncDefinitionContext> definitions = new LinkedHashMap<>();
+
+        for (JavanaParser.GlobalDefinitionsContext defCtx : program.getContext().defs) {
+            if (isFunctionDefinition(defCtx)) {
+                JavanaParser.FuncDefinitionContext funcCtx = defCtx.nameDeclDefStatement().funcDefinition();
+                definitions.put(funcCtx.proto.name.getText(), funcCtx);
+            }
+        }
+
+        return definitions;
+    }
+
+    private static boolean isFunctionDefinition(JavanaParser.GlobalDefinitionsContext defCtx) {
+        return (defCtx.nameDeclDefStatement() != null) && (defCtx.nameDeclDefStatement().funcDefinition() != null);
+    }
+
+    /**
+     * Get the names of the functions that a routine calls.
+     *
+     * @param function the routine, or null if it wasn't built.
+     * @param tree     its parse tree, which is searched if it wasn't built.
+     * @return the names.
+     */
+    private static List<String> callees(SsaFunction function, ParseTree tree) {
+        ArrayList<String> names = new ArrayList<>();
+
+        if (function != null) {
+            for (BasicBlock block : function.getBlocks()) {
+                for (Operation operation : block.getOperations()) {
+                    if (operation.getOpcode() == CALL) names.add(operation.getSymbol());
+                }
+            }
+        } else {
+            new JavanaBaseVisitor<Void>() {
+                @Override
+                public Void visitFunctionCall(JavanaParser.FunctionCallContext ctx) {
+                    names.add(ctx.name.getText());
+                    return visitChildren(ctx);
+                }
+            }.visit(tree);
+        }
+
+        return names;
+    }
+
+    // ==========
+    // Statements
+    // ==========
+
+    /**
+     * Mark the statements of a routine that can't be reached, which
+     * the blocks that remain don't contain, and the definitions of
+     * unused locals.
+     *
+     * @return the number of statements marked.
+     */
+    private static int markDeadStatements(SsaFunction function) {
+        HashMap<String, Integer> mentions = new HashMap<>();
+        HashSet<ParserRuleContext> evaluated = new HashSet<>();  // contexts of the remaining operations
+        ArrayList<JavanaParser.StatementContext> statements = new ArrayList<>();
+
+        new JavanaBaseVisitor<Void>() {
+            @Override
+            public Void visitStatement(JavanaParser.StatementContext ctx) {
+                statements.add(ctx);
+                return visitChildren(ctx);
+            }
+
+            @Override
+            public Void visitIdentifier(JavanaParser.IdentifierContext ctx) {
+                mentions.merge(ctx.getText(), 1, Integer::sum);
+                return null;
+            }
+        }.visit(function.getContext());
+
+        for (BasicBlock block : function.getBlocks()) {
+            for (Operation phi : block.getPhis()) evaluated.add(phi.getContext());
+            for (Operation operation : block.getOperations()) evaluated.add(operation.getContext());
+        }
+
+        int count = 0;
+
+        for (JavanaParser.StatementContext stmtCtx : statements) {
+            if (!function.getStatements().containsKey(stmtCtx) || isUnusedDefinition(stmtCtx, mentions, evaluated)) {
+                stmtCtx.dead = true;
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Determine whether a statement defines local variables or constants
+     * that are never mentioned again, with a value that no remaining
+     * operation computes any part of.
+     */
+    private static boolean isUnusedDefinition(JavanaParser.StatementContext stmtCtx,
+                                              HashMap<String, Integer> mentions,
+                                              HashSet<ParserRuleContext> evaluated) {
+        JavanaParser.NameDeclDefStatementContext declCtx = stmtCtx.nameDeclDefStatement();
+        if (declCtx == null) return false;
+
+        JavanaParser.NameListContext namesCtx;
+        JavanaParser.ExpressionContext exprCtx;
+
+        if (declCtx.variableDef() instanceof JavanaParser.VariableDefinitionContext varCtx) {
+            namesCtx = varCtx.namelst;
+            exprCtx = varCtx.expr;
+        } else if (declCtx.constantDef() instanceof JavanaParser.ConstantDefinitionContext constCtx) {
+            namesCtx = constCtx.namelst;
+            exprCtx = constCtx.expr;
+        } else {
+            return false;
+        }
+
+        HashMap<String, Integer> own = new HashMap<>();
+        for (JavanaParser.IdentifierContext nameCtx : namesCtx.names) own.merge(nameCtx.getText(), 1, Integer::sum);
+
+        for (var entry : own.entrySet()) {
+            if (!mentions.get(entry.getKey()).equals(entry.getValue())) return false;
+        }
+
+        return !isEvaluated(exprCtx, evaluated);
+    }
+
+    private static boolean isEvaluated(ParseTree tree, HashSet<ParserRuleContext> evaluated) {
+        if (evaluated.contains(tree)) return true;
+
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            if (isEvaluated(tree.getChild(i), evaluated)) return true;
+        }
+
+        return false;
+    }
+
+    // =======
+    // Records
+    // =======
+
+    /**
+     * Mark the program's record types that aren't named anywhere in live
+     * code or in the fields of a live record type.
+     *
+     * @return the number of record types marked.
+     */
+    private static int markDeadRecords(SsaProgram program) {
+        LinkedHashMap<String, JavanaParser.RecordDeclContext> records = new LinkedHashMap<>();
+        HashSet<String> names = new HashSet<>();
+
+        for (JavanaParser.GlobalDefinitionsContext defCtx : program.getContext().defs) {
+            JavanaParser.NameDeclStatementContext declCtx = defCtx.nameDeclStatement();
+
+            if ((declCtx != null) && (declCtx.recordDecl() != null)) {
+                records.put(declCtx.recordDecl().name.getText(), declCtx.recordDecl());
+            } else if (!isFunctionDefinition(defCtx) || !defCtx.nameDeclDefStatement().funcDefinition().dead) {
+                addNames(defCtx, names);
+            }
+        }
+        addNames(program.getContext().main, names);
+
+        // A live record type makes the types of its fields live.
+        ArrayList<String> work = new ArrayList<>(names);
+        HashSet<String> live = new HashSet<>();
+
+        while (!work.isEmpty()) {
+            String name = work.remove(work.size() - 1);
+            JavanaParser.RecordDeclContext recordCtx = records.get(name);
+
+            if ((recordCtx != null) && live.add(name)) {
+                HashSet<String> fieldNames = new HashSet<>();
+                for (JavanaParser.TypeAssocContext fieldCtx : recordCtx.fields) addNames(fieldCtx.t, fieldNames);
+                work.addAll(fieldNames);
+            }
+        }
+
+        int count = 0;
+
+        for (var entry : records.entrySet()) {
+            if (!live.contains(entry.getKey())) {
+                entry.getValue().dead = true;
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Add the names in a parse tree, including the element type names
+     * of record array types, which are single tokens such as P[].
+     */
+    private static void addNames(ParseTree tree, HashSet<String> names) {
+        new JavanaBaseVisitor<Void>() {
+            @Override
+            public Void visitTerminal(TerminalNode node) {
+                String text = node.getText();
+                int bracket = text.indexOf('[');
+
+                names.add(bracket > 0 ? text.substring(0, bracket).strip() : text);
+                return null;
+            }
+        }.visit(tree);
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * <h1>DominatorTree</h1>
+ * <p>The dominator tree of a function's blocks, computed with the simple,
+ * fast algorithm of Cooper, Harvey, and Kennedy over the blocks in
+ * reverse postorder. Block b dominates block c if every path from the
+ * entry block to c goes through b. The tree is only valid until the
+ * function's control flow changes.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+public class DominatorTree {
+    private final ArrayList<BasicBlock> order;                      // reverse postorder
+    private final HashMap<BasicBlock, Integer> index;               // block -> position in order
+    private final HashMap<BasicBlock, BasicBlock> idoms;            // block -> immediate dominator
+    private final HashMap<BasicBlock, List<BasicBlock>> children;   // block -> blocks it immediately dominates
+
+    /**
+     * Constructor.
+     *
+     * @param function the function.
+     */
+    public DominatorTree(SsaFunction function) {
+        this.order = reversePostorder(function.getEntry());
+        this.index = new HashMap<>();
+        this.idoms = new HashMap<>();
+        this.children = new HashMap<>();
+
+        for (int i = 0; i < order.size(); i++) index.put(order.get(i), i);
+
+        BasicBlock entry = function.getEntry();
+        idoms.put(entry, entry);
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            for (BasicBlock block : order.subList(1, order.size())) {
+                BasicBlock idom = null;
+
+                for (BasicBlock predecessor : block.getPredecessors()) {
+                    if (!idoms.containsKey(predecessor)) continue;  // not processed yet, or unreachable
+                    idom = idom == null ? predecessor : intersect(predecessor, idom);
+                }
+
+                if (idom != idoms.get(block)) {
+                    idoms.put(block, idom);
+                    changed = true;
+                }
+            }
+        }
+
+        for (BasicBlock block : order) children.put(block, new ArrayList<>());
+        for (BasicBlock block : order.subList(1, order.size())) children.get(idoms.get(block)).add(block);
+    }
+
+    private static ArrayList<BasicBlock> reversePostorder(BasicBlock entry) {
+        ArrayList<BasicBlock> postorder = new ArrayList<>();
+        HashSet<BasicBlock> visited = new HashSet<>();
+        ArrayList<BasicBlock> stack = new ArrayList<>(List.of(entry));
+        ArrayList<Integer> next = new ArrayList<>(List.of(0));  // next successor to visit, per stack entry
+        visited.add(entry);
+
+        while (!stack.isEmpty()) {
+            int top = stack.size() - 1;
+            BasicBlock block = stack.get(top);
+            int i = next.get(top);
+
+            if (i < block.getSuccessors().size()) {
+                next.set(top, i + 1);
+                BasicBlock successor = block.getSuccessors().get(i);
+
+                if (visited.add(successor)) {
+                    stack.add(successor);
+                    next.add(0);
+                }
+            } else {
+                postorder.add(block);
+                stack.remove(top);
+                next.remove(top);
+            }
+        }
+
+        Collections.reverse(postorder);
+        return postorder;
+    }
+
+    private BasicBlock intersect(BasicBlock a, BasicBlock b) {
+        while (a != b) {
+            while (index.get(a) > index.get(b)) a = idoms.get(a);
+            while (index.get(b) > index.get(a)) b = idoms.get(b);
+        }
+
+        return a;
+    }
+
+    /**
+     * Get the reachable blocks in reverse postorder, in which each block
+     * comes after its dominators.
+     *
+     * @return the blocks.
+     */
+    public List<BasicBlock> getOrder() {
+        return order;
+    }
+
+    /**
+     * Get the immediate dominator of a block.
+     *
+     * @param block the block.
+     * @return its immediate dominator, or null for the entry block.
+     */
+    public BasicBlock getIdom(BasicBlock block) {
+        BasicBlock idom = idoms.get(block);
+        return idom != block ? idom : null;
+    }
+
+    public List<BasicBlock> getChildren(BasicBlock block) {
+        return children.get(block);
+    }
+
+    /**
+     * Determine whether one block dominates another. Every block
+     * dominates itself.
+     *
+     * @param a the first block.
+     * @param b the second block.
+     * @return true if a dominates b.
+     */
+    public boolean dominates(BasicBlock a, BasicBlock b) {
+        while (b != null) {
+            if (a == b) return true;
+            b = getIdom(b);
+        }
+
+        return false;
+    }
+}
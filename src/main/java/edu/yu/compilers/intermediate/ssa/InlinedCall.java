@@ -0,0 +1,46 @@
+/**
+ * <h1>InlinedCall</h1>
+ * <p>A call of a function that is small enough, or called often enough,
+ * to be worth inlining, found by the inliner. The function can't call
+ * itself, directly or indirectly, so a backend can replace the call by
+ * the function's body, with the parameters and locals in the caller's
+ * own storage, and inline the body's inlined calls in turn.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+import antlr4.JavanaParser;
+
+public class InlinedCall {
+    private final JavanaParser.FunctionCallContext ctx;
+    private final JavanaParser.FuncDefinitionContext calleeCtx;
+    private final int size;  // operations of the callee, with its own inlined calls
+
+    InlinedCall(JavanaParser.FunctionCallContext ctx, JavanaParser.FuncDefinitionContext calleeCtx, int size) {
+        this.ctx = ctx;
+        this.calleeCtx = calleeCtx;
+        this.size = size;
+    }
+
+    /**
+     * Get the inlined call that a function call is.
+     *
+     * @param ctx the FunctionCallContext.
+     * @return the inlined call, or null if it isn't one.
+     */
+    public static InlinedCall of(JavanaParser.FunctionCallContext ctx) {
+        return (InlinedCall) ctx.inlined;
+    }
+
+    public JavanaParser.FunctionCallContext getContext() {
+        return ctx;
+    }
+
+    public JavanaParser.FuncDefinitionContext getCallee() {
+        return calleeCtx;
+    }
+
+    public int getSize() {
+        return size;
+    }
+}
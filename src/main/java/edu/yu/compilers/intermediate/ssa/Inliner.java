@@ -0,0 +1,250 @@
+/**
+ * <h1>Inliner</h1>
+ * <p>Decide which calls are worth inlining. A call is worth it if the
+ * callee is small, about the size of the call itself, or if the call is
+ * in a loop and the callee is of moderate size, since then the call's
+ * overhead is paid on every iteration. The size of a function is its
+ * count of operations, including those of the calls it inlines, so the
+ * functions are visited callees first through the call graph.</p>
+ * <p>Each routine may grow by at most a budget, and its calls in the
+ * deepest loops and to the smallest callees take the budget first. A
+ * function that can call itself, directly or through other functions,
+ * is never inlined, which keeps inlining finite. Neither is one that
+ * couldn't be built, whose size isn't known. Only the calls in function
+ * definitions are inlined, since main and the program's initialization
+ * run once.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+import antlr4.JavanaBaseVisitor;
+import antlr4.JavanaParser;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static edu.yu.compilers.intermediate.ssa.Opcode.*;
+
+public class Inliner implements SsaPass {
+    private static final int SMALL_SIZE = 12;    // largest callee inlined anywhere
+    private static final int LOOP_SIZE = 48;     // largest callee inlined in a loop
+    private static final int MIN_BUDGET = 64;    // growth allowed any routine, in operations
+
+    /**
+     * A call that may be inlined, and how deep in loops it is.
+     */
+    private record Site(Operation call, SsaFunction callee, int depth) {}
+
+    @Override
+    public String getName() {
+        return "calls inlined";
+    }
+
+    @Override
+    public int run(SsaProgram program) {
+        LinkedHashMap<String, JavanaParser.FuncDefinitionContext> definitions = functionDefinitions(program);
+        LinkedHashMap<String, LinkedHashSet<String>> calls = new LinkedHashMap<>();
+
+        for (var entry : definitions.entrySet()) {
+            calls.put(entry.getKey(), callees(program.getFunction(entry.getKey()), entry.getValue()));
+        }
+
+        HashSet<String> recursive = new HashSet<>();
+        List<String> order = new CallGraph(calls).callersLast(recursive);
+
+        HashMap<String, Integer> sizes = new HashMap<>();
+        int count = 0;
+
+        for (String name : order) {
+            SsaFunction function = program.getFunction(name);
+            if (function == null) continue;
+
+            int size = sizeOf(function);
+            int budget = Math.max(MIN_BUDGET, size);
+            int growth = 0;
+
+            for (Site site : sites(function, program, recursive, sizes)) {
+                int calleeSize = sizes.get(site.callee().getName());
+
+                if ((calleeSize <= (site.depth() > 0 ? LOOP_SIZE : SMALL_SIZE))
+                        && (growth + calleeSize - 1 <= budget)) {
+                    JavanaParser.FunctionCallContext callCtx = (JavanaParser.FunctionCallContext) site.call().getContext();
+
+                    callCtx.inlined = new InlinedCall(callCtx, definitions.get(site.callee().getName()), calleeSize);
+                    growth += calleeSize - 1;
+                    count++;
+                }
+            }
+
+            sizes.put(name, size + growth);
+        }
+
+        return count;
+    }
+
+    private static LinkedHashMap<String, JavanaParser.FuncDefinitionContext> functionDefinitions(SsaProgram program) {
+        LinkedHashMap<String, JavanaParser.FuncDefinitionContext> definitions = new LinkedHashMap<>();
+
+        for (JavanaParser.GlobalDefinitionsContext defCtx : program.getContext().defs) {
+            if ((defCtx.nameDeclDefStatement() != null) && (defCtx.nameDeclDefStatement().funcDefinition() != null)) {
+                JavanaParser.FuncDefinitionContext funcCtx = defCtx.nameDeclDefStatement().funcDefinition();
+                if (!funcCtx.dead) definitions.put(funcCtx.proto.name.getText(), funcCtx);
+            }
+        }
+
+        return definitions;
+    }
+
+    /**
+     * Get the names of the functions that a function calls, found in its
+     * parse tree if it wasn't built.
+     */
+    private static LinkedHashSet<String> callees(SsaFunction function, JavanaParser.FuncDefinitionContext funcCtx) {
+        LinkedHashSet<String> names = new LinkedHashSet<>();
+
+        if (function != null) {
+            for (BasicBlock block : function.getBlocks()) {
+                for (Operation operation : block.getOperations()) {
+                    if (operation.getOpcode() == CALL) names.add(operation.getSymbol());
+                }
+            }
+        } else {
+            new JavanaBaseVisitor<Void>() {
+                @Override
+                public Void visitFunctionCall(JavanaParser.FunctionCallContext ctx) {
+                    names.add(ctx.name.getText());
+                    return visitChildren(ctx);
+                }
+            }.visit(funcCtx);
+        }
+
+        return names;
+    }
+
+    private static int sizeOf(SsaFunction function) {
+        int size = 0;
+        for (BasicBlock block : function.getBlocks()) size += block.getOperations().size();
+
+        return size;
+    }
+
+    /**
+     * Get the calls of a function to functions that may be inlined,
+     * deepest in loops first, then smallest callee first.
+     */
+    private static List<Site> sites(SsaFunction function, SsaProgram program, HashSet<String> recursive,
+                                    HashMap<String, Integer> sizes) {
+        HashMap<BasicBlock, Integer> depths = loopDepths(function);
+        ArrayList<Site> sites = new ArrayList<>();
+
+        for (BasicBlock block : function.getBlocks()) {
+            for (Operation operation : block.getOperations()) {
+                if ((operation.getOpcode() != CALL) || recursive.contains(operation.getSymbol())) continue;
+
+                SsaFunction callee = program.getFunction(operation.getSymbol());
+                if ((callee != null) && (operation.getContext() instanceof JavanaParser.FunctionCallContext)) {
+                    sites.add(new Site(operation, callee, depths.getOrDefault(block, 0)));
+                }
+            }
+        }
+
+        sites.sort(Comparator.comparingInt((Site site) -> -site.depth())
+                             .thenComparingInt(site -> sizes.get(site.callee().getName())));
+        return sites;
+    }
+
+    /**
+     * Count the loops that each block of a function is in. A loop is
+     * found by a back edge to its header, which dominates the edge's
+     * source.
+     */
+    private static HashMap<BasicBlock, Integer> loopDepths(SsaFunction function) {
+        DominatorTree dominators = new DominatorTree(function);
+        HashMap<BasicBlock, Integer> depths = new HashMap<>();
+
+        for (BasicBlock block : dominators.getOrder()) {
+            for (BasicBlock header : block.getSuccessors()) {
+                if (!dominators.dominates(header, block)) continue;
+
+                HashSet<BasicBlock> body = new HashSet<>(List.of(header));
+                ArrayList<BasicBlock> work = new ArrayList<>(List.of(block));
+
+                while (!work.isEmpty()) {
+                    BasicBlock member = work.remove(work.size() - 1);
+                    if (body.add(member)) work.addAll(member.getPredecessors());
+                }
+
+                for (BasicBlock member : body) depths.merge(member, 1, Integer::sum);
+            }
+        }
+
+        return depths;
+    }
+
+    /**
+     * The call graph of the function definitions, whose strongly connected
+     * components are found with Tarjan's algorithm.
+     */
+    private static class CallGraph {
+        private final LinkedHashMap<String, LinkedHashSet<String>> calls;  // caller -> callees
+        private final HashMap<String, Integer> index = new HashMap<>();
+        private final HashMap<String, Integer> lowLink = new HashMap<>();
+        private final ArrayList<String> stack = new ArrayList<>();
+        private final HashSet<String> onStack = new HashSet<>();
+        private final ArrayList<String> order = new ArrayList<>();
+        private HashSet<String> recursive;
+
+        CallGraph(LinkedHashMap<String, LinkedHashSet<String>> calls) {
+            this.calls = calls;
+        }
+
+        /**
+         * Order the functions so that each comes after the functions it
+         * calls, except within a cycle.
+         *
+         * @param recursive where to add the functions that are in a cycle.
+         * @return the function names.
+         */
+        List<String> callersLast(HashSet<String> recursive) {
+            this.recursive = recursive;
+            for (String name : calls.keySet()) {
+                if (!index.containsKey(name)) connect(name);
+            }
+
+            return order;
+        }
+
+        private void connect(String name) {
+            index.put(name, index.size());
+            lowLink.put(name, index.get(name));
+            stack.add(name);
+            onStack.add(name);
+
+            for (String callee : calls.get(name)) {
+                if (!calls.containsKey(callee)) continue;  // not a live function definition
+
+                if (!index.containsKey(callee)) {
+                    connect(callee);
+                    lowLink.put(name, Math.min(lowLink.get(name), lowLink.get(callee)));
+                } else if (onStack.contains(callee)) {
+                    lowLink.put(name, Math.min(lowLink.get(name), index.get(callee)));
+                }
+            }
+
+            if (lowLink.get(name).equals(index.get(name))) {
+                int start = stack.lastIndexOf(name);
+                List<String> component = new ArrayList<>(stack.subList(start, stack.size()));
+                stack.subList(start, stack.size()).clear();
+                onStack.removeAll(component);
+
+                if ((component.size() > 1) || calls.get(name).contains(name)) recursive.addAll(component);
+                order.addAll(component);
+            }
+        }
+    }
+}
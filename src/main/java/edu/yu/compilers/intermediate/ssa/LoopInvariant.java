@@ -0,0 +1,71 @@
+/**
+ * <h1>LoopInvariant</h1>
+ * <p>An expression in a while or for statement whose value is the same
+ * in every iteration, found by loop-invariant code motion. A hoisted
+ * invariant can't flag a runtime error, so a backend can evaluate it
+ * once before the loop. Any other invariant must still be evaluated
+ * where it is, but a backend can keep its value from the first time
+ * and reuse it for the rest of the loop.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+import antlr4.JavanaParser;
+import org.antlr.v4.runtime.ParserRuleContext;
+
+import java.util.List;
+
+public class LoopInvariant {
+    private final JavanaParser.ExpressionContext ctx;
+    private final ParserRuleContext loopCtx;  // the WhileStatementContext or ForStatementContext
+    private final SsaType type;
+    private final boolean hoisted;            // true if it can be evaluated before the loop
+
+    LoopInvariant(JavanaParser.ExpressionContext ctx, ParserRuleContext loopCtx, SsaType type, boolean hoisted) {
+        this.ctx = ctx;
+        this.loopCtx = loopCtx;
+        this.type = type;
+        this.hoisted = hoisted;
+    }
+
+    /**
+     * Get the invariant that an expression is.
+     *
+     * @param ctx the ExpressionContext.
+     * @return the invariant, or null if it isn't one.
+     */
+    public static LoopInvariant of(JavanaParser.ExpressionContext ctx) {
+        return (LoopInvariant) ctx.invariant;
+    }
+
+    /**
+     * Get the invariants of a loop.
+     *
+     * @param loopCtx the WhileStatementContext or ForStatementContext.
+     * @return the invariants, in source order, which can be empty.
+     */
+    @SuppressWarnings("unchecked")
+    public static List<LoopInvariant> in(ParserRuleContext loopCtx) {
+        Object invariants = loopCtx instanceof JavanaParser.WhileStatementContext whileCtx ? whileCtx.invariants
+                : loopCtx instanceof JavanaParser.ForStatementContext forCtx ? forCtx.invariants
+                : null;
+
+        return invariants != null ? (List<LoopInvariant>) invariants : List.of();
+    }
+
+    public JavanaParser.ExpressionContext getContext() {
+        return ctx;
+    }
+
+    public ParserRuleContext getLoopContext() {
+        return loopCtx;
+    }
+
+    public SsaType getType() {
+        return type;
+    }
+
+    public boolean isHoisted() {
+        return hoisted;
+    }
+}
@@ -0,0 +1,293 @@
+/**
+ * <h1>LoopInvariantMotion</h1>
+ * <p>Find the computations in while and for statements whose values are
+ * the same in every iteration, and hoist them out of their loops. A loop
+ * is found by a back edge to its header, whose block dominates it. An
+ * operation in the loop is invariant if its operands are defined outside
+ * the loop or are invariant themselves, and it computes a value only
+ * from them or reads memory that the loop doesn't write. A call in the
+ * loop can write any memory, so then no read is invariant.</p>
+ * <p>An invariant operation that can't flag a runtime error moves to the
+ * end of the block that enters the loop, even if the loop never runs.
+ * One that can flag stays where it is, since evaluating it earlier or
+ * more often could report an error that the program doesn't have. Each
+ * invariant expression is attached to its parse tree node, the outermost
+ * expression and loop first, so that the backends can evaluate it once
+ * before the loop or keep its first value for the rest of the loop.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+import antlr4.JavanaBaseVisitor;
+import antlr4.JavanaParser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static edu.yu.compilers.intermediate.ssa.Opcode.*;
+
+public class LoopInvariantMotion implements SsaPass {
+
+    /**
+     * A natural loop: the header, the blocks of the loop, the block that
+     * enters it, and the statement it was built from.
+     */
+    private record Loop(BasicBlock header, HashSet<BasicBlock> body, BasicBlock preheader, ParserRuleContext ctx) {}
+
+    @Override
+    public String getName() {
+        return "loop-invariant operations hoisted";
+    }
+
+    @Override
+    public int run(SsaProgram program) {
+        int count = 0;
+
+        for (SsaFunction function : program.getAllFunctions()) {
+            DominatorTree dominators = new DominatorTree(function);
+
+            for (Loop loop : findLoops(dominators)) {
+                count += hoist(function, loop, dominators.getOrder());
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Find the loops of a function that were built from while and for
+     * statements, outermost first.
+     */
+    private static List<Loop> findLoops(DominatorTree dominators) {
+        LinkedHashMap<BasicBlock, HashSet<BasicBlock>> bodies = new LinkedHashMap<>();
+
+        for (BasicBlock block : dominators.getOrder()) {
+            for (BasicBlock successor : block.getSuccessors()) {
+                if (dominators.dominates(successor, block)) {
+                    addBody(bodies.computeIfAbsent(successor, h -> new HashSet<>(List.of(h))), block);
+                }
+            }
+        }
+
+        ArrayList<Loop> loops = new ArrayList<>();
+
+        bodies.forEach((header, body) -> {
+            List<BasicBlock> entries = header.getPredecessors().stream().filter(b -> !body.contains(b)).toList();
+            if (entries.size() != 1) return;
+
+            BasicBlock preheader = entries.get(0);
+            Operation jump = preheader.getTerminator();
+
+            if ((jump != null) && (jump.getOpcode() == JUMP)
+                    && ((jump.getContext() instanceof JavanaParser.WhileStatementContext)
+                        || (jump.getContext() instanceof JavanaParser.ForStatementContext))) {
+                loops.add(new Loop(header, body, preheader, jump.getContext()));
+            }
+        });
+
+        loops.sort(Comparator.comparingInt((Loop loop) -> loop.body().size()).reversed());
+        return loops;
+    }
+
+    /**
+     * Add the blocks that reach the source of a back edge without going
+     * through the header, which is already in the body.
+     */
+    private static void addBody(HashSet<BasicBlock> body, BasicBlock latch) {
+        ArrayList<BasicBlock> work = new ArrayList<>(List.of(latch));
+
+        while (!work.isEmpty()) {
+            BasicBlock block = work.remove(work.size() - 1);
+            if (body.add(block)) work.addAll(block.getPredecessors());
+        }
+    }
+
+    // ==============
+    // One loop
+    // ==============
+
+    /**
+     * Hoist the invariant operations of a loop and attach its invariant
+     * expressions to their parse tree nodes.
+     *
+     * @return the number of operations hoisted, by moving them or by
+     * attaching them for the backends to keep their first values.
+     */
+    private static int hoist(SsaFunction function, Loop loop, List<BasicBlock> order) {
+        HashSet<String> storedGlobals = new HashSet<>();
+        HashSet<String> storedFields = new HashSet<>();
+        boolean storesElements = false;
+        boolean calls = false;
+
+        for (BasicBlock block : loop.body()) {
+            for (Operation operation : block.getOperations()) {
+                switch (operation.getOpcode()) {
+                    case STORE_GLOBAL -> storedGlobals.add(operation.getSymbol());
+                    case STORE_FIELD -> storedFields.add(operation.getSymbol());
+                    case STORE_ELEMENT -> storesElements = true;
+                    case CALL -> calls = true;
+                    default -> {}
+                }
+            }
+        }
+
+        // In reverse postorder, each operand's definition comes first.
+        LinkedHashSet<Operation> invariants = new LinkedHashSet<>();
+
+        for (BasicBlock block : order) {
+            if (!loop.body().contains(block)) continue;
+
+            for (Operation operation : block.getOperations()) {
+                boolean readable = switch (operation.getOpcode()) {
+                    case LOAD_GLOBAL -> !calls && !storedGlobals.contains(operation.getSymbol());
+                    case LOAD_FIELD -> !calls && !storedFields.contains(operation.getSymbol());
+                    case LOAD_ELEMENT -> !calls && !storesElements;
+                    default -> operation.getOpcode().getEffect() == Opcode.Effect.PURE;
+                };
+
+                if (readable && operation.getOperands().stream().allMatch(v -> isInvariant(v, loop, invariants))) {
+                    invariants.add(operation);
+                }
+            }
+        }
+
+        int count = attach(function, loop, invariants);
+
+        // An operation moves only if its operands are already outside the loop.
+        for (Operation operation : invariants) {
+            if (!operation.mayFlag()
+                    && operation.getOperands().stream().allMatch(v -> isInvariant(v, loop, Set.of()))) {
+                operation.getBlock().remove(operation);
+                loop.preheader().insertBeforeTerminator(operation);
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private static boolean isInvariant(Value value, Loop loop, Set<Operation> invariants) {
+        return !(value instanceof Operation operation)
+                || !loop.body().contains(operation.getBlock())
+                || invariants.contains(operation);
+    }
+
+    /**
+     * Attach the outermost invariant expressions of a loop, other than
+     * names and constants, to their parse tree nodes.
+     *
+     * @return the number of those that can flag, which the backends
+     * keep the first values of instead of moving.
+     */
+    private static int attach(SsaFunction function, Loop loop, HashSet<Operation> invariants) {
+        HashSet<String> declared = new HashSet<>();
+        LinkedHashSet<JavanaParser.ExpressionContext> candidates = new LinkedHashSet<>();
+
+        new JavanaBaseVisitor<Void>() {
+            @Override
+            public Void visitNameList(JavanaParser.NameListContext ctx) {
+                for (JavanaParser.IdentifierContext nameCtx : ctx.names) declared.add(nameCtx.getText());
+                return null;
+            }
+        }.visit(loop.ctx());
+
+        for (Operation operation : invariants) {
+            if ((operation.getContext() instanceof JavanaParser.ExpressionContext exprCtx)
+                    && !(exprCtx instanceof JavanaParser.IdentifierExpressionContext)
+                    && (exprCtx.folded == null) && (exprCtx.invariant == null) && (exprCtx.common == null)
+                    && (function.valueOf(exprCtx) == operation)
+                    && isInvariantTree(function, exprCtx, loop, invariants, declared)) {
+                candidates.add(exprCtx);
+            }
+        }
+
+        ArrayList<LoopInvariant> attached = new ArrayList<>();
+        int count = 0;
+
+        for (JavanaParser.ExpressionContext exprCtx : candidates) {
+            if (isInside(exprCtx, candidates)) continue;
+
+            boolean hoisted = !mayFlag(function, exprCtx, invariants);
+            LoopInvariant invariant = new LoopInvariant(exprCtx, loop.ctx(), function.valueOf(exprCtx).getType(), hoisted);
+
+            exprCtx.invariant = invariant;
+            attached.add(invariant);
+            if (!hoisted) count++;
+        }
+
+        if (!attached.isEmpty()) {
+            attached.sort(Comparator.comparingInt(invariant -> invariant.getContext().getStart().getTokenIndex()));
+
+            if (loop.ctx() instanceof JavanaParser.WhileStatementContext whileCtx) whileCtx.invariants = attached;
+            else ((JavanaParser.ForStatementContext) loop.ctx()).invariants = attached;
+        }
+
+        return count;
+    }
+
+    /**
+     * Determine whether every subexpression that an expression evaluates
+     * has an invariant value, so that evaluating it once skips nothing,
+     * and it names no variable declared in the loop and uses no common
+     * subexpression's temporary, so that it can be evaluated before the
+     * loop.
+     */
+    private static boolean isInvariantTree(SsaFunction function, ParseTree tree, Loop loop,
+                                           HashSet<Operation> invariants, HashSet<String> declared) {
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            ParseTree child = tree.getChild(i);
+
+            if (child instanceof JavanaParser.ExpressionContext exprCtx) {
+                Value value = function.valueOf(exprCtx);
+                if ((value != null) && !isInvariant(value, loop, invariants)) return false;
+                if (exprCtx.common != null) return false;
+            }
+
+            if ((child instanceof JavanaParser.IdentifierExpressionContext idCtx)
+                    && declared.contains(idCtx.getText())) {
+                return false;
+            }
+
+            if (!isInvariantTree(function, child, loop, invariants, declared)) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Determine whether any invariant operation of an expression can flag.
+     */
+    private static boolean mayFlag(SsaFunction function, ParseTree tree, HashSet<Operation> invariants) {
+        if ((tree instanceof JavanaParser.ExpressionContext exprCtx)
+                && (function.valueOf(exprCtx) instanceof Operation operation)
+                && invariants.contains(operation) && operation.mayFlag()) {
+            return true;
+        }
+
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            if (mayFlag(function, tree.getChild(i), invariants)) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Determine whether an expression is part of another candidate or of
+     * an invariant of an enclosing loop, which already covers it.
+     */
+    private static boolean isInside(ParserRuleContext ctx, HashSet<JavanaParser.ExpressionContext> candidates) {
+        for (ParserRuleContext parent = ctx.getParent(); parent != null; parent = parent.getParent()) {
+            if (candidates.contains(parent)) return true;
+            if ((parent instanceof JavanaParser.ExpressionContext exprCtx) && (exprCtx.invariant != null)) return true;
+        }
+
+        return false;
+    }
+}
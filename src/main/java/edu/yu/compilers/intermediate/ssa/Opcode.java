@@ -0,0 +1,66 @@
+/**
+ * <h1>Opcode</h1>
+ * <p>The operations of the SSA intermediate representation, each with
+ * the type of its result and its effect. A PURE operation depends only
+ * on its operands, a READ operation also on memory, and a WRITE
+ * operation changes memory or does input or output. Any operation can
+ * also flag a runtime error unless its operands rule that out.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+import static edu.yu.compilers.intermediate.ssa.Opcode.Effect.*;
+import static edu.yu.compilers.intermediate.ssa.SsaType.*;
+
+public enum Opcode {
+    // Integers
+    ADD(INT, PURE), SUB(INT, PURE), MUL(INT, PURE), DIV(INT, PURE), REM(INT, PURE),
+    SHL(INT, PURE), SHR(INT, PURE), USHR(INT, PURE), AND(INT, PURE),
+    LT(BOOL, PURE), LE(BOOL, PURE), GT(BOOL, PURE), GE(BOOL, PURE),
+
+    // Any values
+    EQ(BOOL, PURE), NE(BOOL, PURE), NOT(BOOL, PURE), TEST(BOOL, PURE),
+
+    // Strings
+    CONCAT(STRING, PURE), SUBSTRING(STRING, PURE), CHAR_AT(STRING, PURE),
+    CHAR_TO_VAL(INT, PURE), STRING_TO_INT(INT, PURE), LENGTH(INT, PURE),
+
+    // Memory
+    LOAD_GLOBAL(ANY, READ), LOAD_ELEMENT(ANY, READ), LOAD_FIELD(ANY, READ),
+    STORE_GLOBAL(VOID, WRITE), STORE_ELEMENT(VOID, WRITE), STORE_FIELD(VOID, WRITE),
+    NEW_ARRAY(ANY, WRITE), NEW_RECORD(ANY, WRITE),
+
+    // Calls, input, and output
+    CALL(ANY, WRITE), READ_LINE(ANY, WRITE), READ_CHAR(ANY, WRITE),
+    PRINT(VOID, WRITE), PRINTLN(VOID, WRITE), PRINTF(VOID, WRITE),
+
+    // Control flow
+    PHI(null, PURE), JUMP(VOID, WRITE), BRANCH(VOID, WRITE), RETURN(VOID, WRITE);
+
+    public enum Effect {PURE, READ, WRITE}
+
+    private final SsaType resultType;  // null if it depends on the operands
+    private final Effect effect;
+
+    Opcode(SsaType resultType, Effect effect) {
+        this.resultType = resultType;
+        this.effect = effect;
+    }
+
+    public SsaType getResultType() {
+        return resultType;
+    }
+
+    public Effect getEffect() {
+        return effect;
+    }
+
+    public boolean isTerminator() {
+        return (this == JUMP) || (this == BRANCH) || (this == RETURN);
+    }
+
+    @Override
+    public String toString() {
+        return super.toString().toLowerCase();
+    }
+}
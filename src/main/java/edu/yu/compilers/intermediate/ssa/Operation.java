@@ -0,0 +1,132 @@
+/**
+ * <h1>Operation</h1>
+ * <p>An operation of the SSA intermediate representation, which belongs
+ * to a basic block and computes its result from its operands. A phi's
+ * operands are in the order of its block's predecessors. The source
+ * context is the parse tree node that the operation was built from,
+ * which is also where it flags runtime errors.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Operation extends Value {
+    private final Opcode opcode;
+    private final ArrayList<Value> operands;
+    private final String symbol;            // global, field, function, or type name, or null
+    private final ParserRuleContext ctx;    // source context
+    private BasicBlock block;               // containing block, or null if removed
+
+    Operation(int id, Opcode opcode, String symbol, ParserRuleContext ctx) {
+        super(id, opcode.getResultType());
+        this.opcode = opcode;
+        this.operands = new ArrayList<>();
+        this.symbol = symbol;
+        this.ctx = ctx;
+    }
+
+    public Opcode getOpcode() {
+        return opcode;
+    }
+
+    public List<Value> getOperands() {
+        return operands;
+    }
+
+    public Value getOperand(int index) {
+        return operands.get(index);
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public ParserRuleContext getContext() {
+        return ctx;
+    }
+
+    public BasicBlock getBlock() {
+        return block;
+    }
+
+    void setBlock(BasicBlock block) {
+        this.block = block;
+    }
+
+    void setType(SsaType type) {
+        this.type = type;
+    }
+
+    public boolean isPhi() {
+        return opcode == Opcode.PHI;
+    }
+
+    public void addOperand(Value operand) {
+        operands.add(operand);
+        operand.addUser(this);
+    }
+
+    public void setOperand(int index, Value operand) {
+        operands.get(index).removeUser(this);
+        operands.set(index, operand);
+        operand.addUser(this);
+    }
+
+    void removeOperand(int index) {
+        operands.remove(index).removeUser(this);
+    }
+
+    void replaceOperand(Value from, Value to) {
+        for (int i = 0; i < operands.size(); i++) {
+            if (operands.get(i) == from) setOperand(i, to);
+        }
+    }
+
+    /**
+     * Remove the operation from its block and stop using its operands.
+     * Its own users must already be gone.
+     */
+    public void remove() {
+        for (Value operand : operands) operand.removeUser(this);
+        operands.clear();
+
+        if (block != null) block.remove(this);
+        block = null;
+    }
+
+    /**
+     * Determine whether the operation can flag a runtime error, which
+     * depends on what is known about its operands.
+     *
+     * @return false if it certainly can't.
+     */
+    public boolean mayFlag() {
+        return switch (opcode) {
+            case ADD, SUB, MUL, SHL, SHR, USHR, AND, LT, LE, GT, GE -> !allOperandsHave(SsaType.INT);
+            case DIV, REM -> !allOperandsHave(SsaType.INT)
+                    || !(operands.get(1) instanceof Constant c) || c.getValue().equals(0);
+            case NOT, TEST, BRANCH -> !allOperandsHave(SsaType.BOOL);
+            case EQ, NE, CONCAT, PHI, LOAD_GLOBAL, STORE_GLOBAL, JUMP, RETURN,
+                 PRINT, PRINTLN, READ_LINE, READ_CHAR -> false;
+            case LENGTH -> operands.get(0).getType() != SsaType.STRING;
+            default -> true;
+        };
+    }
+
+    private boolean allOperandsHave(SsaType type) {
+        for (Value operand : operands) {
+            if (operand.getType() != type) return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return "v" + getId();
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * <h1>Parameter</h1>
+ * <p>A parameter of a function, or the argument array of main. Its type
+ * is ANY whatever the declared type, since a caller can pass anything.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+public class Parameter extends Value {
+    private final String paramName;
+    private final int index;  // position in the parameter list
+
+    Parameter(int id, String paramName, int index) {
+        super(id, SsaType.ANY);
+        this.paramName = paramName;
+        this.index = index;
+    }
+
+    public String getParamName() {
+        return paramName;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public String getName() {
+        return "%" + paramName;
+    }
+}
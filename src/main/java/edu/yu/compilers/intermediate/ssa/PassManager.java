@@ -0,0 +1,71 @@
+/**
+ * <h1>PassManager</h1>
+ * <p>Run passes over the SSA intermediate representation of a program
+ * in the order they were added, verifying the representation after
+ * each one, and total what each pass changed.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class PassManager {
+    private final ArrayList<SsaPass> passes;
+    private final LinkedHashMap<String, Integer> statistics;  // pass name -> changes
+
+    public PassManager() {
+        this.passes = new ArrayList<>();
+        this.statistics = new LinkedHashMap<>();
+    }
+
+    /**
+     * Add a pass to run after the ones already added.
+     *
+     * @param pass the pass.
+     * @return this pass manager.
+     */
+    public PassManager add(SsaPass pass) {
+        passes.add(pass);
+        return this;
+    }
+
+    /**
+     * Run the passes.
+     *
+     * @param program the program.
+     */
+    public void run(SsaProgram program) {
+        SsaVerifier.verify(program);
+
+        for (SsaPass pass : passes) {
+            statistics.merge(pass.getName(), pass.run(program), Integer::sum);
+            SsaVerifier.verify(program);
+        }
+    }
+
+    /**
+     * Get the names of the passes, in the order they run.
+     *
+     * @return the names.
+     */
+    public List<String> getPassNames() {
+        return passes.stream().map(SsaPass::getName).toList();
+    }
+
+    public Map<String, Integer> getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Print what each pass changed.
+     *
+     * @param out the output stream.
+     */
+    public void printStatistics(PrintStream out) {
+        statistics.forEach((name, count) -> out.printf("%8d %s%n", count, name));
+    }
+}
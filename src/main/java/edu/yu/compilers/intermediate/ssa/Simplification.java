@@ -0,0 +1,105 @@
+/**
+ * <h1>Simplification</h1>
+ * <p>A cheaper way to evaluate an expression, found by algebraic
+ * simplification. The expression is the value of one of its operands
+ * when the other is an identity, a shift or mask when it multiplies,
+ * divides, or takes the remainder by a power of two, or the opposite
+ * comparison of the relational expression that it negates. A backend
+ * evaluates the operand instead of the expression and, for the integer
+ * kinds, checks that its value is an integer as the expression would.
+ * The operand it skips is a constant, so skipping it skips nothing.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+import antlr4.JavanaParser;
+
+public class Simplification {
+    public enum Kind {
+        OPERAND,             // the operand's value
+        SHIFT_LEFT,          // x * 2^k
+        SHIFT_RIGHT,         // x / 2^k, with x never negative
+        MASK,                // x % 2^k, with x never negative
+        DIVIDE,              // x / 2^k, rounded toward zero
+        REMAINDER,           // x % 2^k, with the sign of x
+        NEGATED_COMPARISON   // !(a < b) as a >= b, and so on
+    }
+
+    private final JavanaParser.ExpressionContext ctx;
+    private final Kind kind;
+    private final JavanaParser.ExpressionContext operand;  // the RelationalExpression of a negated comparison
+    private final int shift;                                // k, or 0
+
+    Simplification(JavanaParser.ExpressionContext ctx, Kind kind, JavanaParser.ExpressionContext operand, int shift) {
+        this.ctx = ctx;
+        this.kind = kind;
+        this.operand = operand;
+        this.shift = shift;
+    }
+
+    /**
+     * Get the simplification of an expression.
+     *
+     * @param ctx the ExpressionContext.
+     * @return the simplification, or null if there is none.
+     */
+    public static Simplification of(JavanaParser.ExpressionContext ctx) {
+        return (Simplification) ctx.simplified;
+    }
+
+    public JavanaParser.ExpressionContext getContext() {
+        return ctx;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public JavanaParser.ExpressionContext getOperand() {
+        return operand;
+    }
+
+    public int getShift() {
+        return shift;
+    }
+
+    /**
+     * Compute the value of an integer simplification from its operand's.
+     *
+     * @param x the operand's value.
+     * @return the expression's value.
+     */
+    public int apply(int x) {
+        return switch (kind) {
+            case SHIFT_LEFT -> x << shift;
+            case SHIFT_RIGHT -> x >> shift;
+            case MASK -> x & ((1 << shift) - 1);
+            case DIVIDE -> (x + bias(x)) >> shift;
+            case REMAINDER -> ((x + bias(x)) & ((1 << shift) - 1)) - bias(x);
+            default -> x;
+        };
+    }
+
+    /**
+     * What to add to a negative dividend so that an arithmetic shift
+     * rounds toward zero as division does: 2^k - 1, or 0 if it isn't
+     * negative.
+     */
+    private int bias(int x) {
+        return (x >> 31) >>> (32 - shift);
+    }
+
+    /**
+     * Get the operator of a negated comparison.
+     *
+     * @return the relational operator, the opposite of the one written.
+     */
+    public String getOperator() {
+        return switch (((JavanaParser.RelationalExpressionContext) operand).REL_OP().getText()) {
+            case "<" -> ">=";
+            case "<=" -> ">";
+            case ">" -> "<=";
+            default -> "<";
+        };
+    }
+}
@@ -0,0 +1,849 @@
+/**
+ * <h1>SsaBuilder</h1>
+ * <p>Build the SSA intermediate representation of a program from its
+ * parse tree after semantic analysis. Variables are put into SSA form
+ * as the statements are visited, with the algorithm of Braun et al.,
+ * "Simple and Efficient Construction of Static Single Assignment Form":
+ * a block is sealed once all of its predecessors are known, and a phi
+ * that turns out to merge only one value is removed. The names that a
+ * routine defines are its local variables, and any other name is a
+ * program variable or constant in memory. Short-circuit && and || are
+ * built as control flow, as they execute. A routine that uses what the
+ * builder can't express, such as a nested function definition or a
+ * variable that may be read before it's defined, isn't built.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+import antlr4.JavanaBaseVisitor;
+import antlr4.JavanaParser;
+import edu.yu.compilers.intermediate.symtable.Predefined;
+import edu.yu.compilers.intermediate.type.TypeChecker;
+import edu.yu.compilers.intermediate.type.Typespec;
+import edu.yu.compilers.intermediate.util.ConstantPool;
+import org.antlr.v4.runtime.ParserRuleContext;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static edu.yu.compilers.intermediate.ssa.Opcode.*;
+
+public class SsaBuilder extends JavanaBaseVisitor<Value> {
+    public static final String INITIALIZER_NAME = "<init>";
+    public static final String MAIN_NAME = "main";
+
+    private final ConstantPool constants = new ConstantPool();
+    private Set<String> globalNames;
+
+    // The routine being built.
+    private SsaFunction function;
+    private Set<String> locals;                                      // names the routine defines
+    private BasicBlock block;                                        // where operations are appended
+    private HashMap<String, HashMap<BasicBlock, Value>> currentDefs; // name -> block -> value
+    private HashMap<BasicBlock, LinkedHashMap<String, Operation>> incompletePhis;
+    private HashSet<BasicBlock> sealed;
+    private ArrayDeque<Loop> loops;
+
+    private record Loop(BasicBlock continueTarget, BasicBlock breakTarget) {}
+
+    /**
+     * Thrown when a routine can't be built.
+     */
+    private static class UnsupportedException extends RuntimeException {
+        UnsupportedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Build the representation of a program.
+     *
+     * @param ctx the ProgramContext.
+     * @return the program.
+     */
+    public SsaProgram build(JavanaParser.ProgramContext ctx) {
+        globalNames = new LinkedHashSet<>();
+        ArrayList<JavanaParser.FuncDefinitionContext> funcCtxs = new ArrayList<>();
+
+        for (JavanaParser.GlobalDefinitionsContext defCtx : ctx.defs) {
+            JavanaParser.NameDeclDefStatementContext declDefCtx = defCtx.nameDeclDefStatement();
+
+            if ((declDefCtx != null) && (declDefCtx.funcDefinition() != null)) {
+                funcCtxs.add(declDefCtx.funcDefinition());
+            } else {
+                globalNames.addAll(definedNames(defCtx));
+            }
+        }
+
+        SsaProgram program = new SsaProgram(ctx, globalNames);
+
+        build(program, new SsaFunction(INITIALIZER_NAME, SsaFunction.Kind.INITIALIZER, ctx), Set.of(), () -> {
+            for (JavanaParser.GlobalDefinitionsContext defCtx : ctx.defs) {
+                JavanaParser.NameDeclDefStatementContext declDefCtx = defCtx.nameDeclDefStatement();
+                if ((declDefCtx == null) || (declDefCtx.funcDefinition() == null)) visit(defCtx);
+            }
+        });
+
+        JavanaParser.MainMethodContext mainCtx = ctx.main;
+        Set<String> mainLocals = definedNames(mainCtx.body);
+        if (mainCtx.args != null) mainLocals.add(mainCtx.args.name.getText());
+
+        build(program, new SsaFunction(MAIN_NAME, SsaFunction.Kind.MAIN, mainCtx), mainLocals, () -> {
+            if (mainCtx.args != null) {
+                String argsName = mainCtx.args.name.getText();
+                define(argsName, function.addParameter(argsName), mainCtx);
+            }
+            visit(mainCtx.body);
+        });
+
+        for (JavanaParser.FuncDefinitionContext funcCtx : funcCtxs) {
+            List<String> parmNames = parameterNames(funcCtx.proto);
+            Set<String> funcLocals = definedNames(funcCtx.body);
+            funcLocals.addAll(parmNames);
+
+            String name = funcCtx.proto.name.getText();
+            build(program, new SsaFunction(name, SsaFunction.Kind.FUNCTION, funcCtx), funcLocals, () -> {
+                for (String parmName : parmNames) define(parmName, function.addParameter(parmName), funcCtx);
+                visit(funcCtx.body);
+            });
+        }
+
+        return program;
+    }
+
+    /**
+     * Build one routine.
+     *
+     * @param program     the program to add it to.
+     * @param newFunction the empty function.
+     * @param newLocals   the names that the routine defines.
+     * @param body        builds the routine's operations.
+     */
+    private void build(SsaProgram program, SsaFunction newFunction, Set<String> newLocals, Runnable body) {
+        function = newFunction;
+        locals = newLocals;
+        currentDefs = new HashMap<>();
+        incompletePhis = new HashMap<>();
+        sealed = new HashSet<>();
+        loops = new ArrayDeque<>();
+
+        block = function.newBlock();
+        sealed.add(block);
+
+        try {
+            body.run();
+            emit(RETURN, null, function.getContext());
+            finish();
+            program.add(function);
+        } catch (UnsupportedException ex) {
+            program.addUnsupported(function.getName(), ex.getMessage());
+        }
+
+        function = null;
+    }
+
+    /**
+     * Clean up a routine that has been built: remove the blocks after
+     * returns, breaks, and continues that can't be reached, along with
+     * the phis that merged only one value once they were gone, and
+     * infer the types of the remaining phis.
+     */
+    private void finish() {
+        function.removeUnreachableBlocks();
+        function.removeTrivialPhis();
+        function.inferTypes();
+    }
+
+    // ===================
+    // Names and variables
+    // ===================
+
+    /**
+     * Get the names that a definition or a routine body defines.
+     */
+    private static Set<String> definedNames(ParserRuleContext ctx) {
+        LinkedHashSet<String> names = new LinkedHashSet<>();
+
+        new JavanaBaseVisitor<Void>() {
+            @Override
+            public Void visitVariableDecl(JavanaParser.VariableDeclContext ctx) {
+                for (JavanaParser.IdentifierContext nameCtx : ctx.assoc.namelst.names) names.add(nameCtx.getText());
+                return null;
+            }
+
+            @Override
+            public Void visitVariableDefinition(JavanaParser.VariableDefinitionContext ctx) {
+                for (JavanaParser.IdentifierContext nameCtx : ctx.namelst.names) names.add(nameCtx.getText());
+                return null;
+            }
+
+            @Override
+            public Void visitConstantDefinition(JavanaParser.ConstantDefinitionContext ctx) {
+                for (JavanaParser.IdentifierContext nameCtx : ctx.namelst.names) names.add(nameCtx.getText());
+                return null;
+            }
+
+            @Override
+            public Void visitFuncDefinition(JavanaParser.FuncDefinitionContext ctx) {
+                return null;  // its names are its own
+            }
+        }.visit(ctx);
+
+        return names;
+    }
+
+    private static List<String> parameterNames(JavanaParser.FuncPrototypeContext ctx) {
+        ArrayList<String> names = new ArrayList<>();
+
+        for (JavanaParser.FuncArgListContext listCtx : ctx.argList) {
+            for (JavanaParser.FuncArgumentContext argCtx : listCtx.args) {
+                for (JavanaParser.IdentifierContext nameCtx : argCtx.typeAssoc().namelst.names) {
+                    names.add(nameCtx.getText());
+                }
+            }
+        }
+
+        return names;
+    }
+
+    /**
+     * Define a variable or constant of the routine, or store a program
+     * variable or constant when building the initializer.
+     */
+    private void define(String name, Value value, ParserRuleContext ctx) {
+        if (locals.contains(name)) writeVariable(name, block, value);
+        else emit(STORE_GLOBAL, name, ctx, value);
+    }
+
+    /**
+     * Assign to a variable, which is a local variable if the routine
+     * defines the name and else a program variable.
+     */
+    private void assign(String name, Value value, ParserRuleContext ctx) {
+        if (locals.contains(name)) writeVariable(name, block, value);
+        else if (globalNames.contains(name)) emit(STORE_GLOBAL, name, ctx, value);
+        else throw new UnsupportedException("assigns the unknown name " + name);
+    }
+
+    /**
+     * Read a variable or constant.
+     */
+    private Value read(String name, ParserRuleContext ctx) {
+        if (locals.contains(name)) return readVariable(name, block);
+        else if (globalNames.contains(name)) return emit(LOAD_GLOBAL, name, ctx);
+        else throw new UnsupportedException("reads the unknown name " + name);
+    }
+
+    private void writeVariable(String name, BasicBlock b, Value value) {
+        currentDefs.computeIfAbsent(name, n -> new HashMap<>()).put(b, value);
+    }
+
+    private Value readVariable(String name, BasicBlock b) {
+        HashMap<BasicBlock, Value> defs = currentDefs.get(name);
+        Value value = defs != null ? defs.get(b) : null;
+
+        return value != null ? function.resolve(value) : readVariableRecursive(name, b);
+    }
+
+    private Value readVariableRecursive(String name, BasicBlock b) {
+        Value value;
+
+        if (!sealed.contains(b)) {
+            // Not all predecessors are known yet.
+            Operation phi = newPhi(b);
+            incompletePhis.computeIfAbsent(b, k -> new LinkedHashMap<>()).put(name, phi);
+            value = phi;
+        } else if (b.getPredecessors().isEmpty()) {
+            if (b == function.getEntry()) {
+                throw new UnsupportedException("may read " + name + " before defining it");
+            }
+            value = function.undefined();  // the block can't be reached
+        } else if (b.getPredecessors().size() == 1) {
+            value = readVariable(name, b.getPredecessors().get(0));
+        } else {
+            // Break cycles with an operandless phi.
+            Operation phi = newPhi(b);
+            writeVariable(name, b, phi);
+            value = addPhiOperands(name, phi);
+        }
+
+        writeVariable(name, b, value);
+        return value;
+    }
+
+    private Operation newPhi(BasicBlock b) {
+        Operation phi = function.newOperation(PHI, null, null);
+        b.append(phi);
+        return phi;
+    }
+
+    private Value addPhiOperands(String name, Operation phi) {
+        for (BasicBlock pred : phi.getBlock().getPredecessors()) {
+            phi.addOperand(readVariable(name, pred));
+        }
+
+        return tryRemoveTrivialPhi(phi);
+    }
+
+    /**
+     * Remove a phi whose operands are all the same value or the phi
+     * itself, and then the phis that used it if they became trivial.
+     *
+     * @return the value that replaces the phi, or the phi itself.
+     */
+    private Value tryRemoveTrivialPhi(Operation phi) {
+        Value same = function.trivialValue(phi);
+        if (same == null) return phi;
+
+        ArrayList<Operation> users = new ArrayList<>(phi.getUsers());
+        users.remove(phi);
+        function.replace(phi, same);
+
+        for (Operation user : users) {
+            if (user.isPhi() && (user.getBlock() != null) && sealed.contains(user.getBlock())) {
+                tryRemoveTrivialPhi(user);
+            }
+        }
+
+        return same;
+    }
+
+    private void sealBlock(BasicBlock b) {
+        LinkedHashMap<String, Operation> phis = incompletePhis.remove(b);
+        sealed.add(b);
+
+        if (phis != null) {
+            phis.forEach((name, phi) -> addPhiOperands(name, phi));
+        }
+    }
+
+    // ============
+    // Control flow
+    // ============
+
+    private Operation emit(Opcode opcode, String symbol, ParserRuleContext ctx, Value... operands) {
+        Operation operation = function.newOperation(opcode, symbol, ctx);
+        for (Value operand : operands) operation.addOperand(operand);
+        block.append(operation);
+
+        return operation;
+    }
+
+    private void jump(BasicBlock target, ParserRuleContext ctx) {
+        emit(JUMP, null, ctx);
+        block.addSuccessor(target);
+    }
+
+    private void branch(Value condition, BasicBlock ifTrue, BasicBlock ifFalse, ParserRuleContext ctx) {
+        emit(BRANCH, null, ctx, condition);
+        block.addSuccessor(ifTrue);
+        block.addSuccessor(ifFalse);
+    }
+
+    /**
+     * Continue in a new block that nothing jumps to, after a statement
+     * that ends its block.
+     */
+    private void startUnreachableBlock() {
+        block = function.newBlock();
+        sealed.add(block);
+    }
+
+    // ==========
+    // Statements
+    // ==========
+
+    @Override
+    public Value visitStatement(JavanaParser.StatementContext ctx) {
+        function.mapStatement(ctx, block);
+        return visit(ctx.getChild(0));
+    }
+
+    @Override
+    public Value visitBlockStatement(JavanaParser.BlockStatementContext ctx) {
+        for (JavanaParser.StatementContext stmtCtx : ctx.stmts) visit(stmtCtx);
+        return null;
+    }
+
+    @Override
+    public Value visitFuncDefinition(JavanaParser.FuncDefinitionContext ctx) {
+        throw new UnsupportedException("defines the nested function " + ctx.proto.name.getText());
+    }
+
+    @Override
+    public Value visitRecordDecl(JavanaParser.RecordDeclContext ctx) {
+        return null;  // record types were created by Semantics
+    }
+
+    @Override
+    public Value visitVariableDecl(JavanaParser.VariableDeclContext ctx) {
+        Typespec type = TypeChecker.returnType(ctx.assoc.t.getText());
+        Value value = function.constant(defaultValue(type));
+
+        for (JavanaParser.IdentifierContext nameCtx : ctx.assoc.namelst.names) define(nameCtx.getText(), value, ctx);
+        return null;
+    }
+
+    /**
+     * Get the initial value of a declared variable, as the interpreter
+     * allocates it.
+     */
+    private static Object defaultValue(Typespec type) {
+        if (type == null) return null;
+
+        type = type.baseType();
+        if (type == Predefined.integerType) return 0;
+        else if (type == Predefined.booleanType) return Boolean.FALSE;
+        else return null;
+    }
+
+    @Override
+    public Value visitVariableDefinition(JavanaParser.VariableDefinitionContext ctx) {
+        // The expression is evaluated once for each name.
+        for (JavanaParser.IdentifierContext nameCtx : ctx.namelst.names) {
+            define(nameCtx.getText(), value(ctx.expr), ctx);
+        }
+        return null;
+    }
+
+    @Override
+    public Value visitConstantDefinition(JavanaParser.ConstantDefinitionContext ctx) {
+        for (JavanaParser.IdentifierContext nameCtx : ctx.namelst.names) {
+            define(nameCtx.getText(), value(ctx.expr), ctx);
+        }
+        return null;
+    }
+
+    @Override
+    public Value visitAssignmentStatement(JavanaParser.AssignmentStatementContext ctx) {
+        JavanaParser.VariableContext varCtx = ctx.var;
+        String name = varCtx.name.getText();
+
+        if (varCtx.modifiers.isEmpty()) {
+            assign(name, value(ctx.expr), ctx);
+            return null;
+        }
+
+        // The container and the index are evaluated before the value.
+        Value container = read(name, varCtx);
+        int last = varCtx.modifiers.size() - 1;
+
+        for (int i = 0; i < last; i++) container = select(container, varCtx.modifiers.get(i));
+
+        JavanaParser.VarModifierContext modCtx = varCtx.modifiers.get(last);
+
+        if (modCtx instanceof JavanaParser.VarArrayIndexModfierContext indexCtx) {
+            Value index = value(indexCtx.arrIdxSpecifier().expr);
+            emit(STORE_ELEMENT, null, modCtx, container, index, value(ctx.expr));
+        } else {
+            String fieldName = ((JavanaParser.VarRecordFieldModifierContext) modCtx).identifier().getText();
+            emit(STORE_FIELD, fieldName, modCtx, container, value(ctx.expr));
+        }
+
+        return null;
+    }
+
+    /**
+     * Load an element or field of an assignment's variable.
+     */
+    private Value select(Value container, JavanaParser.VarModifierContext modCtx) {
+        if (modCtx instanceof JavanaParser.VarArrayIndexModfierContext indexCtx) {
+            Value index = value(indexCtx.arrIdxSpecifier().expr);
+            return emit(LOAD_ELEMENT, null, modCtx, container, index);
+        } else {
+            String fieldName = ((JavanaParser.VarRecordFieldModifierContext) modCtx).identifier().getText();
+            return emit(LOAD_FIELD, fieldName, modCtx, container);
+        }
+    }
+
+    @Override
+    public Value visitIfStatement(JavanaParser.IfStatementContext ctx) {
+        Value condition = value(ctx.condition);
+        BasicBlock thenBlock = function.newBlock();
+        BasicBlock elseBlock = ctx.elseStmt != null ? function.newBlock() : null;
+        BasicBlock joinBlock = function.newBlock();
+
+        branch(condition, thenBlock, elseBlock != null ? elseBlock : joinBlock, ctx.condition);
+
+        sealBlock(thenBlock);
+        block = thenBlock;
+        visit(ctx.thenStmt);
+        jump(joinBlock, ctx);
+
+        if (elseBlock != null) {
+            sealBlock(elseBlock);
+            block = elseBlock;
+            visit(ctx.elseStmt);
+            jump(joinBlock, ctx);
+        }
+
+        sealBlock(joinBlock);
+        block = joinBlock;
+
+        return null;
+    }
+
+    @Override
+    public Value visitWhileStatement(JavanaParser.WhileStatementContext ctx) {
+        BasicBlock headerBlock = function.newBlock();
+        BasicBlock bodyBlock = function.newBlock();
+        BasicBlock exitBlock = function.newBlock();
+
+        jump(headerBlock, ctx);
+        block = headerBlock;
+        branch(value(ctx.condition), bodyBlock, exitBlock, ctx.condition);
+
+        sealBlock(bodyBlock);
+        block = bodyBlock;
+        loops.push(new Loop(headerBlock, exitBlock));
+        visit(ctx.body);
+        loops.pop();
+        jump(headerBlock, ctx);
+
+        sealBlock(headerBlock);
+        sealBlock(exitBlock);
+        block = exitBlock;
+
+        return null;
+    }
+
+    @Override
+    public Value visitForStatement(JavanaParser.ForStatementContext ctx) {
+        if (ctx.init != null) visit(ctx.init);
+
+        JavanaParser.IdentifierExpressionContext inductionCtx = updateTarget(ctx.updateExpr);
+        if (inductionCtx == null) throw new UnsupportedException("has a for statement without an update variable");
+
+        BasicBlock headerBlock = function.newBlock();
+        BasicBlock bodyBlock = function.newBlock();
+        BasicBlock updateBlock = function.newBlock();
+        BasicBlock exitBlock = function.newBlock();
+
+        jump(headerBlock, ctx);
+        block = headerBlock;
+        branch(value(ctx.condition), bodyBlock, exitBlock, ctx.condition);
+
+        sealBlock(bodyBlock);
+        block = bodyBlock;
+        loops.push(new Loop(updateBlock, exitBlock));
+        visit(ctx.body);
+        loops.pop();
+        jump(updateBlock, ctx);
+
+        // The update expression implicitly assigns to its leftmost variable.
+        sealBlock(updateBlock);
+        block = updateBlock;
+        assign(inductionCtx.getText(), value(ctx.updateExpr), inductionCtx);
+        jump(headerBlock, ctx);
+
+        sealBlock(headerBlock);
+        sealBlock(exitBlock);
+        block = exitBlock;
+
+        return null;
+    }
+
+    /**
+     * Find the variable that a for statement's update expression assigns,
+     * which is the leftmost operand, as the interpreter does.
+     */
+    static JavanaParser.IdentifierExpressionContext updateTarget(JavanaParser.ExpressionContext ctx) {
+        while (!(ctx instanceof JavanaParser.IdentifierExpressionContext)) {
+            if (ctx instanceof JavanaParser.ParenthesizedExpressionContext parenCtx) {
+                ctx = parenCtx.expression();
+            } else if ((ctx.getChildCount() == 3)
+                    && (ctx.getChild(0) instanceof JavanaParser.ExpressionContext leftCtx)) {
+                ctx = leftCtx;
+            } else {
+                return null;
+            }
+        }
+
+        return (JavanaParser.IdentifierExpressionContext) ctx;
+    }
+
+    @Override
+    public Value visitExpressionStatement(JavanaParser.ExpressionStatementContext ctx) {
+        value(ctx.expr);
+        return null;
+    }
+
+    @Override
+    public Value visitReturnStatement(JavanaParser.ReturnStatementContext ctx) {
+        if (ctx.expr != null) emit(RETURN, null, ctx, value(ctx.expr));
+        else emit(RETURN, null, ctx);
+
+        startUnreachableBlock();
+        return null;
+    }
+
+    @Override
+    public Value visitBreakStatement(JavanaParser.BreakStatementContext ctx) {
+        if (loops.isEmpty()) throw new UnsupportedException("breaks outside a loop");
+
+        jump(loops.peek().breakTarget(), ctx);
+        startUnreachableBlock();
+        return null;
+    }
+
+    @Override
+    public Value visitContinueStatement(JavanaParser.ContinueStatementContext ctx) {
+        if (loops.isEmpty()) throw new UnsupportedException("continues outside a loop");
+
+        jump(loops.peek().continueTarget(), ctx);
+        startUnreachableBlock();
+        return null;
+    }
+
+    @Override
+    public Value visitPrintStatement(JavanaParser.PrintStatementContext ctx) {
+        emit(PRINT, null, ctx, printArguments(ctx.arg));
+        return null;
+    }
+
+    @Override
+    public Value visitPrintLineStatement(JavanaParser.PrintLineStatementContext ctx) {
+        emit(PRINTLN, null, ctx, ctx.arg != null ? printArguments(ctx.arg) : new Value[0]);
+        return null;
+    }
+
+    /**
+     * Evaluate the argument of a print or println statement, which
+     * prints several values separated by blanks.
+     */
+    private Value[] printArguments(JavanaParser.PrintArgumentContext ctx) {
+        if (ctx instanceof JavanaParser.PrintSingleValueContext singleCtx) {
+            return new Value[] {value(singleCtx.expression())};
+        }
+
+        List<JavanaParser.ExpressionContext> exprCtxs = ((JavanaParser.FormattedPrintContext) ctx).exprList().exprs;
+        return values(exprCtxs, 0);
+    }
+
+    @Override
+    public Value visitPrintfCall(JavanaParser.PrintfCallContext ctx) {
+        List<JavanaParser.ExpressionContext> argCtxs =
+                ((JavanaParser.PrintFArgsListContext) ctx.argsList()).expression();
+        Value format = value(ctx.formatString);
+        Value[] operands = values(argCtxs, 1);
+        operands[0] = format;
+
+        emit(PRINTF, null, ctx, operands);
+        return null;
+    }
+
+    // ===========
+    // Expressions
+    // ===========
+
+    /**
+     * Build an expression and map it to its value.
+     */
+    private Value value(JavanaParser.ExpressionContext ctx) {
+        Value value = visit(ctx);
+        function.mapValue(ctx, value, block);
+        return value;
+    }
+
+    /**
+     * Build expressions in order, leaving room for other operands first.
+     */
+    private Value[] values(List<JavanaParser.ExpressionContext> exprCtxs, int offset) {
+        Value[] values = new Value[offset + exprCtxs.size()];
+        for (int i = 0; i < exprCtxs.size(); i++) values[offset + i] = value(exprCtxs.get(i));
+        return values;
+    }
+
+    @Override
+    public Value visitParenthesizedExpression(JavanaParser.ParenthesizedExpressionContext ctx) {
+        return value(ctx.expression());
+    }
+
+    @Override
+    public Value visitIdentifierExpression(JavanaParser.IdentifierExpressionContext ctx) {
+        return read(ctx.getText(), ctx);
+    }
+
+    @Override
+    public Value visitLiteralExpression(JavanaParser.LiteralExpressionContext ctx) {
+        return function.constant(constants.literal(ctx.literal()));
+    }
+
+    @Override
+    public Value visitArithmeticExpression(JavanaParser.ArithmeticExpressionContext ctx) {
+        return binary(ctx.ARITH_OP().getText().equals("+") ? ADD : SUB, ctx);
+    }
+
+    @Override
+    public Value visitHigherArithmeticExpression(JavanaParser.HigherArithmeticExpressionContext ctx) {
+        return binary(switch (ctx.HIGHER_ARITH_OP().getText()) {
+            case "*" -> MUL;
+            case "/" -> DIV;
+            default -> REM;
+        }, ctx);
+    }
+
+    @Override
+    public Value visitRelationalExpression(JavanaParser.RelationalExpressionContext ctx) {
+        return binary(switch (ctx.REL_OP().getText()) {
+            case "<" -> LT;
+            case "<=" -> LE;
+            case ">" -> GT;
+            default -> GE;
+        }, ctx);
+    }
+
+    @Override
+    public Value visitEqualityExpression(JavanaParser.EqualityExpressionContext ctx) {
+        return binary(ctx.EQ_OP().getText().equals("==") ? EQ : NE, ctx);
+    }
+
+    private Value binary(Opcode opcode, ParserRuleContext ctx) {
+        Value lhs = value((JavanaParser.ExpressionContext) ctx.getChild(0));
+        Value rhs = value((JavanaParser.ExpressionContext) ctx.getChild(2));
+
+        return emit(opcode, null, ctx, lhs, rhs);
+    }
+
+    @Override
+    public Value visitConditionalExpression(JavanaParser.ConditionalExpressionContext ctx) {
+        boolean and = ctx.COND_OP().getText().equals("&&");
+        Value lhs = value(ctx.expression(0));
+        BasicBlock rhsBlock = function.newBlock();
+        BasicBlock joinBlock = function.newBlock();
+
+        // Short-circuit evaluation: && is false and || is true
+        // without evaluating the right operand.
+        if (and) branch(lhs, rhsBlock, joinBlock, ctx);
+        else branch(lhs, joinBlock, rhsBlock, ctx);
+
+        sealBlock(rhsBlock);
+        block = rhsBlock;
+        Value rhs = value(ctx.expression(1));
+        if (rhs.getType() != SsaType.BOOL) rhs = emit(TEST, null, ctx, rhs);
+        jump(joinBlock, ctx);
+
+        sealBlock(joinBlock);
+        block = joinBlock;
+
+        // The join's predecessors are the left operand's block, then the right's.
+        Operation phi = newPhi(joinBlock);
+        phi.addOperand(function.constant(!and));
+        phi.addOperand(rhs);
+
+        return phi;
+    }
+
+    @Override
+    public Value visitNotExpression(JavanaParser.NotExpressionContext ctx) {
+        return emit(NOT, null, ctx, value(ctx.expression()));
+    }
+
+    @Override
+    public Value visitArrayIndexExpression(JavanaParser.ArrayIndexExpressionContext ctx) {
+        Value array = value(ctx.expression());
+        return emit(LOAD_ELEMENT, null, ctx, array, value(ctx.arrIdxSpecifier().expr));
+    }
+
+    @Override
+    public Value visitRecordFieldExpression(JavanaParser.RecordFieldExpressionContext ctx) {
+        return emit(LOAD_FIELD, ctx.identifier().getText(), ctx, value(ctx.expression()));
+    }
+
+    @Override
+    public Value visitStringLengthExpression(JavanaParser.StringLengthExpressionContext ctx) {
+        return emit(LENGTH, null, ctx, value(ctx.expression()));
+    }
+
+    @Override
+    public Value visitArrayLengthExpression(JavanaParser.ArrayLengthExpressionContext ctx) {
+        return emit(LENGTH, null, ctx, value(ctx.arrayLength().paramArray));
+    }
+
+    @Override
+    public Value visitCharAtExpression(JavanaParser.CharAtExpressionContext ctx) {
+        Value string = value(ctx.expression(0));
+        return emit(CHAR_AT, null, ctx, string, value(ctx.expression(1)));
+    }
+
+    @Override
+    public Value visitCharToValExpression(JavanaParser.CharToValExpressionContext ctx) {
+        return emit(CHAR_TO_VAL, null, ctx, value(ctx.stringCharToValCall().expression()));
+    }
+
+    @Override
+    public Value visitConcatenateStringsExpression(JavanaParser.ConcatenateStringsExpressionContext ctx) {
+        JavanaParser.ConcatenateStringsCallContext callCtx = ctx.concatenateStringsCall();
+        Value first = value(callCtx.first);
+        return emit(CONCAT, null, ctx, first, value(callCtx.second));
+    }
+
+    @Override
+    public Value visitSubstringExpression(JavanaParser.SubstringExpressionContext ctx) {
+        JavanaParser.SubstringCallContext callCtx = ctx.substringCall();
+        Value string = value(callCtx.first);
+        Value begin = value(callCtx.second);
+        return emit(SUBSTRING, null, ctx, string, begin, value(callCtx.third));
+    }
+
+    @Override
+    public Value visitStringEqualsExpression(JavanaParser.StringEqualsExpressionContext ctx) {
+        // stringEquals compares values as == does.
+        JavanaParser.StringEqualsContext callCtx = ctx.stringEquals();
+        Value first = value(callCtx.first);
+        return emit(EQ, null, ctx, first, value(callCtx.second));
+    }
+
+    @Override
+    public Value visitStringToIntCallExpression(JavanaParser.StringToIntCallExpressionContext ctx) {
+        return emit(STRING_TO_INT, null, ctx, value(ctx.stringToIntCall().expression()));
+    }
+
+    @Override
+    public Value visitReadCharCallExpression(JavanaParser.ReadCharCallExpressionContext ctx) {
+        return emit(READ_CHAR, null, ctx);
+    }
+
+    @Override
+    public Value visitReadLineCallExpression(JavanaParser.ReadLineCallExpressionContext ctx) {
+        return emit(READ_LINE, null, ctx);
+    }
+
+    @Override
+    public Value visitFunctionCallExpression(JavanaParser.FunctionCallExpressionContext ctx) {
+        JavanaParser.FunctionCallContext callCtx = ctx.functionCall();
+        List<JavanaParser.ExpressionContext> argCtxs = callCtx.args != null ? callCtx.args.exprs : List.of();
+
+        return emit(CALL, callCtx.name.getText(), callCtx, values(argCtxs, 0));
+    }
+
+    @Override
+    public Value visitNewArrayExpression(JavanaParser.NewArrayExpressionContext ctx) {
+        JavanaParser.NewArrayContext arrayCtx = ctx.newArray();
+        String elemTypeName = arrayCtx.scalarType() != null
+                ? arrayCtx.scalarType().getText()
+                : arrayCtx.identifier().getText();
+
+        return emit(NEW_ARRAY, elemTypeName, ctx, value(arrayCtx.arrIdxSpecifier().expr));
+    }
+
+    @Override
+    public Value visitNewRecordExpression(JavanaParser.NewRecordExpressionContext ctx) {
+        JavanaParser.NewRecordContext recordCtx = ctx.newRecord();
+        Operation record = emit(NEW_RECORD, recordCtx.identifier().getText(), ctx);
+
+        if (recordCtx.init != null) {
+            for (JavanaParser.FieldInitContext fieldCtx : recordCtx.init.init) {
+                emit(STORE_FIELD, fieldCtx.field.getText(), fieldCtx, record, value(fieldCtx.expr));
+            }
+        }
+
+        return record;
+    }
+}
@@ -0,0 +1,326 @@
+/**
+ * <h1>SsaFunction</h1>
+ * <p>The control flow graph of a function, of main, or of the program's
+ * initialization of its variables and constants, in SSA form. It maps
+ * each expression of the source that it was built from to the value of
+ * the expression, and each statement to the block where the statement
+ * begins, so that a backend walking the parse tree can look up what the
+ * passes found out about a node. A statement without a block can never
+ * be executed.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class SsaFunction {
+    public enum Kind {INITIALIZER, MAIN, FUNCTION}
+
+    private final String name;
+    private final Kind kind;
+    private final ParserRuleContext ctx;                // FuncDefinition, MainMethod, or Program
+    private final ArrayList<Parameter> parameters;
+    private final ArrayList<BasicBlock> blocks;         // the entry block first
+    private final HashMap<Object, Constant> constants;  // value -> its constant
+    private final HashMap<ParserRuleContext, Value> values;          // expression -> value
+    private final HashMap<ParserRuleContext, BasicBlock> statements; // statement -> block
+    private final HashMap<ParserRuleContext, BasicBlock> evaluated;  // expression -> block
+    private final HashMap<Operation, Value> replacements;            // removed operation -> its value
+    private int nextValueId;
+    private int nextBlockId;
+
+    SsaFunction(String name, Kind kind, ParserRuleContext ctx) {
+        this.name = name;
+        this.kind = kind;
+        this.ctx = ctx;
+        this.parameters = new ArrayList<>();
+        this.blocks = new ArrayList<>();
+        this.constants = new HashMap<>();
+        this.values = new HashMap<>();
+        this.statements = new HashMap<>();
+        this.evaluated = new HashMap<>();
+        this.replacements = new HashMap<>();
+        this.nextValueId = 0;
+        this.nextBlockId = 0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public ParserRuleContext getContext() {
+        return ctx;
+    }
+
+    public List<Parameter> getParameters() {
+        return parameters;
+    }
+
+    public List<BasicBlock> getBlocks() {
+        return blocks;
+    }
+
+    public BasicBlock getEntry() {
+        return blocks.get(0);
+    }
+
+    Parameter addParameter(String paramName) {
+        Parameter parameter = new Parameter(nextValueId++, paramName, parameters.size());
+        parameters.add(parameter);
+        return parameter;
+    }
+
+    BasicBlock newBlock() {
+        BasicBlock block = new BasicBlock(nextBlockId++);
+        blocks.add(block);
+        return block;
+    }
+
+    /**
+     * Create a block that comes before the entry block and becomes the
+     * new entry block. The caller must link it to the old one.
+     *
+     * @return the block.
+     */
+    BasicBlock newEntryBlock() {
+        BasicBlock block = new BasicBlock(nextBlockId++);
+        blocks.add(0, block);
+        return block;
+    }
+
+    /**
+     * Create an operation, which isn't in any block yet.
+     *
+     * @param opcode the opcode.
+     * @param symbol the global, field, function, or type name, or null.
+     * @param ctx    the source context.
+     * @return the operation.
+     */
+    public Operation newOperation(Opcode opcode, String symbol, ParserRuleContext ctx) {
+        return new Operation(nextValueId++, opcode, symbol, ctx);
+    }
+
+    /**
+     * Get the constant of a value.
+     *
+     * @param value the Integer, Boolean, or String, or null for None.
+     * @return the constant.
+     */
+    public Constant constant(Object value) {
+        return constants.computeIfAbsent(value, v -> new Constant(nextValueId++, v));
+    }
+
+    Constant undefined() {
+        return constant(Constant.UNDEFINED);
+    }
+
+    void mapValue(ParserRuleContext exprCtx, Value value, BasicBlock block) {
+        values.put(exprCtx, value);
+        evaluated.put(exprCtx, block);
+    }
+
+    void mapStatement(ParserRuleContext stmtCtx, BasicBlock block) {
+        statements.put(stmtCtx, block);
+    }
+
+    /**
+     * Get the value of an expression.
+     *
+     * @param exprCtx the ExpressionContext.
+     * @return the value, or null if it isn't part of this function
+     * or can't be executed.
+     */
+    public Value valueOf(ParserRuleContext exprCtx) {
+        return resolve(values.get(exprCtx));
+    }
+
+    /**
+     * Replace an operation by a value everywhere, including as the value
+     * of the expressions it was built from, and remove it.
+     *
+     * @param operation the operation.
+     * @param value     the value.
+     */
+    public void replace(Operation operation, Value value) {
+        operation.replaceAllUsesWith(value);
+        operation.remove();
+        replacements.put(operation, value);
+    }
+
+    /**
+     * Follow the replacements of removed operations.
+     *
+     * @param value a value, or null.
+     * @return the value that replaced it, if any, else the value itself.
+     */
+    public Value resolve(Value value) {
+        while ((value instanceof Operation operation) && replacements.containsKey(operation)) {
+            value = replacements.get(operation);
+        }
+
+        return value;
+    }
+
+    /**
+     * Get the block where a statement begins.
+     *
+     * @param stmtCtx the StatementContext.
+     * @return the block, or null if it isn't part of this function
+     * or can't be executed.
+     */
+    public BasicBlock blockOf(ParserRuleContext stmtCtx) {
+        return statements.get(stmtCtx);
+    }
+
+    /**
+     * Get the expressions that have values, which valueOf looks up.
+     *
+     * @return the ExpressionContexts.
+     */
+    public Set<ParserRuleContext> getExpressions() {
+        return values.keySet();
+    }
+
+    public Map<ParserRuleContext, BasicBlock> getStatements() {
+        return statements;
+    }
+
+    /**
+     * Remove the blocks that can't be reached from the entry block, and
+     * forget the statements and expressions that were in them.
+     *
+     * @return the number of blocks removed.
+     */
+    public int removeUnreachableBlocks() {
+        HashSet<BasicBlock> reachable = new HashSet<>();
+        ArrayList<BasicBlock> work = new ArrayList<>(List.of(getEntry()));
+
+        while (!work.isEmpty()) {
+            BasicBlock block = work.remove(work.size() - 1);
+            if (reachable.add(block)) work.addAll(block.getSuccessors());
+        }
+
+        if (reachable.size() == blocks.size()) return 0;
+
+        ArrayList<BasicBlock> unreachable = new ArrayList<>();
+        for (BasicBlock block : blocks) {
+            if (!reachable.contains(block)) unreachable.add(block);
+        }
+
+        // Unlink them first, so that the phis of reachable blocks lose the
+        // operands from them, and then take apart their operations.
+        for (BasicBlock block : unreachable) {
+            for (BasicBlock successor : new ArrayList<>(block.getSuccessors())) {
+                block.removeSuccessor(successor);
+            }
+        }
+        for (BasicBlock block : unreachable) {
+            ArrayList<Operation> dead = new ArrayList<>(block.getPhis());
+            dead.addAll(block.getOperations());
+            for (Operation operation : dead) {
+                operation.replaceAllUsesWith(undefined());
+                operation.remove();
+            }
+        }
+
+        blocks.removeAll(unreachable);
+        HashSet<BasicBlock> removed = new HashSet<>(unreachable);
+        statements.values().removeIf(removed::contains);
+        evaluated.values().removeIf(removed::contains);
+        values.keySet().retainAll(evaluated.keySet());
+
+        return unreachable.size();
+    }
+
+    /**
+     * Remove the phis whose operands are all the same value or the phi
+     * itself, which happens when a block loses predecessors.
+     *
+     * @return the number of phis removed.
+     */
+    public int removeTrivialPhis() {
+        int count = 0;
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+
+            for (BasicBlock block : blocks) {
+                for (Operation phi : new ArrayList<>(block.getPhis())) {
+                    Value same = trivialValue(phi);
+
+                    if (same != null) {
+                        replace(phi, same);
+                        count++;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Get the only value that a phi merges, other than itself.
+     *
+     * @param phi the phi.
+     * @return the value, undefined if it merges nothing, or null
+     * if it merges different values.
+     */
+    Value trivialValue(Operation phi) {
+        Value same = null;
+
+        for (Value operand : phi.getOperands()) {
+            if ((operand == same) || (operand == phi)) continue;
+            if (same != null) return null;
+            same = operand;
+        }
+
+        return same != null ? same : undefined();
+    }
+
+    /**
+     * Infer the type of each phi as the join of its operands' types,
+     * repeating until nothing changes, since the phis of a loop can
+     * depend on each other. The other operations' types follow from
+     * their opcodes.
+     */
+    public void inferTypes() {
+        ArrayList<Operation> phis = new ArrayList<>();
+        for (BasicBlock block : blocks) phis.addAll(block.getPhis());
+        for (Operation phi : phis) phi.setType(null);
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            for (Operation phi : phis) {
+                SsaType type = null;
+                for (Value operand : phi.getOperands()) {
+                    if (operand.getType() != null) type = operand.getType().join(type);
+                }
+
+                if ((type != null) && (type != phi.getType())) {
+                    phi.setType(type);
+                    changed = true;
+                }
+            }
+        }
+
+        for (Operation phi : phis) {
+            if (phi.getType() == null) phi.setType(SsaType.ANY);
+        }
+    }
+}
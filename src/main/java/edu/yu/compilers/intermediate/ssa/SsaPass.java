@@ -0,0 +1,24 @@
+/**
+ * <h1>SsaPass</h1>
+ * <p>A pass over the SSA intermediate representation of a program,
+ * which analyzes or transforms it and counts what it changed.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+public interface SsaPass {
+    /**
+     * Get the pass's name for its statistics.
+     *
+     * @return the name.
+     */
+    String getName();
+
+    /**
+     * Run the pass.
+     *
+     * @param program the program.
+     * @return the number of changes, such as operations folded or removed.
+     */
+    int run(SsaProgram program);
+}
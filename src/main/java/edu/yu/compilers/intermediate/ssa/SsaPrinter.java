@@ -0,0 +1,93 @@
+/**
+ * <h1>SsaPrinter</h1>
+ * <p>Print the SSA intermediate representation of a program as text,
+ * one function at a time, for debugging the builder and the passes.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class SsaPrinter {
+    private final PrintStream out;
+
+    /**
+     * Constructor.
+     *
+     * @param out the output stream.
+     */
+    public SsaPrinter(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Print a program.
+     *
+     * @param program the program.
+     */
+    public void print(SsaProgram program) {
+        for (SsaFunction function : program.getAllFunctions()) print(function);
+
+        for (Map.Entry<String, String> entry : program.getUnsupported().entrySet()) {
+            out.printf("function %s: not built, it %s%n%n", entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Print a function.
+     *
+     * @param function the function.
+     */
+    public void print(SsaFunction function) {
+        String parameters = function.getParameters().stream()
+                .map(Parameter::getName)
+                .collect(Collectors.joining(", "));
+        out.printf("function %s(%s)%n", function.getName(), parameters);
+
+        for (BasicBlock block : function.getBlocks()) {
+            out.print("  " + block.getName() + ":");
+            if (!block.getPredecessors().isEmpty()) {
+                out.print("  <- " + block.getPredecessors().stream()
+                        .map(BasicBlock::getName)
+                        .collect(Collectors.joining(", ")));
+            }
+            out.println();
+
+            for (Operation phi : block.getPhis()) print(phi);
+            for (Operation operation : block.getOperations()) print(operation);
+        }
+
+        out.println();
+    }
+
+    private void print(Operation operation) {
+        StringBuilder buffer = new StringBuilder("    ");
+
+        if ((operation.getType() != SsaType.VOID)) {
+            buffer.append(operation.getName()).append(':').append(operation.getType()).append(" = ");
+        }
+        buffer.append(operation.getOpcode());
+        if (operation.getSymbol() != null) buffer.append(' ').append(operation.getSymbol());
+
+        for (int i = 0; i < operation.getOperands().size(); i++) {
+            buffer.append(i == 0 ? " " : ", ").append(operation.getOperand(i).getName());
+            if (operation.isPhi()) {
+                buffer.append(" from ").append(operation.getBlock().getPredecessors().get(i).getName());
+            }
+        }
+
+        if (operation.getOpcode().isTerminator() && !operation.getBlock().getSuccessors().isEmpty()) {
+            buffer.append(" -> ").append(operation.getBlock().getSuccessors().stream()
+                    .map(BasicBlock::getName)
+                    .collect(Collectors.joining(", ")));
+        }
+
+        if (operation.getContext() != null) {
+            buffer.append("    ; line ").append(operation.getContext().getStart().getLine());
+        }
+
+        out.println(buffer);
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * <h1>SsaProgram</h1>
+ * <p>The SSA intermediate representation of a program, which is built
+ * once after semantic analysis and then transformed by passes. It has a
+ * function for the program's initialization of its variables and
+ * constants, one for main, and one for each function definition that
+ * could be built. A function that couldn't be built has a reason
+ * instead, and the backends translate it without any facts from
+ * the passes.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+import antlr4.JavanaParser;
+import org.antlr.v4.runtime.ParserRuleContext;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+public class SsaProgram {
+    private final JavanaParser.ProgramContext ctx;
+    private final Set<String> globalNames;                          // program variables and constants
+    private final LinkedHashMap<String, SsaFunction> functions;    // name -> function, in source order
+    private final LinkedHashMap<String, String> unsupported;        // name -> why it wasn't built
+    private final LinkedHashMap<ParserRuleContext, SsaFunction> byContext;  // routine context -> function
+    private SsaFunction initializer;
+    private SsaFunction main;
+
+    SsaProgram(JavanaParser.ProgramContext ctx, Set<String> globalNames) {
+        this.ctx = ctx;
+        this.globalNames = globalNames;
+        this.functions = new LinkedHashMap<>();
+        this.unsupported = new LinkedHashMap<>();
+        this.byContext = new LinkedHashMap<>();
+    }
+
+    public JavanaParser.ProgramContext getContext() {
+        return ctx;
+    }
+
+    public Set<String> getGlobalNames() {
+        return globalNames;
+    }
+
+    void add(SsaFunction function) {
+        switch (function.getKind()) {
+            case INITIALIZER -> initializer = function;
+            case MAIN -> main = function;
+            default -> functions.put(function.getName(), function);
+        }
+
+        byContext.put(function.getContext(), function);
+    }
+
+    void addUnsupported(String name, String reason) {
+        unsupported.put(name, reason);
+    }
+
+    /**
+     * Remove a function, built or not, such as one that is never called.
+     *
+     * @param name the function's name.
+     */
+    void remove(String name) {
+        SsaFunction function = functions.remove(name);
+        if (function != null) byContext.remove(function.getContext());
+        unsupported.remove(name);
+    }
+
+    /**
+     * Get the initialization of the program variables and constants.
+     *
+     * @return the function, or null if it couldn't be built.
+     */
+    public SsaFunction getInitializer() {
+        return initializer;
+    }
+
+    /**
+     * Get main.
+     *
+     * @return the function, or null if it couldn't be built.
+     */
+    public SsaFunction getMain() {
+        return main;
+    }
+
+    /**
+     * Get a function by name.
+     *
+     * @param name the function's name.
+     * @return the function, or null if there is none or it couldn't be built.
+     */
+    public SsaFunction getFunction(String name) {
+        return functions.get(name);
+    }
+
+    /**
+     * Get the function built from a routine of the parse tree.
+     *
+     * @param routineCtx the FuncDefinitionContext, MainMethodContext,
+     *                   or ProgramContext for the initializer.
+     * @return the function, or null if it couldn't be built.
+     */
+    public SsaFunction getFunction(ParserRuleContext routineCtx) {
+        return byContext.get(routineCtx);
+    }
+
+    /**
+     * Get every function, the initializer and main included.
+     *
+     * @return the functions.
+     */
+    public Collection<SsaFunction> getAllFunctions() {
+        return byContext.values();
+    }
+
+    public Map<String, SsaFunction> getFunctions() {
+        return functions;
+    }
+
+    /**
+     * Get the routines that couldn't be built.
+     *
+     * @return the map of routine name to reason.
+     */
+    public Map<String, String> getUnsupported() {
+        return unsupported;
+    }
+}
@@ -0,0 +1,29 @@
+/**
+ * <h1>SsaType</h1>
+ * <p>The type of a value of the SSA intermediate representation. A value
+ * has a type other than ANY only if it has that type on every execution,
+ * whatever errors were flagged while computing it, so that a pass can
+ * rely on the type: the result of an addition is always an integer,
+ * but a variable read from memory can hold anything.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+public enum SsaType {
+    INT, BOOL, STRING, ANY, VOID;
+
+    /**
+     * Join two types at a merge of control flow.
+     *
+     * @param other the other type, or null if it isn't known yet.
+     * @return the type of a value that can be either.
+     */
+    public SsaType join(SsaType other) {
+        return (other == null) || (other == this) ? this : ANY;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString().toLowerCase();
+    }
+}
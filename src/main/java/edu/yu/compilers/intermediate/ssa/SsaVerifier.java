@@ -0,0 +1,95 @@
+/**
+ * <h1>SsaVerifier</h1>
+ * <p>Check that the SSA intermediate representation of a function is
+ * well formed, after it is built and after each pass: every block ends
+ * with one terminator that has the right number of successors, the
+ * predecessor and successor lists agree, every phi has an operand for
+ * each predecessor, and every operand is a value of the function that
+ * is still in a block and records its use.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+import java.util.HashSet;
+import java.util.List;
+
+public class SsaVerifier {
+    private SsaVerifier() {
+    }
+
+    /**
+     * Verify every function of a program.
+     *
+     * @param program the program.
+     * @throws IllegalStateException if a function is malformed.
+     */
+    public static void verify(SsaProgram program) {
+        for (SsaFunction function : program.getAllFunctions()) verify(function);
+    }
+
+    /**
+     * Verify a function.
+     *
+     * @param function the function.
+     * @throws IllegalStateException if it is malformed.
+     */
+    public static void verify(SsaFunction function) {
+        HashSet<BasicBlock> blocks = new HashSet<>(function.getBlocks());
+
+        for (BasicBlock block : function.getBlocks()) {
+            Operation terminator = block.getTerminator();
+            check(terminator != null, function, block, "has no terminator");
+
+            int successors = switch (terminator.getOpcode()) {
+                case JUMP -> 1;
+                case BRANCH -> 2;
+                default -> 0;
+            };
+            check(block.getSuccessors().size() == successors, function, block, "has the wrong successors");
+
+            for (BasicBlock successor : block.getSuccessors()) {
+                check(blocks.contains(successor) && successor.getPredecessors().contains(block),
+                      function, block, "has a successor that doesn't list it");
+            }
+            for (BasicBlock predecessor : block.getPredecessors()) {
+                check(blocks.contains(predecessor) && predecessor.getSuccessors().contains(block),
+                      function, block, "has a predecessor that doesn't list it");
+            }
+
+            for (Operation phi : block.getPhis()) {
+                check(phi.isPhi() && (phi.getBlock() == block), function, block, "has a misplaced phi");
+                check(phi.getOperands().size() == block.getPredecessors().size(),
+                      function, block, "has a phi without an operand per predecessor");
+                verifyOperands(function, blocks, block, phi);
+            }
+
+            List<Operation> operations = block.getOperations();
+            for (int i = 0; i < operations.size(); i++) {
+                Operation operation = operations.get(i);
+                check(!operation.isPhi() && (operation.getBlock() == block), function, block,
+                      "has a misplaced operation");
+                check(operation.getOpcode().isTerminator() == (i == operations.size() - 1), function, block,
+                      "has a terminator that isn't last");
+                verifyOperands(function, blocks, block, operation);
+            }
+        }
+    }
+
+    private static void verifyOperands(SsaFunction function, HashSet<BasicBlock> blocks,
+                                       BasicBlock block, Operation operation) {
+        for (Value operand : operation.getOperands()) {
+            check(operand.getUsers().contains(operation), function, block,
+                  "has an operand that doesn't record its use");
+            if (operand instanceof Operation definition) {
+                check(blocks.contains(definition.getBlock()), function, block, "uses a removed operation");
+            }
+        }
+    }
+
+    private static void check(boolean condition, SsaFunction function, BasicBlock block, String message) {
+        if (!condition) {
+            throw new IllegalStateException("SSA function " + function.getName() + " block "
+                                            + block.getName() + " " + message);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * <h1>TailCall</h1>
+ * <p>A return statement whose value is a call of a function in the same
+ * cycle of the call graph, found by tail call elimination. Nothing is
+ * left to do after the call, so a backend can make it without growing
+ * the stack. A call of the enclosing function itself can assign the
+ * arguments to the parameters and start the function's body over. Any
+ * other tail call can return to the caller, which then makes the call
+ * in its place, like a trampoline.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+import antlr4.JavanaParser;
+
+import java.util.List;
+
+public class TailCall {
+    private final JavanaParser.ReturnStatementContext ctx;
+    private final JavanaParser.FunctionCallContext callCtx;
+    private final boolean self;  // true if the callee is the enclosing function
+
+    TailCall(JavanaParser.ReturnStatementContext ctx, JavanaParser.FunctionCallContext callCtx, boolean self) {
+        this.ctx = ctx;
+        this.callCtx = callCtx;
+        this.self = self;
+    }
+
+    /**
+     * Get the tail call that a return statement is.
+     *
+     * @param ctx the ReturnStatementContext.
+     * @return the tail call, or null if it isn't one.
+     */
+    public static TailCall of(JavanaParser.ReturnStatementContext ctx) {
+        return (TailCall) ctx.tailCall;
+    }
+
+    /**
+     * Get the tail calls of a function.
+     *
+     * @param funcCtx the FuncDefinitionContext.
+     * @return the tail calls, in source order, which can be empty.
+     */
+    @SuppressWarnings("unchecked")
+    public static List<TailCall> in(JavanaParser.FuncDefinitionContext funcCtx) {
+        return funcCtx.tailCalls != null ? (List<TailCall>) funcCtx.tailCalls : List.of();
+    }
+
+    /**
+     * Determine whether a function calls itself in a tail call.
+     *
+     * @param funcCtx the FuncDefinitionContext.
+     * @return true if it does.
+     */
+    public static boolean loopsIn(JavanaParser.FuncDefinitionContext funcCtx) {
+        for (TailCall tailCall : in(funcCtx)) {
+            if (tailCall.isSelf()) return true;
+        }
+
+        return false;
+    }
+
+    public JavanaParser.ReturnStatementContext getContext() {
+        return ctx;
+    }
+
+    public JavanaParser.FunctionCallContext getCall() {
+        return callCtx;
+    }
+
+    public List<JavanaParser.ExpressionContext> getArguments() {
+        return callCtx.args != null ? callCtx.args.exprs : List.of();
+    }
+
+    public boolean isSelf() {
+        return self;
+    }
+}
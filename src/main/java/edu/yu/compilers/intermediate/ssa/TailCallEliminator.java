@@ -0,0 +1,204 @@
+/**
+ * <h1>TailCallEliminator</h1>
+ * <p>Find the return statements whose value is a call, with nothing left
+ * to do after it, of a function in the same cycle of the call graph,
+ * and attach each one to its parse tree node and to its function's
+ * definition. Without this, deep recursion grows the stack by a frame
+ * for every call.</p>
+ * <p>A tail call of the enclosing function itself becomes a loop: the
+ * old entry block is the loop header, with a phi for each parameter
+ * that merges the arguments of the function's callers and those of its
+ * tail calls, and each tail call becomes a jump back to the header. A
+ * backend assigns the arguments to the parameters and starts the body
+ * over. A tail call of another function in the cycle stays a call in
+ * the representation, and a backend makes it on the caller's behalf.
+ * Only returns with a value are tail calls. A function in a cycle is
+ * never inlined, so its body always runs as its own.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+import antlr4.JavanaBaseVisitor;
+import antlr4.JavanaParser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static edu.yu.compilers.intermediate.ssa.Opcode.*;
+
+public class TailCallEliminator implements SsaPass {
+
+    @Override
+    public String getName() {
+        return "tail calls eliminated";
+    }
+
+    @Override
+    public int run(SsaProgram program) {
+        LinkedHashMap<String, JavanaParser.FuncDefinitionContext> definitions = new LinkedHashMap<>();
+        HashMap<String, Set<String>> calls = new HashMap<>();
+
+        for (JavanaParser.GlobalDefinitionsContext defCtx : program.getContext().defs) {
+            if ((defCtx.nameDeclDefStatement() != null) && (defCtx.nameDeclDefStatement().funcDefinition() != null)) {
+                JavanaParser.FuncDefinitionContext funcCtx = defCtx.nameDeclDefStatement().funcDefinition();
+                if (funcCtx.dead) continue;
+
+                String name = funcCtx.proto.name.getText();
+                definitions.put(name, funcCtx);
+                calls.put(name, callees(funcCtx));
+            }
+        }
+
+        int count = 0;
+
+        for (var entry : definitions.entrySet()) {
+            SsaFunction function = program.getFunction(entry.getKey());
+            if (function == null) continue;
+
+            ArrayList<TailCall> tailCalls = new ArrayList<>();
+            ArrayList<Operation> selfCalls = new ArrayList<>();
+
+            for (BasicBlock block : function.getBlocks()) {
+                Operation call = tailCall(block);
+                if ((call == null) || !reaches(call.getSymbol(), function.getName(), calls)) continue;
+
+                boolean self = call.getSymbol().equals(function.getName());
+                if (self && (call.getOperands().size() != function.getParameters().size())) continue;
+
+                JavanaParser.ReturnStatementContext returnCtx =
+                        (JavanaParser.ReturnStatementContext) block.getTerminator().getContext();
+                TailCall tailCall = new TailCall(returnCtx, (JavanaParser.FunctionCallContext) call.getContext(), self);
+
+                returnCtx.tailCall = tailCall;
+                tailCalls.add(tailCall);
+                if (self) selfCalls.add(call);
+            }
+
+            if (!selfCalls.isEmpty()) loop(function, selfCalls);
+
+            tailCalls.sort((a, b) -> Integer.compare(a.getContext().getStart().getTokenIndex(),
+                                                     b.getContext().getStart().getTokenIndex()));
+            entry.getValue().tailCalls = tailCalls;
+            count += tailCalls.size();
+        }
+
+        return count;
+    }
+
+    /**
+     * Get the names of the functions that a function definition calls.
+     * The parse tree is searched rather than the representation, which
+     * doesn't include functions that couldn't be built.
+     */
+    private static Set<String> callees(JavanaParser.FuncDefinitionContext funcCtx) {
+        LinkedHashSet<String> names = new LinkedHashSet<>();
+
+        new JavanaBaseVisitor<Void>() {
+            @Override
+            public Void visitFunctionCall(JavanaParser.FunctionCallContext ctx) {
+                names.add(ctx.name.getText());
+                return visitChildren(ctx);
+            }
+        }.visit(funcCtx.body);
+
+        return names;
+    }
+
+    /**
+     * Determine whether a function can call another, directly or
+     * through other functions.
+     */
+    private static boolean reaches(String from, String to, HashMap<String, Set<String>> calls) {
+        HashSet<String> visited = new HashSet<>();
+        ArrayList<String> work = new ArrayList<>(List.of(from));
+
+        while (!work.isEmpty()) {
+            String name = work.remove(work.size() - 1);
+            if (name.equals(to)) return true;
+            if (visited.add(name) && calls.containsKey(name)) work.addAll(calls.get(name));
+        }
+
+        return false;
+    }
+
+    /**
+     * Get the call that a block returns the value of, if the block ends
+     * with a return statement whose expression is the call and nothing
+     * is between the call and the return.
+     *
+     * @param block the block.
+     * @return the CALL operation, or null if there is none.
+     */
+    private static Operation tailCall(BasicBlock block) {
+        List<Operation> operations = block.getOperations();
+        Operation terminator = block.getTerminator();
+
+        if ((terminator == null) || (terminator.getOpcode() != RETURN) || (terminator.getOperands().size() != 1)
+                || !(terminator.getContext() instanceof JavanaParser.ReturnStatementContext returnCtx)
+                || (operations.size() < 2)) {
+            return null;
+        }
+
+        Operation call = operations.get(operations.size() - 2);
+        if ((call.getOpcode() != CALL) || (terminator.getOperand(0) != call) || (call.getUsers().size() != 1)
+                || !(call.getContext() instanceof JavanaParser.FunctionCallContext callCtx)
+                || (InlinedCall.of(callCtx) != null)) {
+            return null;
+        }
+
+        // The return's expression must be the call itself, and not
+        // something that folded to the call's value.
+        JavanaParser.ExpressionContext exprCtx = returnCtx.expr;
+        while (exprCtx instanceof JavanaParser.ParenthesizedExpressionContext parenCtx) {
+            exprCtx = parenCtx.expression();
+        }
+
+        return (exprCtx instanceof JavanaParser.FunctionCallExpressionContext callExprCtx)
+                && (callExprCtx.functionCall() == callCtx) ? call : null;
+    }
+
+    /**
+     * Turn a function's tail calls of itself into jumps to its entry
+     * block, which a new entry block jumps to.
+     *
+     * @param function the function.
+     * @param calls    the CALL operations.
+     */
+    private static void loop(SsaFunction function, List<Operation> calls) {
+        BasicBlock header = function.getEntry();
+        BasicBlock entry = function.newEntryBlock();
+
+        entry.append(function.newOperation(JUMP, null, function.getContext()));
+        entry.addSuccessor(header);
+
+        // Each parameter becomes a phi, whose first operand comes
+        // from the function's callers.
+        ArrayList<Operation> phis = new ArrayList<>();
+        for (Parameter parameter : function.getParameters()) {
+            Operation phi = function.newOperation(PHI, null, null);
+            parameter.replaceAllUsesWith(phi);
+            header.append(phi);
+            phi.addOperand(parameter);
+            phis.add(phi);
+        }
+
+        for (Operation call : calls) {
+            BasicBlock block = call.getBlock();
+            Operation terminator = block.getTerminator();
+            Operation jump = function.newOperation(JUMP, null, terminator.getContext());
+
+            terminator.remove();
+            block.addSuccessor(header);
+            for (int i = 0; i < phis.size(); i++) phis.get(i).addOperand(call.getOperand(i));
+            call.remove();
+            block.append(jump);
+        }
+
+        function.inferTypes();
+    }
+}
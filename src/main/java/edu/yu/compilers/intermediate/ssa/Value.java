@@ -0,0 +1,67 @@
+/**
+ * <h1>Value</h1>
+ * <p>A value of the SSA intermediate representation, which is defined
+ * exactly once: a constant, a function parameter, or the result of an
+ * operation. Each value keeps the operations that use it, so that a
+ * pass can replace it everywhere.</p>
+ */
+
+package edu.yu.compilers.intermediate.ssa;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public abstract class Value {
+    private final int id;                       // unique within its function
+    private final ArrayList<Operation> users;  // operations with this value as an operand, with repeats
+    protected SsaType type;
+
+    protected Value(int id, SsaType type) {
+        this.id = id;
+        this.type = type;
+        this.users = new ArrayList<>();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public SsaType getType() {
+        return type;
+    }
+
+    public List<Operation> getUsers() {
+        return users;
+    }
+
+    void addUser(Operation user) {
+        users.add(user);
+    }
+
+    void removeUser(Operation user) {
+        users.remove(user);
+    }
+
+    /**
+     * Replace this value by another one in every operation that uses it.
+     *
+     * @param other the other value.
+     */
+    public void replaceAllUsesWith(Value other) {
+        for (Operation user : new ArrayList<>(users)) {
+            user.replaceOperand(this, other);
+        }
+    }
+
+    /**
+     * Get the text of the value as an operand.
+     *
+     * @return the text.
+     */
+    public abstract String getName();
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * <h1>ConstantPool</h1>
+ * <p>Decode the literals of a Javana program once and intern their values.
+ * Each literal's parse tree node keeps its decoded value, so evaluating
+ * a literal is a field read instead of parsing its token again.</p>
+ */
+
+package edu.yu.compilers.intermediate.util;
+
+import antlr4.JavanaBaseVisitor;
+import antlr4.JavanaParser;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.util.HashMap;
+
+public class ConstantPool {
+    private final HashMap<Object, Object> constants;  // value -> interned value
+
+    public ConstantPool() {
+        this.constants = new HashMap<>();
+    }
+
+    /**
+     * Get the value of a literal, decoding it and attaching the
+     * interned value to its node the first time.
+     *
+     * @param ctx the LiteralContext.
+     * @return the value, which is null for None.
+     */
+    public Object literal(JavanaParser.LiteralContext ctx) {
+        if (ctx.value == null) {
+            Object value = decode(ctx);
+            if (value != null) ctx.value = constants.computeIfAbsent(value, v -> v);
+        }
+
+        return ctx.value;
+    }
+
+    /**
+     * Decode every literal in a parse tree that doesn't yet have its value.
+     *
+     * @param tree the parse tree.
+     */
+    public void literals(ParseTree tree) {
+        new JavanaBaseVisitor<Void>() {
+            @Override
+            public Void visitIntegerLiteral(JavanaParser.IntegerLiteralContext ctx) {
+                literal(ctx);
+                return null;
+            }
+
+            @Override
+            public Void visitBooleanLiteral(JavanaParser.BooleanLiteralContext ctx) {
+                literal(ctx);
+                return null;
+            }
+
+            @Override
+            public Void visitStringLiteral(JavanaParser.StringLiteralContext ctx) {
+                literal(ctx);
+                return null;
+            }
+        }.visit(tree);
+    }
+
+    /**
+     * Get the number of distinct constants in the pool.
+     *
+     * @return the count.
+     */
+    public int size() {
+        return constants.size();
+    }
+
+    /**
+     * Decode the token of a literal.
+     *
+     * @param ctx the LiteralContext.
+     * @return the value, which is null for None.
+     */
+    private static Object decode(JavanaParser.LiteralContext ctx) {
+        if (ctx instanceof JavanaParser.IntegerLiteralContext intCtx) {
+            return Integer.valueOf(intCtx.INTEGER().getText());
+        } else if (ctx instanceof JavanaParser.BooleanLiteralContext boolCtx) {
+            return Boolean.valueOf(boolCtx.BOOL().getText());
+        } else if (ctx instanceof JavanaParser.StringLiteralContext stringCtx) {
+            return decodeString(stringCtx.STRING().getText());
+        } else {
+            return null;  // None
+        }
+    }
+
+    /**
+     * Strip the quotes from a STRING token and process its escapes,
+     * which are those of the STRING lexer rule.
+     *
+     * @param token the token text.
+     * @return the string value.
+     */
+    public static String decodeString(String token) {
+        int end = token.length() - 1;
+        if (token.indexOf('\\') < 0) return token.substring(1, end);
+
+        StringBuilder buffer = new StringBuilder(end);
+
+        for (int i = 1; i < end; i++) {
+            char ch = token.charAt(i);
+
+            if (ch == '\\') {
+                ch = switch (token.charAt(++i)) {
+                    case 'b' -> '\b';
+                    case 't' -> '\t';
+                    case 'n' -> '\n';
+                    case 'f' -> '\f';
+                    case 'r' -> '\r';
+                    default -> token.charAt(i);  // \" and \\
+                };
+            }
+
+            buffer.append(ch);
+        }
+
+        return buffer.toString();
+    }
+}
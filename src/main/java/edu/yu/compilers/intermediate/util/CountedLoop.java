@@ -0,0 +1,224 @@
+/**
+ * <h1>CountedLoop</h1>
+ * <p>Recognize a for statement that counts an int variable by a constant
+ * step toward a loop-invariant bound, such as
+ * for (var i = 0; i &lt; s.length; i + 1). The bound is an integer literal,
+ * a variable, or the length of a string or an array variable, where the
+ * loop body assigns neither the induction variable nor the bound's
+ * variable. A backend can evaluate the bound once and step the variable
+ * in place.</p>
+ */
+
+package edu.yu.compilers.intermediate.util;
+
+import antlr4.JavanaBaseVisitor;
+import antlr4.JavanaParser;
+
+import java.util.HashSet;
+import java.util.function.Predicate;
+
+public class CountedLoop {
+    private final String variable;                       // the induction variable
+    private final JavanaParser.ExpressionContext start;  // its initial value
+    private final JavanaParser.ExpressionContext bound;  // the invariant bound
+    private final String relation;                       // <, <=, >, or >= with the variable on the left
+    private final int step;                              // added to the variable after each iteration
+
+    private CountedLoop(String variable, JavanaParser.ExpressionContext start,
+                        JavanaParser.ExpressionContext bound, String relation, int step) {
+        this.variable = variable;
+        this.start = start;
+        this.bound = bound;
+        this.relation = relation;
+        this.step = step;
+    }
+
+    /**
+     * Match a for statement.
+     *
+     * @param ctx     the ForStatementContext.
+     * @param isLocal tells whether a name is a local of the routine, which
+     *                calls in the loop body can't assign.
+     * @return the match, or null if the loop isn't a counted loop.
+     */
+    public static CountedLoop of(JavanaParser.ForStatementContext ctx, Predicate<String> isLocal) {
+        // var i = start
+        if (!(ctx.init instanceof JavanaParser.VariableDefinitionContext initCtx)
+                || (initCtx.namelst.names.size() != 1)) {
+            return null;
+        }
+        String variable = initCtx.namelst.names.get(0).getText();
+
+        // i < bound, or bound > i
+        if (!(unparenthesized(ctx.condition) instanceof JavanaParser.RelationalExpressionContext condCtx)) {
+            return null;
+        }
+        String relation = condCtx.REL_OP().getText();
+        JavanaParser.ExpressionContext bound;
+
+        if (isVariable(condCtx.expression(0), variable)) {
+            bound = condCtx.expression(1);
+        } else if (isVariable(condCtx.expression(1), variable)) {
+            bound = condCtx.expression(0);
+            relation = mirrored(relation);
+        } else {
+            return null;
+        }
+
+        // i + step, i - step, or step + i
+        Integer step = step(ctx.updateExpr, variable);
+        if ((step == null) || (step == 0) || ((step > 0) != relation.startsWith("<"))) return null;
+
+        // The body assigns neither the variable nor the bound.
+        Assignments assignments = new Assignments();
+        assignments.visit(ctx.body);
+        if (assignments.names.contains(variable)) return null;
+        if (!isInvariant(bound, variable, assignments, isLocal)) return null;
+
+        return new CountedLoop(variable, initCtx.expr, bound, relation, step);
+    }
+
+    /**
+     * Determine whether a bound is an integer literal, a variable, or the
+     * length of a variable, whose value the loop body doesn't change.
+     */
+    private static boolean isInvariant(JavanaParser.ExpressionContext ctx, String variable,
+                                       Assignments assignments, Predicate<String> isLocal) {
+        ctx = unparenthesized(ctx);
+
+        if (ctx instanceof JavanaParser.LiteralExpressionContext litCtx) {
+            return litCtx.literal() instanceof JavanaParser.IntegerLiteralContext;
+        }
+        if (ctx instanceof JavanaParser.StringLengthExpressionContext lengthCtx) {
+            ctx = unparenthesized(lengthCtx.expression());
+        } else if (ctx instanceof JavanaParser.ArrayLengthExpressionContext lengthCtx) {
+            ctx = unparenthesized(lengthCtx.arrayLength().paramArray);
+        }
+        if (!(ctx instanceof JavanaParser.IdentifierExpressionContext idCtx)) return false;
+
+        String name = idCtx.getText();
+        return !name.equals(variable) && !assignments.names.contains(name)
+                && (!assignments.calls || isLocal.test(name));
+    }
+
+    /**
+     * Get the constant step of an update expression of a variable.
+     *
+     * @return the step, or null if the update isn't a constant step.
+     */
+    private static Integer step(JavanaParser.ExpressionContext ctx, String variable) {
+        if (!(unparenthesized(ctx) instanceof JavanaParser.ArithmeticExpressionContext arithCtx)) return null;
+
+        boolean plus = arithCtx.ARITH_OP().getText().equals("+");
+        JavanaParser.ExpressionContext lhs = arithCtx.expression(0);
+        JavanaParser.ExpressionContext rhs = arithCtx.expression(1);
+
+        if (isVariable(lhs, variable)) {
+            Integer value = integerLiteral(rhs);
+            return (value == null) || (value == Integer.MIN_VALUE) ? null : (plus ? value : -value);
+        }
+        if (plus && isVariable(rhs, variable)) return integerLiteral(lhs);
+
+        return null;
+    }
+
+    private static Integer integerLiteral(JavanaParser.ExpressionContext ctx) {
+        if ((unparenthesized(ctx) instanceof JavanaParser.LiteralExpressionContext litCtx)
+                && (litCtx.literal() instanceof JavanaParser.IntegerLiteralContext intCtx)) {
+            try {
+                return Integer.valueOf(intCtx.INTEGER().getText());
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+
+        return null;
+    }
+
+    private static boolean isVariable(JavanaParser.ExpressionContext ctx, String variable) {
+        return (unparenthesized(ctx) instanceof JavanaParser.IdentifierExpressionContext idCtx)
+                && idCtx.getText().equals(variable);
+    }
+
+    private static String mirrored(String relation) {
+        return switch (relation) {
+            case "<" -> ">";
+            case "<=" -> ">=";
+            case ">" -> "<";
+            default -> "<=";
+        };
+    }
+
+    private static JavanaParser.ExpressionContext unparenthesized(JavanaParser.ExpressionContext ctx) {
+        while (ctx instanceof JavanaParser.ParenthesizedExpressionContext parenCtx) {
+            ctx = parenCtx.expression();
+        }
+
+        return ctx;
+    }
+
+    /**
+     * Collect the names that a loop body assigns or declares, and
+     * whether it calls any function.
+     */
+    private static class Assignments extends JavanaBaseVisitor<Void> {
+        private final HashSet<String> names = new HashSet<>();
+        private boolean calls = false;
+
+        @Override
+        public Void visitAssignmentStatement(JavanaParser.AssignmentStatementContext ctx) {
+            if (ctx.var.modifiers.isEmpty()) names.add(ctx.var.name.getText());
+            return visitChildren(ctx);
+        }
+
+        @Override
+        public Void visitForStatement(JavanaParser.ForStatementContext ctx) {
+            // The update assigns the leftmost operand of its expression.
+            JavanaParser.ExpressionContext targetCtx = unparenthesized(ctx.updateExpr);
+            while ((targetCtx.getChildCount() == 3)
+                    && (targetCtx.getChild(0) instanceof JavanaParser.ExpressionContext leftCtx)) {
+                targetCtx = unparenthesized(leftCtx);
+            }
+            names.add(targetCtx.getText());
+
+            return visitChildren(ctx);
+        }
+
+        @Override
+        public Void visitNameList(JavanaParser.NameListContext ctx) {
+            for (JavanaParser.IdentifierContext nameCtx : ctx.names) names.add(nameCtx.getText());
+            return null;
+        }
+
+        @Override
+        public Void visitFunctionCall(JavanaParser.FunctionCallContext ctx) {
+            calls = true;
+            return visitChildren(ctx);
+        }
+    }
+
+    public String getVariable() {
+        return variable;
+    }
+
+    public JavanaParser.ExpressionContext getStart() {
+        return start;
+    }
+
+    public JavanaParser.ExpressionContext getBound() {
+        return bound;
+    }
+
+    /**
+     * Get the relation of the loop test, with the variable on the left.
+     *
+     * @return <, <=, >, or >=.
+     */
+    public String getRelation() {
+        return relation;
+    }
+
+    public int getStep() {
+        return step;
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * <h1>FormatRecipe</h1>
+ * <p>Split a printf format string at compile time into its literal
+ * segments and its conversions, so that a backend can build the output
+ * by appending pieces instead of having String.format parse the format
+ * on every call. Only the simple conversions %d and %s are split, along
+ * with %% and %n. %n is a newline, as println prints, not the line
+ * separator of the machine that compiled the program. A format with
+ * flags, widths, or other conversions has no recipe and is left to
+ * String.format. Semantics splits each literal format once and attaches
+ * the recipe to its printf call.</p>
+ */
+
+package edu.yu.compilers.intermediate.util;
+
+import antlr4.JavanaParser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class FormatRecipe {
+    public static final char INTEGER = 'd';
+    public static final char STRING = 's';
+
+    private final List<String> segments;        // literal text around the conversions
+    private final List<Character> conversions;  // INTEGER or STRING, one per argument
+
+    private FormatRecipe(List<String> segments, List<Character> conversions) {
+        this.segments = segments;
+        this.conversions = conversions;
+    }
+
+    /**
+     * Split a format string.
+     *
+     * @param format the format string.
+     * @return the recipe, or null if the format has a conversion that
+     * isn't %d, %s, %%, or %n.
+     */
+    public static FormatRecipe parse(String format) {
+        ArrayList<String> segments = new ArrayList<>();
+        ArrayList<Character> conversions = new ArrayList<>();
+        StringBuilder segment = new StringBuilder();
+
+        for (int i = 0; i < format.length(); i++) {
+            char ch = format.charAt(i);
+
+            if (ch != '%') {
+                segment.append(ch);
+                continue;
+            }
+            if (++i == format.length()) return null;
+
+            switch (ch = format.charAt(i)) {
+                case '%' -> segment.append('%');
+                case 'n' -> segment.append('\n');
+                case INTEGER, STRING -> {
+                    segments.add(segment.toString());
+                    conversions.add(ch);
+                    segment.setLength(0);
+                }
+                default -> {
+                    return null;
+                }
+            }
+        }
+
+        segments.add(segment.toString());
+        return new FormatRecipe(segments, conversions);
+    }
+
+    /**
+     * Get the recipe of a printf call, which Semantics attaches to the
+     * call after it validates the arguments against the conversions.
+     * A call that Semantics didn't check is split here.
+     *
+     * @param ctx the PrintfCallContext.
+     * @return the recipe, or null if the format isn't a string literal,
+     * can't be split, or doesn't have one conversion per argument.
+     */
+    public static FormatRecipe of(JavanaParser.PrintfCallContext ctx) {
+        if (ctx.recipe != null) return (FormatRecipe) ctx.recipe;
+
+        FormatRecipe recipe = split(ctx);
+        int argCount = ((JavanaParser.PrintFArgsListContext) ctx.argsList()).expression().size();
+
+        return (recipe != null) && (recipe.getArgumentCount() == argCount) ? recipe : null;
+    }
+
+    /**
+     * Split the format string of a printf call, whatever its arguments.
+     *
+     * @param ctx the PrintfCallContext.
+     * @return the recipe, or null if the format isn't a string literal
+     * or can't be split.
+     */
+    public static FormatRecipe split(JavanaParser.PrintfCallContext ctx) {
+        if (!(ctx.formatString instanceof JavanaParser.LiteralExpressionContext litCtx)
+                || !(litCtx.literal() instanceof JavanaParser.StringLiteralContext stringCtx)) {
+            return null;
+        }
+
+        return parse(ConstantPool.decodeString(stringCtx.STRING().getText()));
+    }
+
+    /**
+     * Get the literal segments. There is one more segment than there are
+     * conversions: the text before each conversion, then the text after
+     * the last one. Any of them can be empty.
+     *
+     * @return the segments.
+     */
+    public List<String> getSegments() {
+        return segments;
+    }
+
+    public List<Character> getConversions() {
+        return conversions;
+    }
+
+    public int getArgumentCount() {
+        return conversions.size();
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * <h1>StringIntrinsic</h1>
+ * <p>Recognize string expressions that only compare or convert characters,
+ * such as stringEquals(substring(s, i, i + 1), letter), s.charAt(i) == letter,
+ * and stringCharToVal(s.charAt(i)). A backend can evaluate a match as a
+ * region compare or a char read on the original string instead of
+ * creating the one-character string first.</p>
+ */
+
+package edu.yu.compilers.intermediate.util;
+
+import antlr4.JavanaParser;
+
+public class StringIntrinsic {
+    public enum Kind {
+        REGION_EQUALS,  // a substring or char of string equals other
+        CHAR_VALUE      // the value of the first char of a substring or char
+    }
+
+    private final Kind kind;
+    private final JavanaParser.ExpressionContext string;  // the string whose chars are read
+    private final JavanaParser.ExpressionContext begin;   // index of the first char
+    private final JavanaParser.ExpressionContext end;     // index after the last char, or null for one char
+    private final JavanaParser.ExpressionContext other;   // the string compared with, or null
+    private final boolean otherFirst;                     // true if other is evaluated first
+
+    private StringIntrinsic(Kind kind,
+                            JavanaParser.ExpressionContext string,
+                            JavanaParser.ExpressionContext begin,
+                            JavanaParser.ExpressionContext end,
+                            JavanaParser.ExpressionContext other,
+                            boolean otherFirst) {
+        this.kind = kind;
+        this.string = string;
+        this.begin = begin;
+        this.end = end;
+        this.other = other;
+        this.otherFirst = otherFirst;
+    }
+
+    /**
+     * Match a stringEquals call.
+     *
+     * @param ctx the StringEqualsContext.
+     * @return the match, or null if it doesn't compare a substring or a char.
+     */
+    public static StringIntrinsic of(JavanaParser.StringEqualsContext ctx) {
+        return ofEquals(ctx.first, ctx.second);
+    }
+
+    /**
+     * Match an == or != expression.
+     *
+     * @param ctx the EqualityExpressionContext.
+     * @return the match, or null if it doesn't compare a substring or a char.
+     */
+    public static StringIntrinsic of(JavanaParser.EqualityExpressionContext ctx) {
+        return ofEquals(ctx.expression(0), ctx.expression(1));
+    }
+
+    /**
+     * Match a stringCharToVal call.
+     *
+     * @param ctx the StringCharToValCallContext.
+     * @return the match, or null if its argument isn't a substring or a char.
+     */
+    public static StringIntrinsic of(JavanaParser.StringCharToValCallContext ctx) {
+        JavanaParser.ExpressionContext argCtx = unparenthesized(ctx.expression());
+
+        if (argCtx instanceof JavanaParser.CharAtExpressionContext charCtx) {
+            return new StringIntrinsic(Kind.CHAR_VALUE, charCtx.expression(0), charCtx.expression(1),
+                                       null, null, false);
+        }
+        if (argCtx instanceof JavanaParser.SubstringExpressionContext subCtx) {
+            JavanaParser.SubstringCallContext callCtx = subCtx.substringCall();
+            return new StringIntrinsic(Kind.CHAR_VALUE, callCtx.first, callCtx.second,
+                                       callCtx.third, null, false);
+        }
+
+        return null;
+    }
+
+    private static StringIntrinsic ofEquals(JavanaParser.ExpressionContext first,
+                                            JavanaParser.ExpressionContext second) {
+        StringIntrinsic intrinsic = ofRegion(first, second, false);
+        return intrinsic != null ? intrinsic : ofRegion(second, first, true);
+    }
+
+    private static StringIntrinsic ofRegion(JavanaParser.ExpressionContext regionCtx,
+                                            JavanaParser.ExpressionContext otherCtx,
+                                            boolean otherFirst) {
+        regionCtx = unparenthesized(regionCtx);
+
+        if (regionCtx instanceof JavanaParser.CharAtExpressionContext charCtx) {
+            return new StringIntrinsic(Kind.REGION_EQUALS, charCtx.expression(0), charCtx.expression(1),
+                                       null, otherCtx, otherFirst);
+        }
+        if (regionCtx instanceof JavanaParser.SubstringExpressionContext subCtx) {
+            JavanaParser.SubstringCallContext callCtx = subCtx.substringCall();
+            return new StringIntrinsic(Kind.REGION_EQUALS, callCtx.first, callCtx.second,
+                                       callCtx.third, otherCtx, otherFirst);
+        }
+
+        return null;
+    }
+
+    private static JavanaParser.ExpressionContext unparenthesized(JavanaParser.ExpressionContext ctx) {
+        while (ctx instanceof JavanaParser.ParenthesizedExpressionContext parenCtx) {
+            ctx = parenCtx.expression();
+        }
+
+        return ctx;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public JavanaParser.ExpressionContext getString() {
+        return string;
+    }
+
+    public JavanaParser.ExpressionContext getBegin() {
+        return begin;
+    }
+
+    /**
+     * Get the index after the last char.
+     *
+     * @return the ExpressionContext, or null if the match reads a single char.
+     */
+    public JavanaParser.ExpressionContext getEnd() {
+        return end;
+    }
+
+    public JavanaParser.ExpressionContext getOther() {
+        return other;
+    }
+
+    public boolean isOtherFirst() {
+        return otherFirst;
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * <h1>SwitchChain</h1>
+ * <p>Recognize a chain of if statements that compare one variable with
+ * integer constants, which Javana programs write in place of a switch:
+ * if (x == 1) {...} else { if (x == 2) {...} else {...} }. A backend can
+ * dispatch on the variable's value with a jump table instead of testing
+ * each case in turn. A case whose constant repeats an earlier one can
+ * never be taken and is dropped.</p>
+ */
+
+package edu.yu.compilers.intermediate.util;
+
+import antlr4.JavanaParser;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+public class SwitchChain {
+    public static final int MIN_CASES = 3;  // shorter chains are tested in turn
+
+    private final JavanaParser.IdentifierExpressionContext variable;  // the variable switched on
+    private final List<Integer> values;                               // case constants, in source order
+    private final List<JavanaParser.BlockStatementContext> bodies;    // case bodies
+    private final JavanaParser.BlockStatementContext defaultBody;     // final else, or null
+
+    private SwitchChain(JavanaParser.IdentifierExpressionContext variable, List<Integer> values,
+                        List<JavanaParser.BlockStatementContext> bodies,
+                        JavanaParser.BlockStatementContext defaultBody) {
+        this.variable = variable;
+        this.values = values;
+        this.bodies = bodies;
+        this.defaultBody = defaultBody;
+    }
+
+    /**
+     * Match an if statement.
+     *
+     * @param ctx the IfStatementContext.
+     * @return the match, or null if it isn't a chain of at least
+     * MIN_CASES equality tests of one variable.
+     */
+    public static SwitchChain of(JavanaParser.IfStatementContext ctx) {
+        JavanaParser.IdentifierExpressionContext variable = null;
+        ArrayList<Integer> values = new ArrayList<>();
+        ArrayList<JavanaParser.BlockStatementContext> bodies = new ArrayList<>();
+        HashSet<Integer> seen = new HashSet<>();
+
+        while (true) {
+            JavanaParser.IdentifierExpressionContext caseVariable = comparedVariable(ctx.condition);
+            Integer value = comparedValue(ctx.condition);
+
+            if ((caseVariable == null) || (value == null)
+                    || ((variable != null) && !variable.getText().equals(caseVariable.getText()))) {
+                return null;
+            }
+            if (variable == null) variable = caseVariable;
+
+            if (seen.add(value)) {
+                values.add(value);
+                bodies.add(ctx.thenStmt);
+            }
+
+            // Continue with an else block whose only statement is an if.
+            JavanaParser.IfStatementContext nextCtx = elseIf(ctx.elseStmt);
+            if (nextCtx == null) break;
+            ctx = nextCtx;
+        }
+
+        return values.size() >= MIN_CASES ? new SwitchChain(variable, values, bodies, ctx.elseStmt) : null;
+    }
+
+    /**
+     * Get the if statement that is the only statement of an else block.
+     */
+    private static JavanaParser.IfStatementContext elseIf(JavanaParser.BlockStatementContext ctx) {
+        if ((ctx == null) || (ctx.stmts.size() != 1)) return null;
+        return ctx.stmts.get(0).ifStatement();
+    }
+
+    /**
+     * Get the variable of a condition x == c or c == x.
+     */
+    private static JavanaParser.IdentifierExpressionContext comparedVariable(JavanaParser.ExpressionContext ctx) {
+        if (!(unparenthesized(ctx) instanceof JavanaParser.EqualityExpressionContext eqCtx)
+                || !eqCtx.EQ_OP().getText().equals("==")) {
+            return null;
+        }
+
+        for (int i = 0; i < 2; i++) {
+            if ((unparenthesized(eqCtx.expression(i)) instanceof JavanaParser.IdentifierExpressionContext idCtx)
+                    && (integerLiteral(eqCtx.expression(1 - i)) != null)) {
+                return idCtx;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the constant of a condition x == c or c == x.
+     */
+    private static Integer comparedValue(JavanaParser.ExpressionContext ctx) {
+        if (!(unparenthesized(ctx) instanceof JavanaParser.EqualityExpressionContext eqCtx)) return null;
+
+        Integer value = integerLiteral(eqCtx.expression(1));
+        return value != null ? value : integerLiteral(eqCtx.expression(0));
+    }
+
+    private static Integer integerLiteral(JavanaParser.ExpressionContext ctx) {
+        if ((unparenthesized(ctx) instanceof JavanaParser.LiteralExpressionContext litCtx)
+                && (litCtx.literal() instanceof JavanaParser.IntegerLiteralContext intCtx)) {
+            try {
+                return Integer.valueOf(intCtx.INTEGER().getText());
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+
+        return null;
+    }
+
+    private static JavanaParser.ExpressionContext unparenthesized(JavanaParser.ExpressionContext ctx) {
+        while (ctx instanceof JavanaParser.ParenthesizedExpressionContext parenCtx) {
+            ctx = parenCtx.expression();
+        }
+
+        return ctx;
+    }
+
+    public JavanaParser.IdentifierExpressionContext getVariable() {
+        return variable;
+    }
+
+    public List<Integer> getValues() {
+        return values;
+    }
+
+    public List<JavanaParser.BlockStatementContext> getBodies() {
+        return bodies;
+    }
+
+    public JavanaParser.BlockStatementContext getDefaultBody() {
+        return defaultBody;
+    }
+
+    public int getMinValue() {
+        return values.stream().mapToInt(Integer::intValue).min().orElse(0);
+    }
+
+    public int getMaxValue() {
+        return values.stream().mapToInt(Integer::intValue).max().orElse(0);
+    }
+
+    /**
+     * Determine whether the constants are dense enough for a table
+     * indexed by value, rather than a sorted lookup.
+     *
+     * @return true if the table would be at most half empty.
+     */
+    public boolean isDense() {
+        long range = (long) getMaxValue() - getMinValue() + 1;
+        return range <= 2L * values.size();
+    }
+}
@@ -0,0 +1,237 @@
+package edu.yu.compilers.runtime;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * <h1>JavanaInput</h1>
+ * <p>The standard input channel of a running Javana program, which
+ * readln, readch, and stringToInt use in all three backends. It reads
+ * bytes into a large buffer and splits lines and tokens itself, with a
+ * fast path for ASCII. An output channel can be tied to it, which is
+ * flushed before each read so that prompts appear. An instance belongs
+ * to a single execution and isn't thread-safe.</p>
+ */
+public class JavanaInput {
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The channel of converted and compiled programs.
+     */
+    public static final JavanaInput STDIN = new JavanaInput(System.in, JavanaOutput.STDOUT);
+
+    private final InputStream source;  // underlying stream
+    private final JavanaOutput tie;    // output to flush before reading, or null
+    private final Charset charset;     // encoding of non-ASCII text
+    private final byte[] buffer;       // bytes read but not yet consumed
+    private int position;              // index of the next unconsumed byte
+    private int limit;                 // index after the last byte read
+    private byte[] pending;            // bytes of a token that isn't ASCII
+                                       // or of a line that spans buffers
+
+    /**
+     * Constructor.
+     *
+     * @param source the underlying stream.
+     * @param tie    the output to flush before reading, or null.
+     */
+    public JavanaInput(InputStream source, JavanaOutput tie) {
+        this.source = source;
+        this.tie = tie;
+        this.charset = Charset.defaultCharset();
+        this.buffer = new byte[BUFFER_SIZE];
+        this.position = 0;
+        this.limit = 0;
+        this.pending = new byte[128];
+    }
+
+    /**
+     * Read the rest of the current line. The line terminator,
+     * which is a newline optionally preceded by a return, is consumed
+     * but not included.
+     *
+     * @return the line, or null at end of input.
+     */
+    public String readLine() {
+        if (tie != null) tie.flush();
+        if ((position == limit) && !fill()) return null;
+
+        int pendingLength = 0;
+
+        while (true) {
+            int start = position;
+            int newline = indexOfNewline(start);
+
+            if (newline >= 0) {
+                position = newline + 1;
+
+                if (pendingLength == 0) {
+                    int end = (newline > start) && (buffer[newline - 1] == '\r') ? newline - 1 : newline;
+                    return decode(buffer, start, end - start);
+                }
+
+                pendingLength = appendPending(pendingLength, start, newline - start);
+                break;
+            }
+
+            // The line continues past the buffered bytes.
+            pendingLength = appendPending(pendingLength, start, limit - start);
+            position = limit;
+            if (!fill()) break;
+        }
+
+        if ((pendingLength > 0) && (pending[pendingLength - 1] == '\r')) pendingLength--;
+        return decode(pending, 0, pendingLength);
+    }
+
+    /**
+     * Read the next whitespace-delimited token and return its first
+     * character. The rest of the token is consumed, but not the
+     * whitespace after it.
+     *
+     * @return the character as a string, or null at end of input.
+     */
+    public String readChar() {
+        if (tie != null) tie.flush();
+
+        // Skip leading whitespace.
+        while (true) {
+            if ((position == limit) && !fill()) return null;
+            if (!isWhitespace(buffer[position])) break;
+            position++;
+        }
+
+        // Collect the token's bytes only if its first character isn't ASCII.
+        byte first = buffer[position];
+        int tokenLength = 0;
+
+        while (true) {
+            if ((position == limit) && !fill()) break;
+
+            byte b = buffer[position];
+            if (isWhitespace(b)) break;
+
+            if (first < 0) tokenLength = appendPending(tokenLength, position, 1);
+            position++;
+        }
+
+        return first >= 0 ? String.valueOf((char) first)
+                          : decode(pending, 0, tokenLength).substring(0, 1);
+    }
+
+    /**
+     * Convert a string to an integer without the overhead of
+     * Integer.parseInt. Leading and trailing whitespace is ignored.
+     *
+     * @param text the string or rope.
+     * @return the integer.
+     * @throws NumberFormatException if the string isn't an integer.
+     */
+    public static int parseInt(CharSequence text) {
+        int start = 0;
+        int end = text.length();
+        while ((start < end) && (text.charAt(start) <= ' ')) start++;
+        while ((end > start) && (text.charAt(end - 1) <= ' ')) end--;
+
+        if (start == end) throw new NumberFormatException("For input string: \"" + text + "\"");
+
+        boolean negative = false;
+        char sign = text.charAt(start);
+        if ((sign == '-') || (sign == '+')) {
+            negative = sign == '-';
+            if (++start == end) throw new NumberFormatException("For input string: \"" + text + "\"");
+        }
+
+        // Accumulate negatively, which reaches Integer.MIN_VALUE.
+        int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        int multiplyMin = limit / 10;
+        int result = 0;
+
+        for (int i = start; i < end; i++) {
+            int digit = text.charAt(i) - '0';
+
+            if ((digit < 0) || (digit > 9) || (result < multiplyMin)) {
+                throw new NumberFormatException("For input string: \"" + text + "\"");
+            }
+
+            result *= 10;
+            if (result < limit + digit) throw new NumberFormatException("For input string: \"" + text + "\"");
+            result -= digit;
+        }
+
+        return negative ? result : -result;
+    }
+
+    /**
+     * Find the next newline in the buffered bytes.
+     *
+     * @param start the index to start at.
+     * @return the index, or -1 if there is none.
+     */
+    private int indexOfNewline(int start) {
+        for (int i = start; i < limit; i++) {
+            if (buffer[i] == '\n') return i;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Append buffered bytes to the pending bytes, growing them as needed.
+     *
+     * @param pendingLength the count of pending bytes.
+     * @param start         the index of the first buffered byte to append.
+     * @param length        the count of bytes to append.
+     * @return the new count of pending bytes.
+     */
+    private int appendPending(int pendingLength, int start, int length) {
+        if (pendingLength + length > pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(2 * pending.length, pendingLength + length));
+        }
+
+        System.arraycopy(buffer, start, pending, pendingLength, length);
+        return pendingLength + length;
+    }
+
+    /**
+     * Decode bytes to a string, copying ASCII bytes directly.
+     *
+     * @param bytes  the bytes.
+     * @param start  the index of the first byte.
+     * @param length the count of bytes.
+     * @return the string.
+     */
+    private String decode(byte[] bytes, int start, int length) {
+        for (int i = start; i < start + length; i++) {
+            if (bytes[i] < 0) return new String(bytes, start, length, charset);
+        }
+
+        // ASCII is a subset of Latin-1, which strings store as bytes.
+        return new String(bytes, start, length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Read more bytes into the empty buffer.
+     *
+     * @return false at end of input.
+     */
+    private boolean fill() {
+        try {
+            int count = source.read(buffer, 0, BUFFER_SIZE);
+            position = 0;
+            limit = Math.max(count, 0);
+
+            return count > 0;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return (b == ' ') || (b == '\n') || (b == '\t') || (b == '\r') || (b == '\f') || (b == 0x0B);
+    }
+}
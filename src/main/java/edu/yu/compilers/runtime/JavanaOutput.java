@@ -0,0 +1,239 @@
+package edu.yu.compilers.runtime;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+
+/**
+ * <h1>JavanaOutput</h1>
+ * <p>The standard output channel of a running Javana program, which all
+ * three backends share. Text is encoded into a large byte buffer, with a
+ * fast path for ASCII, and written to the underlying stream only when the
+ * buffer fills, when the program reads input or ends, or, in line-buffered
+ * mode, at each newline. An instance belongs to a single execution and
+ * isn't thread-safe.</p>
+ */
+public class JavanaOutput extends OutputStream {
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The channel of converted and compiled programs, which is
+     * line-buffered when a user is at the console.
+     */
+    public static final JavanaOutput STDOUT = forStream(System.out);
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(STDOUT::flush));
+    }
+
+    private final OutputStream sink;      // underlying stream
+    private final boolean lineBuffered;   // true to flush at each newline
+    private final Charset charset;        // encoding of non-ASCII text
+    private final byte[] buffer;          // encoded bytes not yet written
+    private int count;                    // count of bytes in the buffer
+
+    /**
+     * Constructor.
+     *
+     * @param sink         the underlying stream.
+     * @param lineBuffered true to flush at each newline.
+     */
+    public JavanaOutput(OutputStream sink, boolean lineBuffered) {
+        this.sink = sink;
+        this.lineBuffered = lineBuffered;
+        this.charset = Charset.defaultCharset();
+        this.buffer = new byte[BUFFER_SIZE];
+        this.count = 0;
+    }
+
+    /**
+     * Create a channel for a stream, line-buffered only if the
+     * stream is the standard output of an interactive session.
+     *
+     * @param sink the underlying stream.
+     * @return the channel.
+     */
+    public static JavanaOutput forStream(OutputStream sink) {
+        return new JavanaOutput(sink, (sink == System.out) && (System.console() != null));
+    }
+
+    /**
+     * Print text.
+     *
+     * @param text the text, which prints as null if it is null.
+     */
+    public void print(String text) {
+        if (text == null) text = "null";
+
+        append(text);
+        if (lineBuffered && (text.indexOf('\n') >= 0)) flush();
+    }
+
+    /**
+     * Print an integer without creating its string.
+     *
+     * @param value the integer.
+     */
+    public void print(int value) {
+        if (BUFFER_SIZE - count < 11) drain();
+
+        if (value == Integer.MIN_VALUE) {
+            append("-2147483648");
+            return;
+        }
+        if (value < 0) {
+            buffer[count++] = '-';
+            value = -value;
+        }
+
+        int end = count + digitCount(value);
+        for (int i = end - 1; i >= count; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        count = end;
+    }
+
+    /**
+     * Print a value as its text.
+     *
+     * @param value the value, which is null for None.
+     */
+    public void print(Object value) {
+        if (value instanceof Integer i) print(i.intValue());
+        else print(String.valueOf(value));
+    }
+
+    /**
+     * Print text followed by a newline.
+     *
+     * @param text the text, which prints as null if it is null.
+     */
+    public void println(String text) {
+        if (text == null) text = "null";
+
+        append(text);
+        println();
+    }
+
+    /**
+     * Print a value followed by a newline.
+     *
+     * @param value the value, which is null for None.
+     */
+    public void println(Object value) {
+        print(value);
+        println();
+    }
+
+    /**
+     * Print a newline.
+     */
+    public void println() {
+        if (count == BUFFER_SIZE) drain();
+        buffer[count++] = '\n';
+        if (lineBuffered) flush();
+    }
+
+    /**
+     * Print formatted text.
+     *
+     * @param format the format string.
+     * @param args   the values to format.
+     */
+    public void printf(String format, Object... args) {
+        print(String.format(format, args));
+    }
+
+    @Override
+    public void write(int b) {
+        if (count == BUFFER_SIZE) drain();
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        if (length > BUFFER_SIZE - count) {
+            drain();
+            if (length > BUFFER_SIZE) {
+                writeSink(bytes, offset, length);
+                return;
+            }
+        }
+
+        System.arraycopy(bytes, offset, buffer, count, length);
+        count += length;
+    }
+
+    /**
+     * Write the buffered bytes and flush the underlying stream.
+     */
+    @Override
+    public void flush() {
+        drain();
+        try {
+            sink.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Encode text into the buffer. ASCII characters are copied directly;
+     * the rest of any text that has other characters goes through the
+     * charset.
+     *
+     * @param text the text.
+     */
+    private void append(String text) {
+        int length = text.length();
+
+        for (int i = 0; i < length; i++) {
+            char ch = text.charAt(i);
+
+            if (ch >= 0x80) {
+                byte[] bytes = text.substring(i).getBytes(charset);
+                write(bytes, 0, bytes.length);
+                return;
+            }
+
+            if (count == BUFFER_SIZE) drain();
+            buffer[count++] = (byte) ch;
+        }
+    }
+
+    /**
+     * Write the buffered bytes to the underlying stream.
+     */
+    private void drain() {
+        if (count > 0) {
+            writeSink(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    private void writeSink(byte[] bytes, int offset, int length) {
+        try {
+            sink.write(bytes, offset, length);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Count the decimal digits of a nonnegative integer.
+     *
+     * @param value the integer.
+     * @return the count.
+     */
+    private static int digitCount(int value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+
+        return digits;
+    }
+}
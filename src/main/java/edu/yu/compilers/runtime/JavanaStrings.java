@@ -0,0 +1,106 @@
+package edu.yu.compilers.runtime;
+
+/**
+ * <h1>JavanaStrings</h1>
+ * <p>Allocation-free forms of string builtins that only compare or convert
+ * characters, which backends call for the patterns that StringIntrinsic
+ * recognizes. Each throws StringIndexOutOfBoundsException for the indexes
+ * that substring or charAt would reject.</p>
+ */
+public final class JavanaStrings {
+    private JavanaStrings() {
+    }
+
+    /**
+     * Compare substring(string, begin, end) with another string.
+     *
+     * @param string the string.
+     * @param begin  the index of the first char.
+     * @param end    the index after the last char.
+     * @param other  the other string, which is null for None.
+     * @return true if they're equal.
+     */
+    public static boolean regionEquals(CharSequence string, int begin, int end, CharSequence other) {
+        checkRegion(string, begin, end);
+        if ((other == null) || (other.length() != end - begin)) return false;
+
+        for (int i = begin; i < end; i++) {
+            if (string.charAt(i) != other.charAt(i - begin)) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Compare another string with substring(string, begin, end), for
+     * when the other string is evaluated first.
+     *
+     * @param other  the other string, which is null for None.
+     * @param string the string.
+     * @param begin  the index of the first char.
+     * @param end    the index after the last char.
+     * @return true if they're equal.
+     */
+    public static boolean equalsRegion(CharSequence other, CharSequence string, int begin, int end) {
+        return regionEquals(string, begin, end, other);
+    }
+
+    /**
+     * Compare string.charAt(index) with another string.
+     *
+     * @param string the string.
+     * @param index  the index of the char.
+     * @param other  the other string, which is null for None.
+     * @return true if the other string is that one char.
+     */
+    public static boolean charEquals(CharSequence string, int index, CharSequence other) {
+        char ch = string.charAt(index);
+        return (other != null) && (other.length() == 1) && (other.charAt(0) == ch);
+    }
+
+    /**
+     * Compare another string with string.charAt(index), for when the
+     * other string is evaluated first.
+     *
+     * @param other  the other string, which is null for None.
+     * @param string the string.
+     * @param index  the index of the char.
+     * @return true if the other string is that one char.
+     */
+    public static boolean equalsChar(CharSequence other, CharSequence string, int index) {
+        return charEquals(string, index, other);
+    }
+
+    /**
+     * Get stringCharToVal(substring(string, begin, end)).
+     *
+     * @param string the string.
+     * @param begin  the index of the first char.
+     * @param end    the index after the last char.
+     * @return the value of the first char.
+     */
+    public static int regionCharValue(CharSequence string, int begin, int end) {
+        checkRegion(string, begin, end);
+        if (begin == end) throw new StringIndexOutOfBoundsException(begin);
+
+        return string.charAt(begin);
+    }
+
+    /**
+     * Get stringCharToVal(string.charAt(index)).
+     *
+     * @param string the string.
+     * @param index  the index of the char.
+     * @return the value of the char.
+     */
+    public static int charValue(CharSequence string, int index) {
+        return string.charAt(index);
+    }
+
+    private static void checkRegion(CharSequence string, int begin, int end) {
+        if ((begin < 0) || (end > string.length()) || (begin > end)) {
+            throw new StringIndexOutOfBoundsException(
+                    "begin " + begin + ", end " + end + ", length " + string.length());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package edu.yu.compilers.runtime;
+
+/**
+ * <h1>StringRope</h1>
+ * <p>A string built by concat. A rope is a prefix of a builder that it
+ * may share with ropes built from it: concatenating onto the rope that
+ * ends at the builder's end appends in place, so a loop that keeps
+ * extending one string runs in linear time. The characters of a prefix
+ * never change, so length, charAt, substring, and comparisons work on
+ * the builder directly; only toString flattens the rope, once.</p>
+ */
+public final class StringRope implements CharSequence {
+    private final StringBuilder chars;  // shared by ropes that extend one another
+    private final int length;           // length of this rope's prefix
+    private String flat;                // flattened string, once needed
+
+    private StringRope(StringBuilder chars, int length) {
+        this.chars = chars;
+        this.length = length;
+    }
+
+    /**
+     * Concatenate the text of two values.
+     *
+     * @param first  the first value, which is null for None.
+     * @param second the second value, which is null for None.
+     * @return the concatenation.
+     */
+    public static CharSequence concat(Object first, Object second) {
+        CharSequence tail = text(second);
+
+        if ((first instanceof StringRope rope) && (rope.length == rope.chars.length())) {
+            if (tail instanceof StringRope other) rope.chars.append(other.chars, 0, other.length);
+            else rope.chars.append(tail);
+
+            return new StringRope(rope.chars, rope.chars.length());
+        }
+
+        CharSequence head = text(first);
+        int length = head.length() + tail.length();
+        StringBuilder chars = new StringBuilder(Math.max(16, 2 * length));
+        chars.append(head).append(tail);
+
+        return new StringRope(chars, length);
+    }
+
+    /**
+     * Compare two values, comparing strings and ropes by content.
+     *
+     * @param first  the first value.
+     * @param second the second value.
+     * @return true if they're equal.
+     */
+    public static boolean valueEquals(Object first, Object second) {
+        if ((first instanceof CharSequence a) && (second instanceof CharSequence b)) {
+            if (a instanceof String s) return s.contentEquals(b);
+            if (b instanceof String s) return s.contentEquals(a);
+            if (a.length() != b.length()) return false;
+
+            for (int i = 0; i < a.length(); i++) {
+                if (a.charAt(i) != b.charAt(i)) return false;
+            }
+
+            return true;
+        }
+
+        return (first == second) || ((first != null) && first.equals(second));
+    }
+
+    /**
+     * Get the text of a value without flattening a rope.
+     *
+     * @param value the value, which is null for None.
+     * @return the text.
+     */
+    private static CharSequence text(Object value) {
+        return value instanceof CharSequence s ? s : String.valueOf(value);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index >= length) throw new StringIndexOutOfBoundsException(index);
+        return chars.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (end > length) throw new StringIndexOutOfBoundsException(end);
+        return flat != null ? flat.substring(start, end) : chars.substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+        if (flat == null) flat = chars.substring(0, length);
+        return flat;
+    }
+}
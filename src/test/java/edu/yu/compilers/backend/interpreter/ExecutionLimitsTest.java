@@ -0,0 +1,110 @@
+package edu.yu.compilers.backend.interpreter;
+
+import antlr4.JavanaLexer;
+import antlr4.JavanaParser;
+import edu.yu.compilers.frontend.Semantics;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutionLimitsTest {
+
+    private static final String SOURCE = """
+            Javana Loops:
+
+            func collatz(n: int) -> int {
+                var steps = 0
+                while (n > 1) {
+                    if (n % 2 == 0) {
+                        n = n / 2
+                    } else {
+                        n = 3 * n + 1
+                    }
+                    steps = steps + 1
+                }
+                return steps
+            }
+
+            @main() {
+                var total = 0
+                for (var i = 1; i < 2000; i + 1) {
+                    var cells = @int[8]
+                    total = total + collatz(i) + len(cells)
+                }
+                println(total)
+            }
+            """;
+
+    private static Program program;  // the program every test executes
+
+    private String output;  // output of the last execution
+
+    @BeforeAll
+    static void load() {
+        JavanaParser parser = new JavanaParser(new CommonTokenStream(new JavanaLexer(CharStreams.fromString(SOURCE))));
+        JavanaParser.ProgramContext tree = parser.program();
+        assertEquals(0, parser.getNumberOfSyntaxErrors(), "syntax errors");
+
+        Semantics semantics = new Semantics();
+        semantics.visit(tree);
+        assertEquals(0, semantics.getErrorCount(), "semantic errors");
+
+        program = new Program(semantics.getProgramId(), tree);
+    }
+
+    /**
+     * Execute the program under limits.
+     *
+     * @param limits the limits.
+     * @return the count of runtime errors.
+     */
+    private int execute(ExecutionLimits limits) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int errors;
+
+        try (ExecutionPool pool = new ExecutionPool(program, 1, limits);
+             PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8)) {
+            errors = pool.submit(new String[0], new ByteArrayInputStream(new byte[0]), out).get();
+        }
+
+        output = bytes.toString(StandardCharsets.UTF_8);
+        return errors;
+    }
+
+    @Test
+    void onlyLimitsThatAreSetBoundAnExecution() {
+        assertFalse(ExecutionLimits.NONE.isBounded());
+        assertTrue(new ExecutionLimits(1000, 0, Long.MAX_VALUE).isBounded());
+        assertTrue(new ExecutionLimits(Long.MAX_VALUE, 1000, Long.MAX_VALUE).isBounded());
+        assertTrue(new ExecutionLimits(Long.MAX_VALUE, 0, 1000).isBounded());
+    }
+
+    @Test
+    void limitsThatAreNotReachedDontChangeTheOutput() throws Exception {
+        assertEquals(0, execute(ExecutionLimits.NONE));
+        String unlimited = output;
+
+        assertEquals(0, execute(new ExecutionLimits(Long.MAX_VALUE / 2, 60_000, Long.MAX_VALUE / 2)));
+        assertEquals(unlimited, output);
+    }
+
+    @Test
+    void exhaustingTheFuelAbortsTheExecution() throws Exception {
+        assertEquals(1, execute(new ExecutionLimits(10_000, 0, Long.MAX_VALUE)));
+        assertTrue(output.contains("Instruction budget exhausted"), output);
+    }
+
+    @Test
+    void exceedingTheHeapBudgetAbortsTheExecution() throws Exception {
+        assertEquals(1, execute(new ExecutionLimits(Long.MAX_VALUE, 0, 10 * ExecutionLimits.arrayBytes(8))));
+        assertTrue(output.contains("Heap budget exceeded"), output);
+    }
+}
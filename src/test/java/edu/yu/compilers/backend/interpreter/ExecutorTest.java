@@ -0,0 +1,317 @@
+package edu.yu.compilers.backend.interpreter;
+
+import antlr4.JavanaLexer;
+import antlr4.JavanaParser;
+import edu.yu.compilers.frontend.Semantics;
+import edu.yu.compilers.intermediate.ssa.AlgebraicSimplifier;
+import edu.yu.compilers.intermediate.ssa.CommonSubexpressionEliminator;
+import edu.yu.compilers.intermediate.ssa.ConstantFolder;
+import edu.yu.compilers.intermediate.ssa.DeadCodeEliminator;
+import edu.yu.compilers.intermediate.ssa.Inliner;
+import edu.yu.compilers.intermediate.ssa.LoopInvariantMotion;
+import edu.yu.compilers.intermediate.ssa.PassManager;
+import edu.yu.compilers.intermediate.ssa.SsaBuilder;
+import edu.yu.compilers.intermediate.ssa.TailCallEliminator;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutorTest {
+
+    private Program program;  // the program last executed
+    private String output;    // its output
+    private int errors;       // its count of runtime errors
+
+    /**
+     * Check, parse, optimize, and execute a Javana program
+     * the way JavanaCC -execute does.
+     *
+     * @param source the program's source.
+     */
+    private void execute(String source) throws Exception {
+        JavanaParser parser = new JavanaParser(new CommonTokenStream(new JavanaLexer(CharStreams.fromString(source))));
+        JavanaParser.ProgramContext tree = parser.program();
+        assertEquals(0, parser.getNumberOfSyntaxErrors(), "syntax errors");
+
+        Semantics semantics = new Semantics();
+        semantics.visit(tree);
+        assertEquals(0, semantics.getErrorCount(), "semantic errors");
+
+        new PassManager()
+                .add(new ConstantFolder())
+                .add(new DeadCodeEliminator())
+                .add(new AlgebraicSimplifier())
+                .add(new CommonSubexpressionEliminator())
+                .add(new LoopInvariantMotion())
+                .add(new Inliner())
+                .add(new TailCallEliminator())
+                .run(new SsaBuilder().build(tree));
+
+        program = new Program(semantics.getProgramId(), tree);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (ExecutionPool pool = new ExecutionPool(program, 1);
+             PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8)) {
+            errors = pool.submit(new String[0], new ByteArrayInputStream(new byte[0]), out).get();
+        }
+
+        output = bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private CallTarget target(String name) {
+        return program.getCallTargets().values().stream()
+                .filter(target -> target.getRoutineId().getName().equals(name))
+                .findFirst().orElseThrow();
+    }
+
+    private String[] lines() {
+        return output.strip().split("\\R");
+    }
+
+    @Test
+    void compiledRoutineComputesWhatTheInterpreterDid() throws Exception {
+        execute("""
+                Javana Tiers:
+
+                func mix(n: int) -> int {
+                    var sum = 0
+                    var k = n
+                    while (k > 0) {
+                        sum = sum + k % 3
+                        k = k / 2
+                    }
+                    return sum * 4 + n / 4 - n % 8
+                }
+
+                @main() {
+                    for (var i = 0; i < 250; i + 1) {
+                        println(mix(i - 125))
+                    }
+                }
+                """);
+
+        assertEquals(0, errors);
+        String[] lines = lines();
+        assertEquals(250, lines.length);
+
+        for (int i = 0; i < 250; i++) {
+            int n = i - 125;
+            int sum = 0;
+            for (int k = n; k > 0; k /= 2) sum += k % 3;
+
+            assertEquals(String.valueOf(sum * 4 + n / 4 - n % 8), lines[i], "mix(" + n + ")");
+        }
+
+        assertNotNull(target("mix").getCompiledRoutine());
+    }
+
+    @Test
+    void routineIsPromotedWhenItIsHot() throws Exception {
+        String source = """
+                Javana Hot:
+
+                func twice(n: int) -> int {
+                    return n + n
+                }
+
+                @main() {
+                    var total = 0
+                    for (var i = 0; i < %d; i + 1) {
+                        total = total + twice(i)
+                    }
+                    println(total)
+                }
+                """;
+
+        execute(source.formatted(CallTarget.HOT_INVOCATIONS));
+        assertEquals(0, errors);
+        assertEquals(CallTarget.HOT_INVOCATIONS, target("twice").getInvocations());
+        assertNull(target("twice").getCompiledRoutine());
+
+        execute(source.formatted(CallTarget.HOT_INVOCATIONS + 1));
+        assertEquals(0, errors);
+        assertEquals(CallTarget.HOT_INVOCATIONS, target("twice").getInvocations());
+        assertNotNull(target("twice").getCompiledRoutine());
+        assertEquals(String.valueOf(CallTarget.HOT_INVOCATIONS * (CallTarget.HOT_INVOCATIONS + 1)), output.strip());
+    }
+
+    @Test
+    void deepRecursionIsARuntimeError() throws Exception {
+        execute("""
+                Javana Deep:
+
+                func depth(n: int) -> int {
+                    return 1 + depth(n + 1)
+                }
+
+                @main() {
+                    println(depth(0))
+                }
+                """);
+
+        assertTrue(errors > 0);
+        assertTrue(output.contains("Runtime stack overflow"), output);
+    }
+
+    @Test
+    void recursionWithinTheLimitRuns() throws Exception {
+        execute("""
+                Javana Shallow:
+
+                func depth(n: int) -> int {
+                    if (n == 0) {
+                        return 0
+                    }
+                    return 1 + depth(n - 1)
+                }
+
+                @main() {
+                    println(depth(1000))
+                }
+                """);
+
+        assertEquals(0, errors);
+        assertEquals("1000", output.strip());
+    }
+
+    @Test
+    void stringIntrinsicsMatchTheStringFunctions() throws Exception {
+        execute("""
+                Javana Letters:
+
+                func count(s: string, letter: string) -> int {
+                    var found = 0
+                    for (var i = 0; i < s.length; i + 1) {
+                        if (stringEquals(substring(s, i, i + 1), letter)) {
+                            found = found + 1
+                        }
+                        if (s.charAt(i) == letter) {
+                            found = found + 10
+                        }
+                    }
+                    return found
+                }
+
+                func code(s: string, i: int) -> int {
+                    return stringCharToVal(s.charAt(i)) + stringCharToVal(substring(s, i, i + 1))
+                }
+
+                @main() {
+                    for (var i = 0; i < 240; i + 1) {
+                        var letter = "a"
+                        if (i % 2 == 1) {
+                            letter = "n"
+                        }
+                        println(count("banana", letter))
+                        println(code("banana", i % 6))
+                    }
+                }
+                """);
+
+        assertEquals(0, errors);
+        String[] lines = lines();
+        assertEquals(480, lines.length);
+
+        for (int i = 0; i < 240; i++) {
+            assertEquals(i % 2 == 0 ? "33" : "22", lines[2 * i]);
+            assertEquals(String.valueOf(2 * "banana".charAt(i % 6)), lines[2 * i + 1]);
+        }
+
+        assertNotNull(target("count").getCompiledRoutine());
+        assertNotNull(target("code").getCompiledRoutine());
+    }
+
+    @Test
+    void elementIsSelectedBeforeTheValueInBothTiers() throws Exception {
+        execute("""
+                Javana Order:
+
+                func idx() -> int {
+                    print("i")
+                    return 0
+                }
+
+                func val() -> int {
+                    print("v")
+                    return 1
+                }
+
+                func store(a: int[]) -> int {
+                    a[idx()] = val()
+                    return a[0]
+                }
+
+                @main() {
+                    var a = @int[1]
+                    var total = 0
+                    for (var i = 0; i < %d; i + 1) {
+                        total = total + store(a)
+                    }
+                    println("")
+                    println(total)
+                }
+                """.formatted(2 * CallTarget.HOT_INVOCATIONS));
+
+        assertEquals(0, errors);
+        assertNotNull(target("store").getCompiledRoutine());
+        assertArrayEquals(new String[] {"iv".repeat(2 * CallTarget.HOT_INVOCATIONS),
+                                        String.valueOf(2 * CallTarget.HOT_INVOCATIONS)}, lines());
+    }
+
+    @Test
+    void nameDeclaredAgainInABlockIsTheSameVariableInBothTiers() throws Exception {
+        execute("""
+                Javana Blocks:
+
+                func pick(n: int) -> int {
+                    var x = 1
+                    if (n > 0) {
+                        var x = 2
+                    }
+                    return x
+                }
+
+                @main() {
+                    for (var i = 0; i < %d; i + 1) {
+                        println(pick(i %% 2))
+                    }
+                }
+                """.formatted(2 * CallTarget.HOT_INVOCATIONS));
+
+        assertEquals(0, errors);
+        assertNotNull(target("pick").getCompiledRoutine());
+
+        String[] lines = lines();
+        assertEquals(2 * CallTarget.HOT_INVOCATIONS, lines.length);
+        for (int i = 0; i < lines.length; i++) assertEquals(i % 2 == 1 ? "2" : "1", lines[i], "pick(" + i % 2 + ")");
+    }
+
+    @Test
+    void callsNestDeeperThanTheStacksInitialCapacity() throws Exception {
+        execute("""
+                Javana Deep:
+
+                func depth(n: int) -> int {
+                    if (n == 0) {
+                        return 0
+                    }
+                    return 1 + depth(n - 1)
+                }
+
+                @main() {
+                    var n = %d
+                    println(depth(n))
+                }
+                """.formatted(1000 * RuntimeStack.INITIAL_CAPACITY));
+
+        assertEquals(0, errors);
+        assertEquals(String.valueOf(1000 * RuntimeStack.INITIAL_CAPACITY), output.strip());
+    }
+}
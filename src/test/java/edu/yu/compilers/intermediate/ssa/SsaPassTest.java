@@ -0,0 +1,462 @@
+package edu.yu.compilers.intermediate.ssa;
+
+import antlr4.JavanaLexer;
+import antlr4.JavanaParser;
+import edu.yu.compilers.backend.interpreter.CallTarget;
+import edu.yu.compilers.backend.interpreter.ExecutionPool;
+import edu.yu.compilers.backend.interpreter.Program;
+import edu.yu.compilers.frontend.Semantics;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SsaPassTest {
+
+    private static final int HOT_CALLS = 250;  // well past the calls that make a routine hot
+
+    private static final List<Supplier<SsaPass>> PASSES = List.of(
+            ConstantFolder::new,
+            DeadCodeEliminator::new,
+            AlgebraicSimplifier::new,
+            CommonSubexpressionEliminator::new,
+            LoopInvariantMotion::new,
+            Inliner::new,
+            TailCallEliminator::new);
+
+    private static final String MIXED = """
+            Javana Mixed:
+
+            var scale = 3
+            var label = "total"
+
+            func area(w: int, h: int) -> int {
+                return w * h * scale
+            }
+
+            @main() {
+                var total = 0
+                var unused = 5 * 8
+                var xs = @int[200]
+                for (var i = 0; i < 200; i + 1) {
+                    var a = i * 2 + 1
+                    var b = i * 2 + 1
+                    if (!(a < 100)) {
+                        xs[i] = area(a, b) % 1000
+                    } else {
+                        xs[i] = (a + 0) * 1 - b / 1 - i * 8
+                    }
+                    if (false) {
+                        println("never")
+                    }
+                    total = total + xs[i] * 4 + xs[i] * 4
+                }
+                printf("%s %d%n", label, total)
+            }
+            """;
+
+    private static final String HALVES = """
+            Javana Halves:
+
+            func split(x: int) -> int {
+                return x / 2 + x % 2 * 10 + x / 8 * 100 + x % 16 * 1000 + x / 1073741824
+            }
+
+            @main() {
+                for (var i = 0; i < 300; i + 1) {
+                    var x = (i - 150) * 7919
+                    if (i < 4) {
+                        x = 0 - 2147483647 - 1 + i
+                    }
+                    if (i > 295) {
+                        x = 2147483647 - (i - 296)
+                    }
+                    println(split(x))
+                    println(x / 4)
+                    println(x % 4)
+                }
+            }
+            """;
+
+    private static final String GUARDED = """
+            Javana Guarded:
+
+            func scaled(n: int, d: int) -> int {
+                var sum = 0
+                var m = n + 1
+                var i = 0
+                while (i < n) {
+                    if (d != 0) {
+                        sum = sum + 100 / d
+                    }
+                    sum = sum + m * 3
+                    i = i + 1
+                }
+                return sum
+            }
+
+            func never(d: int) -> int {
+                var sum = 0
+                for (var i = 0; i < sum; i + 1) {
+                    sum = sum + 7 % d
+                }
+                return sum
+            }
+
+            @main() {
+                var none = @int[0]
+                for (var d = 0; d < 3; d + 1) {
+                    println(scaled(5, len(none) + d))
+                }
+                println(never(len(none)))
+            }
+            """;
+
+    private static final String ROTATE = """
+            Javana Rotate:
+
+            func swap(a: int, b: int, n: int) -> int {
+                if (n == 0) {
+                    return a * 10 + b
+                }
+                return swap(b, a, n - 1)
+            }
+
+            func rotate(a: int, b: int, c: int, n: int) -> int {
+                if (n == 0) {
+                    return a * 100 + b * 10 + c
+                }
+                return rotate(b, c, a, n - 1)
+            }
+
+            func gcd(a: int, b: int) -> int {
+                if (b == 0) {
+                    return a
+                }
+                return gcd(b, a % b)
+            }
+
+            @main() {
+                for (var n = 0; n < 7; n + 1) {
+                    println(swap(1, 2, n))
+                    println(rotate(1, 2, 3, n))
+                    println(gcd(n * 84, 36))
+                }
+            }
+            """;
+
+    private static final String HOT = """
+            Javana Hot:
+
+            func twice(x: int) -> int {
+                return x * 2
+            }
+
+            func count(a: int, n: int) -> int {
+                if (n == 0) {
+                    return a
+                }
+                return count(a + 1, n - 1)
+            }
+
+            func mix(n: int) -> int {
+                var k = 4 * 8
+                var m = n + 1
+                var sum = 0
+                for (var i = 0; i < 3; i + 1) {
+                    sum = sum + m * 5
+                }
+                if (false) {
+                    println("never")
+                }
+                var a = m * 2 + 1
+                var b = m * 2 + 1
+                var t = twice(m)
+                return count(sum + a + b + k + t, m %% 4) + m / 8
+            }
+
+            @main() {
+                for (var i = 0; i < %d; i + 1) {
+                    println(mix(i))
+                }
+            }
+            """.formatted(HOT_CALLS);
+
+    /**
+     * What executing a program printed, and its count of runtime errors.
+     */
+    private record Run(String output, int errors) {}
+
+    private JavanaParser.ProgramContext tree;  // the parse tree last run
+    private SsaProgram ssa;                    // its SSA intermediate representation
+    private Program program;                   // its executable program
+
+    /**
+     * Check, parse, optimize with the given passes, and execute a
+     * Javana program the way JavanaCC -execute does.
+     *
+     * @param source the program's source.
+     * @param passes the passes, which can be none.
+     * @return what it printed and its count of runtime errors.
+     */
+    private Run run(String source, List<Supplier<SsaPass>> passes) throws Exception {
+        JavanaParser parser = new JavanaParser(new CommonTokenStream(new JavanaLexer(CharStreams.fromString(source))));
+        tree = parser.program();
+        assertEquals(0, parser.getNumberOfSyntaxErrors(), "syntax errors");
+
+        Semantics semantics = new Semantics();
+        semantics.visit(tree);
+        assertEquals(0, semantics.getErrorCount(), "semantic errors");
+
+        ssa = new SsaBuilder().build(tree);
+        PassManager manager = new PassManager();
+        for (Supplier<SsaPass> pass : passes) manager.add(pass.get());
+        manager.run(ssa);
+
+        program = new Program(semantics.getProgramId(), tree);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int errors;
+
+        try (ExecutionPool pool = new ExecutionPool(program, 1);
+             PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8)) {
+            errors = pool.submit(new String[0], new ByteArrayInputStream(new byte[0]), out).get();
+        }
+
+        return new Run(bytes.toString(StandardCharsets.UTF_8), errors);
+    }
+
+    /**
+     * Check that a program prints the same and flags the same number of
+     * runtime errors with no passes, with each pass alone, and with all
+     * of them.
+     *
+     * @param source the program's source.
+     * @return what it printed with all the passes.
+     */
+    private Run assertEquivalent(String source) throws Exception {
+        Run before = run(source, List.of());
+
+        for (Supplier<SsaPass> pass : PASSES) {
+            assertEquals(before, run(source, List.of(pass)), pass.get().getName());
+        }
+
+        Run after = run(source, PASSES);
+        assertEquals(before, after, "all passes");
+
+        return after;
+    }
+
+    private static <T extends ParseTree> List<T> find(ParseTree tree, Class<T> type) {
+        ArrayList<T> found = new ArrayList<>();
+        if (type.isInstance(tree)) found.add(type.cast(tree));
+
+        for (int i = 0; i < tree.getChildCount(); i++) found.addAll(find(tree.getChild(i), type));
+
+        return found;
+    }
+
+    private <T extends ParseTree> T find(Class<T> type, String text) {
+        return find(tree, type).stream()
+                .filter(node -> node.getText().equals(text))
+                .findFirst().orElseThrow(() -> new AssertionError("no " + text));
+    }
+
+    private JavanaParser.FuncDefinitionContext function(String name) {
+        return find(tree, JavanaParser.FuncDefinitionContext.class).stream()
+                .filter(funcCtx -> funcCtx.proto.name.getText().equals(name))
+                .findFirst().orElseThrow();
+    }
+
+    private CallTarget target(String name) {
+        return program.getCallTargets().values().stream()
+                .filter(target -> target.getRoutineId().getName().equals(name))
+                .findFirst().orElseThrow();
+    }
+
+    private static String[] lines(Run run) {
+        return run.output().strip().split("\\R");
+    }
+
+    @Test
+    void passesDoNotChangeWhatAProgramPrints() throws Exception {
+        Run run = assertEquivalent(MIXED);
+
+        assertEquals(0, run.errors());
+        assertTrue(run.output().startsWith("total "), run.output());
+    }
+
+    @Test
+    void signedDivisionAndRemainderByPowersOfTwoRoundTowardZero() throws Exception {
+        Run run = assertEquivalent(HALVES);
+        assertEquals(0, run.errors());
+
+        String[] lines = lines(run);
+        assertEquals(900, lines.length);
+
+        for (int i = 0; i < 300; i++) {
+            int x = (i - 150) * 7919;
+            if (i < 4) x = Integer.MIN_VALUE + i;
+            if (i > 295) x = Integer.MAX_VALUE - (i - 296);
+
+            int split = x / 2 + x % 2 * 10 + x / 8 * 100 + x % 16 * 1000 + x / 1073741824;
+            assertEquals(String.valueOf(split), lines[3 * i], "split(" + x + ")");
+            assertEquals(String.valueOf(x / 4), lines[3 * i + 1], x + " / 4");
+            assertEquals(String.valueOf(x % 4), lines[3 * i + 2], x + " % 4");
+        }
+
+        run(HALVES, List.of(AlgebraicSimplifier::new));
+        List<Simplification.Kind> kinds = find(tree, JavanaParser.HigherArithmeticExpressionContext.class).stream()
+                .map(Simplification::of)
+                .filter(simplification -> simplification != null)
+                .map(Simplification::getKind)
+                .toList();
+
+        assertTrue(kinds.contains(Simplification.Kind.DIVIDE), kinds.toString());
+        assertTrue(kinds.contains(Simplification.Kind.REMAINDER), kinds.toString());
+    }
+
+    @Test
+    void simplificationMatchesDivisionForEveryShift() {
+        int[] values = {Integer.MIN_VALUE, Integer.MIN_VALUE + 1, -1000001, -17, -16, -15, -9, -8, -7,
+                        -2, -1, 0, 1, 2, 7, 8, 9, 15, 16, 17, 1000001, Integer.MAX_VALUE - 1, Integer.MAX_VALUE};
+
+        for (int k = 1; k < 31; k++) {
+            Simplification divide = new Simplification(null, Simplification.Kind.DIVIDE, null, k);
+            Simplification remainder = new Simplification(null, Simplification.Kind.REMAINDER, null, k);
+            Simplification shift = new Simplification(null, Simplification.Kind.SHIFT_RIGHT, null, k);
+            Simplification mask = new Simplification(null, Simplification.Kind.MASK, null, k);
+            int power = 1 << k;
+
+            for (int value : values) {
+                for (int x : new int[] {value, value - power, value + power, value - 1, value + 1}) {
+                    assertEquals(x / power, divide.apply(x), x + " / 2^" + k);
+                    assertEquals(x % power, remainder.apply(x), x + " % 2^" + k);
+
+                    if (x >= 0) {
+                        assertEquals(x / power, shift.apply(x), x + " / 2^" + k);
+                        assertEquals(x % power, mask.apply(x), x + " % 2^" + k);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void invariantThatCanFlagIsNotHoisted() throws Exception {
+        Run run = assertEquivalent(GUARDED);
+
+        assertEquals(0, run.errors(), run.output());
+        assertArrayEquals(new String[] {"90", "590", "340", "0"}, lines(run));
+
+        run(GUARDED, List.of(LoopInvariantMotion::new));
+        SsaFunction scaled = ssa.getFunction(function("scaled"));
+        SsaFunction never = ssa.getFunction(function("never"));
+
+        // 100 / d is the same in every iteration, but d may be 0.
+        JavanaParser.ExpressionContext quotient = find(JavanaParser.HigherArithmeticExpressionContext.class, "100/d");
+        LoopInvariant invariant = LoopInvariant.of(quotient);
+        assertNotNull(invariant);
+        assertFalse(invariant.isHoisted());
+
+        Operation division = (Operation) scaled.valueOf(quotient);
+        assertEquals(Opcode.DIV, division.getOpcode());
+        assertSame(scaled.blockOf(find(JavanaParser.StatementContext.class, "sum=sum+100/d")),
+                   division.getBlock());
+
+        // m * 3 can't flag, so it moves before the loop. A parameter could
+        // be anything, but m is certainly an integer.
+        JavanaParser.ExpressionContext product = find(JavanaParser.HigherArithmeticExpressionContext.class, "m*3");
+        assertTrue(LoopInvariant.of(product).isHoisted());
+        assertNotSame(scaled.blockOf(find(JavanaParser.StatementContext.class, "sum=sum+m*3")),
+                      ((Operation) scaled.valueOf(product)).getBlock());
+
+        // 7 % d is in a loop that never runs, with d 0.
+        JavanaParser.ExpressionContext remainder = find(JavanaParser.HigherArithmeticExpressionContext.class, "7%d");
+        assertFalse(LoopInvariant.of(remainder).isHoisted());
+        assertSame(never.blockOf(find(JavanaParser.StatementContext.class, "sum=sum+7%d")),
+                   ((Operation) never.valueOf(remainder)).getBlock());
+    }
+
+    @Test
+    void tailCallsPermuteTheirArguments() throws Exception {
+        Run run = assertEquivalent(ROTATE);
+        assertEquals(0, run.errors());
+
+        String[] lines = lines(run);
+        assertEquals(21, lines.length);
+
+        String[] rotations = {"123", "231", "312"};
+        for (int n = 0; n < 7; n++) {
+            assertEquals(n % 2 == 0 ? "12" : "21", lines[3 * n], "swap " + n);
+            assertEquals(rotations[n % 3], lines[3 * n + 1], "rotate " + n);
+            assertEquals(String.valueOf(BigInteger.valueOf(n * 84).gcd(BigInteger.valueOf(36))),
+                         lines[3 * n + 2], "gcd " + n);
+        }
+
+        for (String name : List.of("swap", "rotate", "gcd")) {
+            List<TailCall> tailCalls = TailCall.in(function(name));
+            assertEquals(1, tailCalls.size(), name);
+            assertTrue(tailCalls.get(0).isSelf(), name);
+        }
+    }
+
+    @Test
+    void deepTailRecursionRunsInConstantStack() throws Exception {
+        Run run = run("""
+                Javana Deep:
+
+                func swap(a: int, b: int, n: int) -> int {
+                    if (n == 0) {
+                        return a * 10 + b
+                    }
+                    return swap(b, a, n - 1)
+                }
+
+                @main() {
+                    println(swap(1, 2, 100001))
+                }
+                """, List.of(TailCallEliminator::new));
+
+        assertEquals(0, run.errors(), run.output());
+        assertEquals("21", run.output().strip());
+    }
+
+    @Test
+    void annotationsRunTheSameInBothInterpreterTiers() throws Exception {
+        Run run = assertEquivalent(HOT);
+        assertEquals(0, run.errors(), run.output());
+
+        // Early calls are interpreted from the tree, and later ones run
+        // the routines compiled once they were hot.
+        String[] lines = lines(run);
+        assertEquals(HOT_CALLS, lines.length);
+        for (int n = 0; n < HOT_CALLS; n++) {
+            int m = n + 1;
+            assertEquals(String.valueOf(34 + 21 * m + m % 4 + m / 8), lines[n], "mix(" + n + ")");
+        }
+
+        for (String name : List.of("mix", "count")) assertNotNull(target(name).getCompiledRoutine(), name);
+
+        // Each pass left its annotation in mix or its callees.
+        assertNotNull(ConstantFolder.constantOf(find(JavanaParser.HigherArithmeticExpressionContext.class, "4*8")));
+        assertTrue(find(JavanaParser.StatementContext.class, "println(\"never\")").dead);
+        assertNotNull(Simplification.of(find(JavanaParser.HigherArithmeticExpressionContext.class, "m/8")));
+        assertTrue(find(tree, JavanaParser.ExpressionContext.class).stream()
+                           .filter(exprCtx -> exprCtx.getText().equals("m*2+1"))
+                           .allMatch(exprCtx -> CommonSubexpression.of(exprCtx) != null));
+        assertTrue(LoopInvariant.of(find(JavanaParser.HigherArithmeticExpressionContext.class, "m*5")).isHoisted());
+        assertNotNull(InlinedCall.of(find(JavanaParser.FunctionCallContext.class, "twice(m)")));
+        assertEquals(1, TailCall.in(function("count")).size());
+    }
+}
@@ -0,0 +1,186 @@
+package edu.yu.compilers.intermediate.ssa;
+
+import antlr4.JavanaLexer;
+import antlr4.JavanaParser;
+import edu.yu.compilers.frontend.Semantics;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SsaVerifierTest {
+
+    private static final List<Supplier<SsaPass>> PASSES = List.of(
+            ConstantFolder::new,
+            DeadCodeEliminator::new,
+            AlgebraicSimplifier::new,
+            CommonSubexpressionEliminator::new,
+            LoopInvariantMotion::new,
+            Inliner::new,
+            TailCallEliminator::new);
+
+    private static final String PROGRAM = """
+            Javana Shapes:
+
+            var scale = 3
+            var label = "area"
+
+            func area(w: int, h: int) -> int {
+                return w * h * scale
+            }
+
+            func gcd(a: int, b: int) -> int {
+                if (b == 0) {
+                    return a
+                }
+                return gcd(b, a % b)
+            }
+
+            func sum(xs: int[]) -> int {
+                var total = 0
+                var i = 0
+                while (i < len(xs)) {
+                    if (xs[i] < 0) {
+                        break
+                    }
+                    total = total + xs[i] / 4
+                    i = i + 1
+                }
+                return total
+            }
+
+            @main() {
+                var xs = @int[10]
+                var y = 0 - 6
+                for (var i = 0; i < 10; i + 1) {
+                    xs[i] = area(i, 4) + 0 * i
+                    if (!(i < 5) && true) {
+                        y = y + gcd(i * 12, 18)
+                    }
+                }
+                println(sum(xs))
+                printf("%s %d%n", label, y)
+            }
+            """;
+
+    /**
+     * Check, parse, and build the SSA intermediate representation of a
+     * Javana program.
+     *
+     * @param source the program's source.
+     * @return the representation.
+     */
+    private static SsaProgram build(String source) {
+        JavanaParser parser = new JavanaParser(new CommonTokenStream(new JavanaLexer(CharStreams.fromString(source))));
+        JavanaParser.ProgramContext tree = parser.program();
+        assertEquals(0, parser.getNumberOfSyntaxErrors(), "syntax errors");
+
+        Semantics semantics = new Semantics();
+        semantics.visit(tree);
+        assertEquals(0, semantics.getErrorCount(), "semantic errors");
+
+        return new SsaBuilder().build(tree);
+    }
+
+    private static String print(SsaProgram program) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new SsaPrinter(new PrintStream(bytes, true, StandardCharsets.UTF_8)).print(program);
+
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private static Operation findPhi(SsaFunction function) {
+        for (BasicBlock block : function.getBlocks()) {
+            if (!block.getPhis().isEmpty()) return block.getPhis().get(0);
+        }
+
+        return fail("no phi in " + function.getName());
+    }
+
+    @Test
+    void builtProgramIsWellFormed() {
+        SsaProgram program = build(PROGRAM);
+
+        assertTrue(program.getUnsupported().isEmpty(), program.getUnsupported().toString());
+        assertDoesNotThrow(() -> SsaVerifier.verify(program));
+
+        String text = print(program);
+        for (String name : List.of("area", "gcd", "sum")) {
+            assertNotNull(program.getFunction(name), name);
+            assertTrue(text.contains("function " + name + "("), name);
+        }
+        assertNotNull(program.getMain());
+        assertTrue(text.contains("function " + SsaBuilder.MAIN_NAME + "("));
+    }
+
+    @Test
+    void buildingIsRepeatableAndVerifyingChangesNothing() {
+        SsaProgram program = build(PROGRAM);
+        String before = print(program);
+
+        SsaVerifier.verify(program);
+
+        assertEquals(before, print(program));
+        assertEquals(before, print(build(PROGRAM)));
+    }
+
+    @Test
+    void eachPassLeavesTheProgramWellFormed() {
+        for (Supplier<SsaPass> pass : PASSES) {
+            SsaProgram program = build(PROGRAM);
+            PassManager passes = new PassManager().add(pass.get());
+
+            // The pass manager verifies before and after the pass.
+            assertDoesNotThrow(() -> passes.run(program), passes.getPassNames().toString());
+        }
+
+        PassManager all = new PassManager();
+        for (Supplier<SsaPass> pass : PASSES) all.add(pass.get());
+        SsaProgram program = build(PROGRAM);
+
+        assertDoesNotThrow(() -> all.run(program));
+        assertTrue(all.getStatistics().values().stream().anyMatch(count -> count > 0), all.getStatistics().toString());
+    }
+
+    @Test
+    void blockWithoutTerminatorIsRejected() {
+        SsaProgram program = build(PROGRAM);
+        BasicBlock entry = program.getFunction("area").getEntry();
+
+        entry.remove(entry.getTerminator());
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> SsaVerifier.verify(program));
+        assertTrue(e.getMessage().contains("has no terminator"), e.getMessage());
+    }
+
+    @Test
+    void phiWithoutAnOperandPerPredecessorIsRejected() {
+        SsaProgram program = build(PROGRAM);
+
+        findPhi(program.getFunction("sum")).removeOperand(0);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> SsaVerifier.verify(program));
+        assertTrue(e.getMessage().contains("phi without an operand per predecessor"), e.getMessage());
+    }
+
+    @Test
+    void useOfARemovedOperationIsRejected() {
+        SsaProgram program = build(PROGRAM);
+        SsaFunction area = program.getFunction("area");
+        Operation used = area.getEntry().getOperations().stream()
+                .filter(operation -> !operation.getUsers().isEmpty())
+                .findFirst().orElseThrow();
+
+        used.remove();
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> SsaVerifier.verify(program));
+        assertTrue(e.getMessage().contains("uses a removed operation"), e.getMessage());
+    }
+}
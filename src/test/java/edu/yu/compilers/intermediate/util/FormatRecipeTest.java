@@ -0,0 +1,69 @@
+package edu.yu.compilers.intermediate.util;
+
+import antlr4.JavanaLexer;
+import antlr4.JavanaParser;
+import edu.yu.compilers.frontend.Semantics;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FormatRecipeTest {
+
+    private static JavanaParser.PrintfCallContext findPrintf(ParseTree tree) {
+        if (tree instanceof JavanaParser.PrintfCallContext printfCtx) return printfCtx;
+
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            JavanaParser.PrintfCallContext printfCtx = findPrintf(tree.getChild(i));
+            if (printfCtx != null) return printfCtx;
+        }
+
+        return null;
+    }
+
+    @Test
+    void formatIsSplitAtItsConversions() {
+        FormatRecipe recipe = FormatRecipe.parse("x=%d, %s%% done%n");
+
+        assertEquals(List.of("x=", ", ", "% done\n"), recipe.getSegments());
+        assertEquals(List.of(FormatRecipe.INTEGER, FormatRecipe.STRING), recipe.getConversions());
+    }
+
+    @Test
+    void newlineDoesNotDependOnTheCompilingMachine() {
+        assertEquals(List.of("a\nb\n"), FormatRecipe.parse("a%nb%n").getSegments());
+    }
+
+    @Test
+    void formatWithOtherConversionsHasNoRecipe() {
+        assertNull(FormatRecipe.parse("%5d"));
+        assertNull(FormatRecipe.parse("%x"));
+        assertNull(FormatRecipe.parse("100%"));
+    }
+
+    @Test
+    void semanticsAttachesTheRecipeToItsCall() {
+        JavanaParser.ProgramContext tree = new JavanaParser(new CommonTokenStream(new JavanaLexer(CharStreams.fromString("""
+                Javana Types:
+
+                @main() {
+                    var n = 4
+                    var done = true
+                    var name = "four"
+                    printf("%s %s %s %d%n", n, done, name, n)
+                }
+                """)))).program();
+        Semantics semantics = new Semantics();
+        semantics.visit(tree);
+        assertEquals(0, semantics.getErrorCount());
+
+        JavanaParser.PrintfCallContext printfCtx = findPrintf(tree);
+        assertNotNull(printfCtx.recipe);
+        assertSame(printfCtx.recipe, FormatRecipe.of(printfCtx));
+        assertEquals(List.of("", " ", " ", " ", "\n"), FormatRecipe.of(printfCtx).getSegments());
+    }
+}
@@ -0,0 +1,61 @@
+package edu.yu.compilers.runtime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JavanaOutputTest {
+
+    private ByteArrayOutputStream sink;
+    private JavanaOutput output;
+
+    @BeforeEach
+    void setUp() {
+        sink = new ByteArrayOutputStream();
+        output = new JavanaOutput(sink, false);
+    }
+
+    private String written() {
+        output.flush();
+        return sink.toString(Charset.defaultCharset());
+    }
+
+    @Test
+    void nullStringsPrintAsNull() {
+        output.print((String) null);
+        output.println((String) null);
+        output.print((Object) null);
+        output.println((Object) null);
+
+        assertEquals("nullnull\nnullnull\n", written());
+    }
+
+    @Test
+    void integersPrintAsTheirDecimalText() {
+        int[] values = {0, 7, -7, 10, 99, 100, -100, 123456789, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        StringBuilder expected = new StringBuilder();
+
+        for (int value : values) {
+            output.print(value);
+            output.println();
+            expected.append(value).append('\n');
+        }
+
+        assertEquals(expected.toString(), written());
+    }
+
+    @Test
+    void textLongerThanTheBufferIsWrittenWhole() {
+        String text = "x".repeat(JavanaOutput.BUFFER_SIZE + 10) + "é";
+
+        output.print("ab");
+        output.println(text);
+
+        output.flush();
+        assertArrayEquals(("ab" + text + "\n").getBytes(Charset.defaultCharset()), sink.toByteArray());
+    }
+}